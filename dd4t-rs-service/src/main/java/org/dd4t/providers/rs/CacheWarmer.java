@@ -0,0 +1,356 @@
+package org.dd4t.providers.rs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.commons.codec.binary.Base64;
+import org.dd4t.core.exceptions.ItemNotFoundException;
+import org.dd4t.core.exceptions.SerializationException;
+import org.dd4t.core.util.TCMURI;
+import org.dd4t.providers.serializer.ContentEncoding;
+import org.dd4t.providers.serializer.SerializerFactory;
+import org.dd4t.providers.serializer.json.JSONSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Primes the provider cache by walking the page list of the configured Publications. Every page is fetched through
+ * the @see TridionPageProvider, then the dynamic Component Presentations and the Component links it references, so
+ * they end up in the provider cache exactly as a request would put them there.
+ * <p/>
+ * Pages are warmed on a bounded number of threads, and all broker calls go through a shared rate limiter, so a
+ * warm-up does not take the broker database down while it also serves live traffic. The service reports ready once
+ * readyPercentage percent of the pages are warmed.
+ *
+ * @author R. Kempees
+ */
+public class CacheWarmer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheWarmer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern COMPONENT_URI = Pattern.compile("tcm:\\d+-\\d+(-16)?");
+    private static final CacheWarmer INSTANCE = new CacheWarmer();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger totalPages = new AtomicInteger();
+    private final AtomicInteger warmedPages = new AtomicInteger();
+    private final AtomicInteger failedPages = new AtomicInteger();
+    private final AtomicInteger warmedItems = new AtomicInteger();
+    private volatile boolean enabled;
+    private volatile Set<Integer> publications = Collections.emptySet();
+    private volatile int concurrency = 4;
+    private volatile double rate = 50;
+    private volatile int readyPercentage = 90;
+    private volatile boolean warmComponentPresentations = true;
+    private volatile boolean warmLinks = true;
+    private volatile boolean finished;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    private CacheWarmer () {
+
+    }
+
+    public static CacheWarmer getInstance () {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled () {
+        return enabled;
+    }
+
+    /**
+     * @param enabled boolean true to warm the cache on startup
+     */
+    public void setEnabled (final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Set<Integer> getPublications () {
+        return publications;
+    }
+
+    /**
+     * @param publications Set of the ids of the Publications to warm
+     */
+    public void setPublications (final Set<Integer> publications) {
+        this.publications = new LinkedHashSet<>(publications);
+    }
+
+    public int getConcurrency () {
+        return concurrency;
+    }
+
+    /**
+     * @param concurrency int the number of pages warmed in parallel
+     */
+    public void setConcurrency (final int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public double getRate () {
+        return rate;
+    }
+
+    /**
+     * @param rate double the maximum number of items fetched per second
+     */
+    public void setRate (final double rate) {
+        this.rate = rate;
+    }
+
+    public int getReadyPercentage () {
+        return readyPercentage;
+    }
+
+    /**
+     * @param readyPercentage int the percentage of pages that must be warmed before the service reports ready
+     */
+    public void setReadyPercentage (final int readyPercentage) {
+        this.readyPercentage = readyPercentage;
+    }
+
+    public boolean isWarmComponentPresentations () {
+        return warmComponentPresentations;
+    }
+
+    public void setWarmComponentPresentations (final boolean warmComponentPresentations) {
+        this.warmComponentPresentations = warmComponentPresentations;
+    }
+
+    public boolean isWarmLinks () {
+        return warmLinks;
+    }
+
+    public void setWarmLinks (final boolean warmLinks) {
+        this.warmLinks = warmLinks;
+    }
+
+    public boolean isRunning () {
+        return running.get();
+    }
+
+    public boolean isFinished () {
+        return finished;
+    }
+
+    public int getTotalPages () {
+        return totalPages.get();
+    }
+
+    public int getWarmedPages () {
+        return warmedPages.get();
+    }
+
+    public int getFailedPages () {
+        return failedPages.get();
+    }
+
+    public int getWarmedItems () {
+        return warmedItems.get();
+    }
+
+    public long getStartedAt () {
+        return startedAt;
+    }
+
+    public long getFinishedAt () {
+        return finishedAt;
+    }
+
+    /**
+     * @return int the percentage of pages warmed (or failed) so far
+     */
+    public int getPercentage () {
+        final int total = totalPages.get();
+        if (total == 0) {
+            return finished ? 100 : 0;
+        }
+        return (int) (100L * (warmedPages.get() + failedPages.get()) / total);
+    }
+
+    /**
+     * @return boolean true if no warm-up is enabled, or enough pages are warmed
+     */
+    public boolean isReady () {
+        return !enabled || finished || getPercentage() >= readyPercentage;
+    }
+
+    /**
+     * Starts a warm-up in the background if warm-up on startup is enabled.
+     */
+    public void startOnStartup () {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Starts a warm-up of the configured Publications in the background.
+     *
+     * @return boolean false if a warm-up is already running
+     */
+    public boolean start () {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+
+        final Thread thread = new Thread(this::warm, "dd4t-rs-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    private void warm () {
+        startedAt = System.currentTimeMillis();
+        finished = false;
+        totalPages.set(0);
+        warmedPages.set(0);
+        failedPages.set(0);
+        warmedItems.set(0);
+
+        final RateLimiter rateLimiter = RateLimiter.create(rate);
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "dd4t-rs-warmup-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            LOG.info("Warming cache for publications: {}", publications);
+            for (Integer publicationId : publications) {
+                final List<String> urls = getPageUrls(publicationId, rateLimiter);
+                totalPages.addAndGet(urls.size());
+                for (String url : urls) {
+                    executor.execute(() -> warmPage(url, publicationId, rateLimiter));
+                }
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            LOG.warn("Cache warm-up interrupted");
+        } finally {
+            finishedAt = System.currentTimeMillis();
+            finished = true;
+            running.set(false);
+            LOG.info("Warmed {} pages and {} items in {} ms; {} pages failed", warmedPages.get(), warmedItems.get(),
+                    finishedAt - startedAt, failedPages.get());
+        }
+    }
+
+    private List<String> getPageUrls (final int publicationId, final RateLimiter rateLimiter) {
+        final List<String> urls = new ArrayList<>();
+        try {
+            rateLimiter.acquire();
+            final String pageList = TridionPageProvider.getInstance().getPageListByPublicationId(publicationId);
+            collectUrls(readTree(pageList), urls);
+            LOG.debug("Found {} pages to warm in publication: {}", urls.size(), publicationId);
+        } catch (ItemNotFoundException | SerializationException | IOException e) {
+            LOG.warn("Could not fetch page list of publication: {}", publicationId, e);
+        }
+        return urls;
+    }
+
+    private void warmPage (final String url, final int publicationId, final RateLimiter rateLimiter) {
+        final TridionPageProvider pageProvider = TridionPageProvider.getInstance();
+        try {
+            rateLimiter.acquire();
+            final String encodedUrl = pageProvider.getUrlCoder().encodeToString(url.getBytes(StandardCharsets.UTF_8));
+            final byte[] content = pageProvider.getCompressedPageContentByURL(encodedUrl, publicationId);
+            final JsonNode page = MAPPER.readTree(SerializerFactory.getSerializer().decompressGZip(content));
+
+            if (warmComponentPresentations) {
+                warmComponentPresentations(page, publicationId, rateLimiter);
+            }
+            if (warmLinks) {
+                final Set<String> componentUris = new LinkedHashSet<>();
+                collectComponentUris(page, componentUris);
+                for (String componentUri : componentUris) {
+                    rateLimiter.acquire();
+                    TridionLinkProvider.getInstance().resolveComponent(componentUri);
+                    warmedItems.incrementAndGet();
+                }
+            }
+            warmedPages.incrementAndGet();
+        } catch (ItemNotFoundException | SerializationException | IOException | RuntimeException e) {
+            failedPages.incrementAndGet();
+            LOG.debug("Could not warm page: {} in publication: {}", url, publicationId, e);
+        }
+    }
+
+    private void warmComponentPresentations (final JsonNode page, final int publicationId,
+                                             final RateLimiter rateLimiter) {
+        final JsonNode componentPresentations = page.path("ComponentPresentations");
+        for (JsonNode componentPresentation : componentPresentations) {
+            if (!componentPresentation.path("IsDynamic").asBoolean()) {
+                continue;
+            }
+            try {
+                final TCMURI componentUri = new TCMURI(componentPresentation.path("Component").path("Id").asText());
+                final TCMURI templateUri = new TCMURI(componentPresentation.path("ComponentTemplate").path("Id").asText());
+                rateLimiter.acquire();
+                TridionComponentPresentationProvider.getInstance().getDynamicComponentPresentation(
+                        componentUri.getItemId(), templateUri.getItemId(), publicationId);
+                warmedItems.incrementAndGet();
+            } catch (ParseException | ItemNotFoundException | SerializationException e) {
+                LOG.debug("Could not warm DCP: {}", componentPresentation.path("Component").path("Id"), e);
+            }
+        }
+    }
+
+    /*
+    Page lists are JSON, possibly GZip compressed and Base64 encoded.
+     */
+    private static JsonNode readTree (final String content) throws SerializationException, IOException {
+        if (content == null) {
+            return MAPPER.createObjectNode();
+        }
+        final JSONSerializer serializer = SerializerFactory.getSerializer();
+        final String json = serializer.getContentEncoding(content) == ContentEncoding.BASE64_GZIP ?
+                serializer.decompressGZip(Base64.decodeBase64(content)) : content;
+        return MAPPER.readTree(json);
+    }
+
+    private static void collectUrls (final JsonNode node, final List<String> urls) {
+        if (node.isTextual()) {
+            if (node.asText().startsWith("/")) {
+                urls.add(node.asText());
+            }
+            return;
+        }
+        for (JsonNode child : node) {
+            collectUrls(child, urls);
+        }
+    }
+
+    private static void collectComponentUris (final JsonNode node, final Set<String> componentUris) {
+        if (node.isTextual()) {
+            if (COMPONENT_URI.matcher(node.asText()).matches()) {
+                componentUris.add(node.asText());
+            }
+            return;
+        }
+        final Iterator<JsonNode> children = node.elements();
+        while (children.hasNext()) {
+            collectComponentUris(children.next(), componentUris);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.dd4t.providers.rs;
+
+import com.tridion.meta.ComponentMeta;
+import com.tridion.meta.ComponentMetaFactory;
+import org.dd4t.providers.rs.caching.RelatedItemResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Relates a component to its schema. Query results by schema depend on the schema item, so publishing a new component
+ * of that schema invalidates them as well.
+ *
+ * @author R. Kempees
+ */
+public class ComponentSchemaResolver implements RelatedItemResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ComponentSchemaResolver.class);
+    private static final int[] NONE = new int[0];
+    private static final ComponentSchemaResolver INSTANCE = new ComponentSchemaResolver();
+
+    private ComponentSchemaResolver () {
+
+    }
+
+    public static ComponentSchemaResolver getInstance () {
+        return INSTANCE;
+    }
+
+    @Override
+    public int[] getRelatedItemIds (final int publicationId, final int itemId) {
+        final int schemaId = getSchemaId(publicationId, itemId);
+        return schemaId > 0 ? new int[]{schemaId} : NONE;
+    }
+
+    /**
+     * @param publicationId int representing the Publication id of the component
+     * @param componentId   int representing the component id
+     * @return int the id of the schema of the component; or 0, if the item is not a published component
+     */
+    public static int getSchemaId (final int publicationId, final int componentId) {
+        try {
+            final ComponentMeta componentMeta = new ComponentMetaFactory(publicationId).getMeta(componentId);
+            return componentMeta == null ? 0 : componentMeta.getSchemaId();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not resolve schema of component: {}:{}", publicationId, componentId, e);
+            return 0;
+        }
+    }
+}
@@ -2,8 +2,14 @@ package org.dd4t.providers.rs;
 
 import org.apache.commons.codec.binary.Base64;
 import org.dd4t.providers.PayloadCacheProvider;
+import org.dd4t.providers.rs.caching.CacheLoader;
+import org.dd4t.providers.rs.caching.SingleFlightLoader;
+import org.dd4t.providers.serializer.CompressionCodec;
+import org.dd4t.providers.serializer.CompressionCodecs;
+import org.dd4t.providers.serializer.ZstdDictionaryCodec;
 
 import javax.annotation.Resource;
+import java.util.function.Function;
 
 /**
  * dd4t-2-rs-service
@@ -28,4 +34,109 @@ public abstract class TridionBaseProvider {
     public Base64 getUrlCoder () {
         return urlCoder;
     }
+
+    /**
+     * Encodes compressed content, as it is cached, to the Base64 String clients of the String based methods expect.
+     *
+     * @param content byte[] the compressed content
+     * @return String the Base64 encoded content; null if content is null
+     */
+    protected static String encodeBase64 (final byte[] content) {
+        return content == null ? null : Base64.encodeBase64String(content);
+    }
+
+    /**
+     * Decodes content the broker returned Base64 encoded, without checking it is Base64 first.
+     *
+     * @param content String the Base64 encoded content
+     * @return byte[] the decoded content
+     */
+    protected static byte[] decodeBase64 (final String content) {
+        return Base64.decodeBase64(content);
+    }
+
+    /**
+     * Returns the payload cached under the given key, or loads and caches it with the given loader if the cached
+     * payload is expired. Concurrent misses for the same key share a single load.
+     *
+     * @param type          the CacheType (or RsCacheType) of the key
+     * @param key           String representing the cache key
+     * @param exceptionType the Class of the checked exception the loader may throw
+     * @param loader        the CacheLoader that fetches and returns the payload on a cache miss
+     * @return T the cached or loaded payload; null if the item does not exist
+     * @throws E if the payload could not be loaded
+     */
+    protected <T, E extends Exception> T loadPayload (final Enum<?> type, final String key,
+                                                     final Class<E> exceptionType,
+                                                     final CacheLoader<T, E> loader) throws E {
+        return loadPayload(type, 0, key, exceptionType, loader);
+    }
+
+    /**
+     * Returns the payload cached under the given key, or loads and caches it with the given loader if the cached
+     * payload is expired. Concurrent misses for the same key share a single load. Items recently found missing in the
+     * given Publication are not looked up again until their negative cache entry expires.
+     *
+     * @param type          the CacheType (or RsCacheType) of the key
+     * @param publicationId int representing the Publication id the key belongs to
+     * @param key           String representing the cache key
+     * @param exceptionType the Class of the checked exception the loader may throw
+     * @param loader        the CacheLoader that fetches and returns the payload on a cache miss
+     * @return T the cached or loaded payload; null if the item does not exist
+     * @throws E if the payload could not be loaded
+     */
+    protected <T, E extends Exception> T loadPayload (final Enum<?> type, final int publicationId, final String key,
+                                                     final Class<E> exceptionType,
+                                                     final CacheLoader<T, E> loader) throws E {
+        final String typeName = type.name();
+        final SingleFlightLoader singleFlightLoader = SingleFlightLoader.getInstance();
+        singleFlightLoader.getStatistics().setProvider(typeName, getClass().getSimpleName());
+        return singleFlightLoader.load(typeName, publicationId, key, cacheProvider, exceptionType, loader);
+    }
+
+    /**
+     * Returns the GZip compressed payload cached under the given key, compressed with the given codec. The payload is
+     * recompressed on the first request only, and the result is stored with the cached payload as a variant. A
+     * dictionary codec is applied to the JSON the payload holds, so the payload must be GZip compressed JSON for it.
+     *
+     * @param type    the CacheType (or RsCacheType) of the key
+     * @param key     String representing the cache key
+     * @param content byte[] the GZip compressed payload, as it was loaded by the caller; may be null
+     * @param codec   CompressionCodec to compress the payload with
+     * @return byte[] the payload compressed with the codec; null if content is null or could not be recompressed
+     */
+    protected byte[] getVariant (final Enum<?> type, final String key, final byte[] content,
+                                 final CompressionCodec codec) {
+        return getVariant(type, key, content, getVariantName(codec),
+                payload -> CompressionCodecs.getInstance().recompress(payload, codec));
+    }
+
+    /**
+     * @param codec CompressionCodec a variant is compressed with
+     * @return String the name to store the variant under; with the dictionary id for a dictionary codec, so a variant
+     * compressed with one dictionary is never sent as compressed with another
+     */
+    protected static String getVariantName (final CompressionCodec codec) {
+        return codec instanceof ZstdDictionaryCodec ?
+                codec.getName() + '-' + ((ZstdDictionaryCodec) codec).getId() : codec.getName();
+    }
+
+    /**
+     * Returns a variant of the payload cached under the given key, made by the given compressor on the first request
+     * only and stored with the cached payload.
+     *
+     * @param type       the CacheType (or RsCacheType) of the key
+     * @param key        String representing the cache key
+     * @param content    byte[] the payload, as it was loaded by the caller; may be null
+     * @param name       String representing the name of the variant
+     * @param compressor Function making the variant of a payload; returning null if it could not be made
+     * @return byte[] the variant; null if content is null or the variant could not be made
+     */
+    protected byte[] getVariant (final Enum<?> type, final String key, final byte[] content, final String name,
+                                 final Function<byte[], byte[]> compressor) {
+        if (content == null) {
+            return null;
+        }
+        return SingleFlightLoader.getInstance().getVariant(type.name(), key, cacheProvider, name, content, compressor);
+    }
 }
@@ -11,13 +11,18 @@ import com.tridion.broker.querying.sorting.SortDirection;
 import com.tridion.broker.querying.sorting.SortParameter;
 import com.tridion.storage.BinaryVariant;
 import org.dd4t.contentmodel.Binary;
-import org.dd4t.core.caching.CacheElement;
 import org.dd4t.core.caching.CacheType;
 import org.dd4t.core.exceptions.ItemNotFoundException;
 import org.dd4t.core.exceptions.SerializationException;
 import org.dd4t.core.util.TCMURI;
 import org.dd4t.providers.impl.BrokerBinaryProvider;
+import org.dd4t.providers.rs.caching.CacheKey;
+import org.dd4t.providers.rs.caching.CacheStatistics;
+import org.dd4t.providers.rs.caching.LoadContext;
+import org.dd4t.providers.rs.caching.OffHeapBinaryStore;
 import org.dd4t.providers.serializer.BinaryBuilder;
+import org.dd4t.providers.serializer.BinarySerializer;
+import org.dd4t.providers.serializer.SerializationFormat;
 import org.dd4t.providers.serializer.SerializerFactory;
 import org.dd4t.providers.serializer.json.JSONSerializer;
 import org.dd4t.providers.transport.BinaryWrapper;
@@ -25,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
 /**
@@ -41,6 +47,7 @@ public class TridionBinaryProvider extends TridionBaseProvider {
     private final static Logger LOG = LoggerFactory.getLogger(TridionBinaryProvider.class);
 
     private BrokerBinaryProvider binaryProvider;
+    private final OffHeapBinaryStore binaryStore = OffHeapBinaryStore.getInstance();
     private static final TridionBinaryProvider INSTANCE = new TridionBinaryProvider();
 
 
@@ -71,40 +78,48 @@ public class TridionBinaryProvider extends TridionBaseProvider {
      */
     public byte[] getBinaryContentById(final int id, final int publication)
             throws StorageException, ItemNotFoundException {
+        return toByteArray(getBinaryContentBufferById(id, publication));
+    }
+
+    /**
+     * Method delegates to @see org.dd4t.providers.impl.BrokerBinaryProvider#getBinaryContentById
+     * <p/>
+     * Binaries of at least the off-heap threshold are kept in the @see OffHeapBinaryStore, and returned as a view on
+     * their off-heap copy.
+     *
+     * @param id          int representing the item id
+     * @param publication int representing the publication id
+     * @return ByteBuffer a buffer with the binary content; read-only if it is kept off-heap
+     * @throws StorageException      if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item identified by id and publication was not found
+     */
+    public ByteBuffer getBinaryContentBufferById(final int id, final int publication)
+            throws StorageException, ItemNotFoundException {
         LOG.debug("Fetching binary content id: {} and publication: {}", id, publication);
 
-        String key = getKey(CacheType.BINARY_CONTENT, id, publication);
-        CacheElement<byte[]> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        byte[] result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        result = binaryProvider.getBinaryContentById(id, publication);
-                        cacheElement.setPayload(result);
-                        cacheProvider.storeInItemCache(key, cacheElement, publication, id);
-                    } catch (ItemNotFoundException e) {
-                        result = null;
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement, publication, id);
-                        cacheElement.setExpired(true);
-                    }
-                } else {
-                    result = cacheElement.getPayload();
-                }
-            }
-        } else {
-            result = cacheElement.getPayload();
+        final String key = getKey(CacheType.BINARY_CONTENT, id, publication);
+        final ByteBuffer stored = getOffHeap(key);
+        if (stored != null) {
+            return stored;
         }
 
+        byte[] result = loadPayload(CacheType.BINARY_CONTENT, publication, key, StorageException.class, context -> {
+            try {
+                byte[] content = binaryProvider.getBinaryContentById(id, publication);
+                context.dependsOn(publication, id);
+                storeOffHeap(key, content, publication, id, context);
+                return content;
+            } catch (ItemNotFoundException e) {
+                context.notFound();
+                return null;
+            }
+        });
+
         if (result == null) {
             throw new ItemNotFoundException("Unable to find binary content by id '" + id + "' and publication '" + publication + "'.");
         }
 
-        return result;
+        return ByteBuffer.wrap(result);
     }
 
     /**
@@ -120,48 +135,86 @@ public class TridionBinaryProvider extends TridionBaseProvider {
      */
     public byte[] getBinaryContentByURL(final String url, final int publication)
             throws StorageException, ItemNotFoundException {
+        return toByteArray(getBinaryContentBufferByURL(url, publication));
+    }
+
+    /**
+     * Method delegates to @see org.dd4t.providers.impl.BrokerBinaryProvider#getBinaryContentByURL
+     * <p/>
+     * Binaries of at least the off-heap threshold are kept in the @see OffHeapBinaryStore, and returned as a view on
+     * their off-heap copy.
+     *
+     * @param url         string representing the path portion of the URL of the binary
+     * @param publication int representing the publication id
+     * @return ByteBuffer a buffer with the binary content; read-only if it is kept off-heap
+     * @throws StorageException      if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item identified by url and publication was not found
+     */
+    public ByteBuffer getBinaryContentBufferByURL(final String url, final int publication)
+            throws StorageException, ItemNotFoundException {
         LOG.debug("Fetching binary content by url: {}, and publication: {}", url, publication);
 
-        String decodedUrl = decodeUrl(url);
-        String key = getKey(CacheType.BINARY_CONTENT, decodedUrl, publication);
-        CacheElement<byte[]> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        byte[] result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        BinaryVariant variant = binaryProvider.getBinaryVariantByURL(decodedUrl, publication);
-                        if (variant == null) {
-                            result = null;
-                            cacheElement.setPayload(null);
-                            cacheProvider.storeInItemCache(key, cacheElement);
-                        } else {
-                            result = binaryProvider.getBinaryContentByURL(decodedUrl, publication);
-                            cacheElement.setPayload(result);
-                            cacheProvider.storeInItemCache(key, cacheElement, publication, variant.getBinaryId());
-                        }
-                    } catch (ItemNotFoundException e) {
-                        result = null;
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-                    }
-                } else {
-                    result = cacheElement.getPayload();
+        final String decodedUrl = decodeUrl(url);
+        final String key = getKey(CacheType.BINARY_CONTENT, decodedUrl, publication);
+        final ByteBuffer stored = getOffHeap(key);
+        if (stored != null) {
+            return stored;
+        }
+
+        byte[] result = loadPayload(CacheType.BINARY_CONTENT, publication, key, StorageException.class, context -> {
+            try {
+                BinaryVariant variant = binaryProvider.getBinaryVariantByURL(decodedUrl, publication);
+                if (variant == null) {
+                    context.notFound();
+                    return null;
                 }
+
+                byte[] content = binaryProvider.getBinaryContentByURL(decodedUrl, publication);
+                context.dependsOn(publication, variant.getBinaryId());
+                storeOffHeap(key, content, publication, variant.getBinaryId(), context);
+                return content;
+            } catch (ItemNotFoundException e) {
+                context.notFound();
+                return null;
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        });
 
         if (result == null) {
             throw new ItemNotFoundException("Unable to find binary content by url '" + url + "' and publication '" +
                     publication + "'.");
         }
 
-        return result;
+        return ByteBuffer.wrap(result);
+    }
+
+    private ByteBuffer getOffHeap(final String key) {
+        final ByteBuffer stored = binaryStore.get(key);
+        if (stored != null) {
+            LOG.debug("Fetched binary content with key: {} off-heap", key);
+            CacheStatistics.getInstance().hit(CacheType.BINARY_CONTENT.name());
+        }
+        return stored;
+    }
+
+    /*
+    Moves binaries above the off-heap threshold to the off-heap tier instead of the provider cache
+     */
+    private void storeOffHeap(final String key, final byte[] content, final int publication, final int id,
+                              final LoadContext context) {
+        if (content != null && binaryStore.accepts(content.length)) {
+            binaryStore.put(key, content, publication, id);
+            context.skipCache();
+        }
+    }
+
+    private static byte[] toByteArray(final ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+
+        final byte[] content = new byte[buffer.remaining()];
+        buffer.duplicate().get(content);
+        return content;
     }
 
     /**
@@ -175,38 +228,41 @@ public class TridionBinaryProvider extends TridionBaseProvider {
      */
     public String getBinaryMetaById(int id, int publication)
             throws StorageException, ItemNotFoundException, IOException {
+        return encodeBase64(getCompressedBinaryMetaById(id, publication));
+    }
+
+    /**
+     * Returns the GZip compressed binary meta as it is cached, so it can be Base64 encoded straight into a response.
+     *
+     * @param id          int representing the item id
+     * @param publication int representing the publication id
+     * @return byte[] the GZip compressed binary meta
+     * @throws StorageException      if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item was not found
+     */
+    public byte[] getCompressedBinaryMetaById(int id, int publication)
+            throws StorageException, ItemNotFoundException, IOException {
         LOG.debug("Fetching binary meta id: {} and publication: {}", id, publication);
 
-        String key = getKey(CacheType.BINARY_META, id, publication);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result = null;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        BinaryVariant variant = binaryProvider.getBinaryVariantById(id, publication);
-                        if (variant != null) {
-                            result = serialize(variant);
-                        }
-                        cacheElement.setPayload(result);
-                        cacheProvider.storeInItemCache(key, cacheElement, publication, id);
-                    } catch (ItemNotFoundException e) {
-                        result = null;
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-                    } catch (SerializationException se) {
-                        throw new IOException(se);
-                    }
-                } else {
-                    result = cacheElement.getPayload();
+        final String key = getKey(CacheType.BINARY_META, id, publication);
+        byte[] result = loadPayload(CacheType.BINARY_META, publication, key, IOException.class, context -> {
+            try {
+                BinaryVariant variant = binaryProvider.getBinaryVariantById(id, publication);
+                if (variant == null) {
+                    context.notFound();
+                    return null;
                 }
+
+                byte[] meta = serialize(variant);
+                context.dependsOn(publication, id);
+                return meta;
+            } catch (ItemNotFoundException e) {
+                context.notFound();
+                return null;
+            } catch (SerializationException se) {
+                throw new IOException(se);
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        });
 
         if (result == null) {
             throw new ItemNotFoundException("Unable to find binary meta by id '" + id + "' and publication '" +
@@ -227,43 +283,42 @@ public class TridionBinaryProvider extends TridionBaseProvider {
      */
     public String getBinaryMetaByURL(String url, int publication)
             throws StorageException, ItemNotFoundException, IOException {
+        return encodeBase64(getCompressedBinaryMetaByURL(url, publication));
+    }
+
+    /**
+     * Returns the GZip compressed binary meta as it is cached, so it can be Base64 encoded straight into a response.
+     *
+     * @param url         string representing the path portion of the URL of the binary
+     * @param publication int representing the publication id
+     * @return byte[] the GZip compressed binary meta
+     * @throws StorageException      if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item was not found
+     */
+    public byte[] getCompressedBinaryMetaByURL(String url, int publication)
+            throws StorageException, ItemNotFoundException, IOException {
         LOG.debug("Fetching binary meta by url: {} and publication: {}", url, publication);
 
-        String decodedUrl = decodeUrl(url);
-        String key = getKey(CacheType.BINARY_META, decodedUrl, publication);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result = null;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        BinaryVariant variant = binaryProvider.getBinaryVariantByURL(decodedUrl, publication);
-                        if (variant == null) {
-                            cacheElement.setPayload(null);
-                            cacheProvider.storeInItemCache(key, cacheElement);
-                            cacheElement.setExpired(true);
-                        } else {
-                            result = serialize(variant);
-                            cacheElement.setPayload(result);
-                            cacheProvider.storeInItemCache(key, cacheElement, publication, variant.getBinaryId());
-                        }
-                    } catch (ItemNotFoundException e) {
-                        result = null;
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-                    } catch (SerializationException se) {
-                        throw new IOException(se);
-                    }
-                } else {
-                    result = cacheElement.getPayload();
+        final String decodedUrl = decodeUrl(url);
+        final String key = getKey(CacheType.BINARY_META, decodedUrl, publication);
+        byte[] result = loadPayload(CacheType.BINARY_META, publication, key, IOException.class, context -> {
+            try {
+                BinaryVariant variant = binaryProvider.getBinaryVariantByURL(decodedUrl, publication);
+                if (variant == null) {
+                    context.notFound();
+                    return null;
                 }
+
+                byte[] meta = serialize(variant);
+                context.dependsOn(publication, variant.getBinaryId());
+                return meta;
+            } catch (ItemNotFoundException e) {
+                context.notFound();
+                return null;
+            } catch (SerializationException se) {
+                throw new IOException(se);
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        });
 
         if (result == null) {
             throw new ItemNotFoundException("Unable to find binary meta by url '" + url + "' and publication '" +
@@ -273,60 +328,82 @@ public class TridionBinaryProvider extends TridionBaseProvider {
         return result;
     }
 
+    /**
+     * Retrieves binary meta and binary content for a given Tridion Binary published to the CD DB, as a Java serialized
+     * BinaryWrapper (@see #getWrapperById(int, int, SerializationFormat)).
+     *
+     * @param id          int representing the item id
+     * @param publication int representing the publication id
+     * @return byte[] the byte array GZipped representation of the BinaryWrapper object
+     * @throws StorageException      if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item identified by url and publication was not found
+     * @throws IOException           if something went wrong during compressing the BinaryWrapper
+     */
+    public byte[] getWrapperById(int id, int publication)
+            throws StorageException, ItemNotFoundException, IOException {
+        return getWrapperById(id, publication, SerializationFormat.JAVA);
+    }
+
     /**
      * Retrieves binary meta and binary content for a given Tridion Binary published to the CD DB. The binary meta is
      * placed inside a BinaryImpl object that is JSONed, then GZipped and then Base64 encoded. The binary content is
-     * a byte array. They are both placed in a BinaryWrapper object that is GZip encoded to a byte array.
+     * a byte array. They are both placed in a BinaryWrapper object that is serialized in the given format and GZip
+     * encoded to a byte array.
      *
      * @param id          int representing the item id
      * @param publication int representing the publication id
+     * @param format      SerializationFormat to serialize the BinaryWrapper in
      * @return byte[] the byte array GZipped representation of the BinaryWrapper object
      * @throws StorageException      if something went wrong during accessing the CD DB
      * @throws ItemNotFoundException if the item identified by url and publication was not found
      * @throws IOException           if something went wrong during compressing the BinaryWrapper
      */
-    public byte[] getWrapperById(int id, int publication)
+    public byte[] getWrapperById(int id, int publication, SerializationFormat format)
             throws StorageException, ItemNotFoundException, IOException {
-        LOG.debug("Fetching binary wrapper id: {} and publication: {}", id, publication);
+        LOG.debug("Fetching binary wrapper id: {}, publication: {} and format: {}", id, publication, format);
 
-        try {
-            byte[] content = getBinaryContentById(id, publication);
-            String binary = getBinaryMetaById(id, publication);
-            BinaryWrapper wrapper = new BinaryWrapper(binary, content);
+        byte[] content = getBinaryContentById(id, publication);
+        String binary = getBinaryMetaById(id, publication);
+        return serialize(new BinaryWrapper(binary, content), format);
+    }
 
-            JSONSerializer serializer = SerializerFactory.getSerializer();
-            return serializer.compressGZipGeneric(wrapper);
-        } catch (SerializationException se) {
-            throw new IOException(se);
-        }
+    /**
+     * Retrieves binary meta and binary content for a given Tridion Binary published to the CD DB, as a Java serialized
+     * BinaryWrapper (@see #getWrapperByURL(String, int, SerializationFormat)).
+     *
+     * @param url         string representing the path portion of the URL of the binary
+     * @param publication int representing the publication id
+     * @return byte[] the byte array GZipped representation of the BinaryWrapper object
+     * @throws StorageException      if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item identified by url and publication was not found
+     * @throws IOException           if something went wrong during compressing the BinaryWrapper
+     */
+    public byte[] getWrapperByURL(String url, int publication) throws
+            StorageException, ItemNotFoundException, IOException {
+        return getWrapperByURL(url, publication, SerializationFormat.JAVA);
     }
 
     /**
      * Retrieves binary meta and binary content for a given Tridion Binary published to the CD DB. The binary meta is
      * placed inside a BinaryImpl object that is JSONed, then GZipped and then Base64 encoded. The binary content is
-     * a byte array. They are both placed in a BinaryWrapper object that is GZip encoded to a byte array.
+     * a byte array. They are both placed in a BinaryWrapper object that is serialized in the given format and GZip
+     * encoded to a byte array.
      *
      * @param url         string representing the path portion of the URL of the binary
      * @param publication int representing the publication id
+     * @param format      SerializationFormat to serialize the BinaryWrapper in
      * @return byte[] the byte array GZipped representation of the BinaryWrapper object
      * @throws StorageException      if something went wrong during accessing the CD DB
      * @throws ItemNotFoundException if the item identified by url and publication was not found
      * @throws IOException           if something went wrong during compressing the BinaryWrapper
      */
-    public byte[] getWrapperByURL(String url, int publication) throws
+    public byte[] getWrapperByURL(String url, int publication, SerializationFormat format) throws
             StorageException, ItemNotFoundException, IOException {
-        LOG.debug("Fetching binary wrapper url: {} and publication: {}", url, publication);
-
-        try {
-            byte[] content = getBinaryContentByURL(url, publication);
-            String binary = getBinaryMetaByURL(url, publication);
-            BinaryWrapper wrapper = new BinaryWrapper(binary, content);
+        LOG.debug("Fetching binary wrapper url: {}, publication: {} and format: {}", url, publication, format);
 
-            JSONSerializer serializer = SerializerFactory.getSerializer();
-            return serializer.compressGZipGeneric(wrapper);
-        } catch (SerializationException se) {
-            throw new IOException(se);
-        }
+        byte[] content = getBinaryContentByURL(url, publication);
+        String binary = getBinaryMetaByURL(url, publication);
+        return serialize(new BinaryWrapper(binary, content), format);
     }
 
     /**
@@ -342,55 +419,49 @@ public class TridionBinaryProvider extends TridionBaseProvider {
             throws ItemNotFoundException, ParseException, StorageException {
         LOG.debug("Discovering Publication id for imagesUrl: {}", imagesUrl);
 
-        String decodedUrl = decodeUrl(imagesUrl);
-        String key = getKey(CacheType.DISCOVER_IMAGES_URL, decodedUrl);
-        CacheElement<Integer> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        Integer result = null;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-
-                    Criteria publicationCriteria = new PublicationMultimediaURLCriteria(decodedUrl);
-                    Criteria componentTemplateCriteria = new ItemTypeCriteria(32);
-                    Criteria criteria = new AndCriteria(componentTemplateCriteria, publicationCriteria);
-
-                    Query query = new Query(criteria);
-                    query.addSorting(new SortParameter(SortParameter.ITEMS_LAST_PUBLISHED_DATE, SortDirection.DESCENDING));
-
-                    String[] results = query.executeQuery();
-                    if (results == null || results.length == 0) {
-                        Criteria pageCriteria = new ItemTypeCriteria(64);
-                        criteria = new AndCriteria(pageCriteria, publicationCriteria);
-
-                        query = new Query(criteria);
-                        query.setResultFilter(new LimitFilter(1));
-                        query.addSorting(new SortParameter(SortParameter.ITEMS_LAST_PUBLISHED_DATE, SortDirection.DESCENDING));
-                        results = query.executeQuery();
-                    }
+        final String decodedUrl = decodeUrl(imagesUrl);
+        final String key = getKey(CacheType.DISCOVER_IMAGES_URL, decodedUrl);
+        Integer result = loadPayload(CacheType.DISCOVER_IMAGES_URL, key, StorageException.class, context -> {
+            Integer publicationId = null;
 
-                    if (results != null && results.length > 0) {
-                        if (containsDuplicates(results)) {
-                            LOG.error("Found duplicate Publication IDs. Returning id: -1.");
-                            result = -1;
-                        } else {
-                            TCMURI tcmUri = new TCMURI(results[0]);
-                            result = tcmUri.getPublicationId();
-                            LOG.debug("Discovered Publication id {}", result);
-                        }
-                    }
+            Criteria publicationCriteria = new PublicationMultimediaURLCriteria(decodedUrl);
+            Criteria componentTemplateCriteria = new ItemTypeCriteria(32);
+            Criteria criteria = new AndCriteria(componentTemplateCriteria, publicationCriteria);
+
+            Query query = new Query(criteria);
+            query.addSorting(new SortParameter(SortParameter.ITEMS_LAST_PUBLISHED_DATE, SortDirection.DESCENDING));
+
+            String[] results = query.executeQuery();
+            if (results == null || results.length == 0) {
+                Criteria pageCriteria = new ItemTypeCriteria(64);
+                criteria = new AndCriteria(pageCriteria, publicationCriteria);
 
-                    cacheElement.setPayload(result);
-                    cacheProvider.storeInItemCache(key, cacheElement);
-                } else {
-                    result = cacheElement.getPayload();
+                query = new Query(criteria);
+                query.setResultFilter(new LimitFilter(1));
+                query.addSorting(new SortParameter(SortParameter.ITEMS_LAST_PUBLISHED_DATE, SortDirection.DESCENDING));
+                results = query.executeQuery();
+            }
+
+            if (results != null && results.length > 0) {
+                try {
+                    if (containsDuplicates(results)) {
+                        LOG.error("Found duplicate Publication IDs. Returning id: -1.");
+                        publicationId = -1;
+                    } else {
+                        TCMURI tcmUri = new TCMURI(results[0]);
+                        publicationId = tcmUri.getPublicationId();
+                        LOG.debug("Discovered Publication id {}", publicationId);
+                    }
+                } catch (ParseException pe) {
+                    throw new StorageException(pe);
                 }
+            } else {
+                // an images URL is not tied to a Publication, so its miss is kept under none
+                context.notFound();
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
+
+            return publicationId;
+        });
 
         return result == null ? 0 : result;
     }
@@ -426,17 +497,30 @@ public class TridionBinaryProvider extends TridionBaseProvider {
     /*
      * Serializes the given @see BinaryVariant to a JSON encoded string. The method performs the following:
      * a) mapping BinaryVariant to @see org.dd4t.contentmodel.Binary without BinaryData, b) serialization of
-     * Binary to JSON, c) compression JSON with GZIP, and d) encode JSON to Base64
+     * Binary to JSON, and c) compression JSON with GZIP. The result is cached, and Base64 encoded when it is sent.
      */
-    private String serialize(BinaryVariant variant) throws SerializationException {
+    private byte[] serialize(BinaryVariant variant) throws SerializationException {
         BinaryBuilder builder = new BinaryBuilder();
         Binary binary = builder.build(variant);
 
         JSONSerializer serializer = SerializerFactory.getSerializer();
-        String json = serializer.serializeJSON(binary);
-        byte[] gzipArray = serializer.compressGZip(json);
+        return serializer.serializeJSONGZip(binary);
+    }
+
+    /*
+     * Serializes the given @see BinaryWrapper in the given format and compresses it with GZip.
+     */
+    private byte[] serialize(BinaryWrapper wrapper, SerializationFormat format) throws IOException {
+        try {
+            if (format == SerializationFormat.BINARY) {
+                return BinarySerializer.getInstance().serialize(wrapper);
+            }
 
-        return serializer.encodeBase64(gzipArray);
+            JSONSerializer serializer = SerializerFactory.getSerializer();
+            return serializer.compressGZipGeneric(wrapper);
+        } catch (SerializationException se) {
+            throw new IOException(se);
+        }
     }
 
     /**
@@ -449,7 +533,7 @@ public class TridionBinaryProvider extends TridionBaseProvider {
      * @return String representing the key pointing to a URL value
      */
     private String getKey(CacheType type, String url, int publication) {
-        return String.format("%s-%s-%d", type, url, publication);
+        return CacheKey.getKey(type, url, publication);
     }
 
     /**
@@ -462,7 +546,7 @@ public class TridionBinaryProvider extends TridionBaseProvider {
      * @return String representing the key pointing to a URL value
      */
     private String getKey(CacheType type, int id, int publication) {
-        return String.format("%s-%d-%d", type, publication, id);
+        return CacheKey.getKey(type, publication, id);
     }
 
     /**
@@ -474,6 +558,6 @@ public class TridionBinaryProvider extends TridionBaseProvider {
      * @return String representing the key pointing to a URL value
      */
     private String getKey(CacheType type, String url) {
-            return String.format("%s-%s", type, url);
+        return CacheKey.getKey(type, url);
     }
 }
@@ -1,17 +1,33 @@
 package org.dd4t.providers.rs;
 
-import org.dd4t.core.caching.CacheElement;
+import org.apache.commons.io.IOUtils;
 import org.dd4t.core.caching.CacheType;
 import org.dd4t.core.exceptions.ItemNotFoundException;
 import org.dd4t.core.exceptions.SerializationException;
 import org.dd4t.providers.ComponentPresentationProvider;
 import org.dd4t.providers.impl.BrokerComponentPresentationProvider;
+import org.dd4t.providers.rs.caching.CacheKey;
+import org.dd4t.providers.rs.utils.RsCacheType;
+import org.dd4t.providers.serializer.BinarySerializer;
+import org.dd4t.providers.serializer.CompressionCodec;
+import org.dd4t.providers.serializer.CompressionCodecs;
+import org.dd4t.providers.serializer.ContentEncoding;
+import org.dd4t.providers.serializer.GZipCodec;
+import org.dd4t.providers.serializer.SerializationFormat;
 import org.dd4t.providers.serializer.SerializerFactory;
+import org.dd4t.providers.serializer.StringObjectInputStream;
+import org.dd4t.providers.serializer.ZstdDictionaries;
+import org.dd4t.providers.serializer.ZstdDictionaryCodec;
 import org.dd4t.providers.serializer.json.JSONSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamConstants;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -73,58 +89,72 @@ public class TridionComponentPresentationProvider extends TridionBaseProvider im
     @Override
     public String getDynamicComponentPresentation(int componentId, int templateId, int publicationId)
             throws ItemNotFoundException, SerializationException {
-        Object[] logParameters = {componentId, templateId, publicationId};
+        return encodeBase64(getCompressedDynamicComponentPresentation(componentId, templateId, publicationId));
+    }
+
+    /**
+     * Returns the GZip compressed, Java serialized DCP content as it is cached, so it can be Base64 encoded straight
+     * into a response.
+     *
+     * @param componentId   int representing the Component item id
+     * @param templateId    int representing the Component Template item id
+     * @param publicationId int representing the Publication id of the DCP
+     * @return byte[] the GZip compressed content of the DCP
+     * @throws SerializationException if something went wrong during serialization
+     * @throws ItemNotFoundException if the requested DCP does not exist
+     */
+    public byte[] getCompressedDynamicComponentPresentation(int componentId, int templateId, int publicationId)
+            throws ItemNotFoundException, SerializationException {
+        return getCompressedDynamicComponentPresentation(componentId, templateId, publicationId, SerializationFormat.JAVA);
+    }
+
+    /**
+     * Returns the GZip compressed DCP content serialized in the given format, as it is cached. Each format is cached
+     * under its own key, so a DCP requested in both formats is serialized once per format.
+     *
+     * @param componentId   int representing the Component item id
+     * @param templateId    int representing the Component Template item id
+     * @param publicationId int representing the Publication id of the DCP
+     * @param format        SerializationFormat to serialize the DCP content in
+     * @return byte[] the GZip compressed content of the DCP
+     * @throws SerializationException if something went wrong during serialization
+     * @throws ItemNotFoundException if the requested DCP does not exist
+     */
+    public byte[] getCompressedDynamicComponentPresentation(int componentId, int templateId, int publicationId,
+                                                            SerializationFormat format)
+            throws ItemNotFoundException, SerializationException {
+        final Object[] logParameters = {componentId, templateId, publicationId};
         LOG.debug("Fetching Component Presentation by componentId: {}, templateId: {} and publicationId: {}", logParameters);
 
-        String key = getKey(CacheType.COMPONENT_CONTENT, componentId, templateId, publicationId);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result = null;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        long start = System.currentTimeMillis();
-
-                        result = componentPresentationProvider.getDynamicComponentPresentation(componentId, templateId, publicationId);
-                        LOG.debug("GET COMPONENT: {} ms.",(System.currentTimeMillis()-start));
-
-
-                        result = serialize(result);
-                        LOG.debug("Serialize: {} ms.",(System.currentTimeMillis()-start));
-                        LOG.debug("Result: {}", result);
-
-                        cacheElement.setPayload(result);
-                        cacheProvider.storeInItemCache(key, cacheElement, publicationId, componentId);
-                        LOG.debug("Added DCP to cache with componentId: {}, templateId: {} and publicationId: {}",
-                                logParameters);
-                    } catch (ItemNotFoundException e) {
-                        LOG.info("Could not find DCP in broker DB. Caching null payload for componentId: {}, templateId: {} and publicationId: {}",
-                                logParameters);
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-                        cacheElement.setExpired(true);
-                    } catch (SerializationException se) {
-                        LOG.error(String.format("Could not serialize DCP with componentId: %d, templateId: %d and publicationId: %d",
-                                logParameters), se);
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-                        cacheElement.setExpired(true);
-                        throw se;
-                    }
-                } else {
-                    LOG.debug("Serving DCP from cache with componentId: {}, templateId: {} and publicationId: {}",
-                            logParameters);
-                    result = cacheElement.getPayload();
-                }
+        final Enum<?> type = getType(format);
+        final String key = getKey(type, componentId, templateId, publicationId);
+        byte[] result = loadPayload(type, publicationId, key, SerializationException.class, context -> {
+            try {
+                long start = System.currentTimeMillis();
+
+                String content = componentPresentationProvider.getDynamicComponentPresentation(componentId, templateId, publicationId);
+                LOG.debug("GET COMPONENT: {} ms.",(System.currentTimeMillis()-start));
+
+                ZstdDictionaries.getInstance().addSample(publicationId, content);
+
+                byte[] serialized = serialize(content, format);
+                LOG.debug("Serialize: {} ms.",(System.currentTimeMillis()-start));
+
+                context.dependsOn(publicationId, componentId);
+                LOG.debug("Loaded DCP with componentId: {}, templateId: {} and publicationId: {}",
+                        logParameters);
+                return serialized;
+            } catch (ItemNotFoundException e) {
+                LOG.info("Could not find DCP in broker DB for componentId: {}, templateId: {} and publicationId: {}",
+                        logParameters);
+                context.notFound();
+                return null;
+            } catch (SerializationException se) {
+                LOG.error(String.format("Could not serialize DCP with componentId: %d, templateId: %d and publicationId: %d",
+                        logParameters), se);
+                throw se;
             }
-        } else {
-            LOG.debug("Serving DCP from cache with componentId: {}, templateId: {} and publicationId: {}",
-                    logParameters);
-            result = cacheElement.getPayload();
-        }
+        });
 
         if (result == null) {
             throw new ItemNotFoundException(String.format("Component Presentation not found for componentId: %d, templateId: %d and publicationId: %d",
@@ -134,39 +164,113 @@ public class TridionComponentPresentationProvider extends TridionBaseProvider im
         return result;
     }
 
+    /**
+     * Returns the given DCP content, as returned by getCompressedDynamicComponentPresentation, compressed with the
+     * given codec. The result is stored as a variant of the cached content.
+     * <p/>
+     * A dictionary codec is applied to the JSON of the DCP, not to the serialized String the content holds: the
+     * dictionary is trained on DCP JSON (@see ZstdDictionaries), and clients get the JSON compressed with it in either
+     * format.
+     *
+     * @param componentId   int representing the Component item id
+     * @param templateId    int representing the Component Template item id
+     * @param publicationId int representing the Publication id of the DCP
+     * @param format        SerializationFormat the content is serialized in
+     * @param compressed    byte[] the GZip compressed DCP content
+     * @param codec         CompressionCodec to compress the content with
+     * @return byte[] the DCP content compressed with the codec; null if it could not be compressed
+     */
+    public byte[] getDynamicComponentPresentationVariant(int componentId, int templateId, int publicationId,
+                                                         SerializationFormat format, byte[] compressed,
+                                                         CompressionCodec codec) {
+        final Enum<?> type = getType(format);
+        final String key = getKey(type, componentId, templateId, publicationId);
+        if (!(codec instanceof ZstdDictionaryCodec)) {
+            return getVariant(type, key, compressed, codec);
+        }
+        return getVariant(type, key, compressed, getVariantName(codec), payload -> CompressionCodecs.getInstance()
+                .compress(codec, output -> output.write(readJson(payload, format))));
+    }
+
     @Override
     public List<String> getDynamicComponentPresentations (final String[] tcmUris, int templateId, int publicationId) throws ItemNotFoundException, SerializationException {
         return componentPresentationProvider.getDynamicComponentPresentations(tcmUris,templateId,publicationId);
     }
 
+    private static Enum<?> getType(SerializationFormat format) {
+        return format == SerializationFormat.BINARY ?
+                RsCacheType.COMPONENT_CONTENT_BINARY : CacheType.COMPONENT_CONTENT;
+    }
+
     /**
-     * Compresses the given DCP content, then encodes it to Base64. Content is already supposed to be in JSON format.
+     * Compresses the given DCP content, to be cached as is. Content is already supposed to be in JSON format;
+     * content that is already compressed and Base64 encoded is only decoded, or decompressed again to be serialized
+     * in the BINARY format.
      *
      * @param content String the DCP content to serialize
-     * @return String the compressed content in Base64 encoding
+     * @param format  SerializationFormat to serialize the content in
+     * @return byte[] the compressed content
      */
-    private String serialize(String content) throws SerializationException {
+    private byte[] serialize(String content, SerializationFormat format) throws SerializationException {
         JSONSerializer serializer = SerializerFactory.getSerializer();
 
-        if (content != null && !serializer.isBase64(content)) {
-            byte[] gzipArray = serializer.compressGZipGeneric(content);
-            return serializer.encodeBase64(gzipArray);
+        if (content == null) {
+            return null;
+        }
+
+        final boolean compressed = serializer.getContentEncoding(content) == ContentEncoding.BASE64_GZIP;
+        if (format == SerializationFormat.BINARY) {
+            String json = compressed ? serializer.decompressGZip(decodeBase64(content)) : content;
+            return BinarySerializer.getInstance().serialize(json);
+        } else if (compressed) {
+            return decodeBase64(content);
         } else {
+            return serializer.compressGZipGeneric(content);
+        }
+    }
+
+    /**
+     * Reads the JSON back from DCP content compressed by serialize: a serialized String in either format, or, for the
+     * JAVA format, JSON that was already compressed in the broker. A serialized String is read without resolving any
+     * class (@see StringObjectInputStream).
+     *
+     * @param compressed byte[] the compressed content
+     * @param format     SerializationFormat the content is serialized in
+     * @return byte[] the JSON of the DCP in UTF-8
+     */
+    private byte[] readJson(byte[] compressed, SerializationFormat format) throws IOException {
+        try {
+            if (format == SerializationFormat.BINARY) {
+                return BinarySerializer.getInstance().deserializeString(compressed).getBytes(StandardCharsets.UTF_8);
+            }
+        } catch (SerializationException se) {
+            throw new IOException(se);
+        }
+
+        final byte[] content;
+        try (InputStream input = GZipCodec.getInstance().newInputStream(new ByteArrayInputStream(compressed))) {
+            content = IOUtils.toByteArray(input);
+        }
+        if (content.length < 2 || content[0] != (byte) (ObjectStreamConstants.STREAM_MAGIC >> 8) ||
+                content[1] != (byte) ObjectStreamConstants.STREAM_MAGIC) {
             return content;
         }
+        try (StringObjectInputStream input = new StringObjectInputStream(new ByteArrayInputStream(content))) {
+            return input.readString().getBytes(StandardCharsets.UTF_8);
+        }
     }
 
     /**
      * Builds a key using a named cache type (region) and three ids. This type of key is used to point to
      * the actual payload in the cache (e.g. cached Component Presentations).
      *
-     * @param type CacheType representing the type (or region) where the associated item is in cache
+     * @param type CacheType (or RsCacheType) representing the type (or region) where the associated item is in cache
      * @param id1  the Tridion TcmUri item id
      * @param id2  the Tridion TcmUri item id
      * @param id3  the Tridion TcmUri item id
      * @return String representing the key pointing to a cached value
      */
-    private String getKey(CacheType type, int id1, int id2, int id3) {
-        return String.format("%s-%d-%d-%d", type, id1, id2, id3);
+    private String getKey(Enum<?> type, int id1, int id2, int id3) {
+        return CacheKey.getKey(type, id1, id2, id3);
     }
 }
@@ -18,12 +18,14 @@ import com.tridion.broker.querying.sorting.column.ComponentSchemaColumn;
 import com.tridion.broker.querying.sorting.column.ItemLastPublishColumn;
 import com.tridion.storage.CustomMetaValue;
 import com.tridion.storage.StorageTypeMapping;
+import com.tridion.util.TCMURI;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.dd4t.core.caching.CacheElement;
 import org.dd4t.core.caching.CacheType;
 import org.dd4t.core.exceptions.ItemNotFoundException;
 import org.dd4t.core.exceptions.SerializationException;
+import org.dd4t.providers.rs.caching.CacheKey;
+import org.dd4t.providers.rs.caching.LoadContext;
 import org.dd4t.providers.rs.utils.DaoUtils;
 import org.dd4t.providers.rs.utils.RsCacheType;
 import org.slf4j.Logger;
@@ -50,10 +52,15 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 	private static final int MAX_SEARCH_RESULTS = 11000;
 	private static final LimitFilter LIMIT_FILTER = new LimitFilter(MAX_SEARCH_RESULTS);
 	private static final String DIVIDER = "|";
+	private static final int DEFAULT_MAX_DEPENDENCIES = 1000;
+	private static final long DEFAULT_TIME_TO_LIVE = 300;
 	private static final String SELECT_ARTICLE_SKUS = "select distinct(cmv) from CustomMetaValue cmv where cmv.publicationId = :publicationId and cmv.itemType= :itemType and cmv.keyName= :keyName";
 
 	private static final TridionCustomMetaQueryProvider INSTANCE = new TridionCustomMetaQueryProvider();
 
+	private volatile int maxDependencies = DEFAULT_MAX_DEPENDENCIES;
+	private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+
 	private TridionCustomMetaQueryProvider () {
 
 	}
@@ -62,7 +69,31 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 		return INSTANCE;
 	}
 
-	public String getComponentsByCustomMeta (String locale, final MultivaluedMap<String, String> queryStringCollection, int templateId) throws ItemNotFoundException, SerializationException, StorageException, ParseException, UnsupportedEncodingException {
+	public int getMaxDependencies () {
+		return maxDependencies;
+	}
+
+	/**
+	 * @param maxDependencies int the number of components a cached query result is linked to at most; larger results
+	 *                        are kept for the timeToLive only, or until their schema is published
+	 */
+	public void setMaxDependencies (final int maxDependencies) {
+		this.maxDependencies = maxDependencies;
+	}
+
+	public long getTimeToLive () {
+		return timeToLive;
+	}
+
+	/**
+	 * @param timeToLive long the number of seconds a query result is fresh when a publish may not invalidate it: results
+	 *                   over maxDependencies, and custom meta query results, which new components of any schema can join
+	 */
+	public void setTimeToLive (final long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public String getComponentsByCustomMeta (String locale, final MultivaluedMap<String, String> queryStringCollection, final int templateId) throws ItemNotFoundException, SerializationException, StorageException, ParseException, IOException {
 		LOG.debug("Performing Custom Meta Query for {}, {}", locale, queryStringCollection.toString());
 
 		final int publicationId = getPublicationId(locale);
@@ -73,37 +104,26 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 		// Sorting is on Schema Field ASC (??)
 		// MAX_RESULTS = 10000
 
-		String key = getKey(CacheType.SEARCH_CUSTOM_META, publicationId, queryStringCollection);
-		CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-		String result;
-
-		if (cacheElement.isExpired()) {
-			//noinspection SynchronizationOnLocalVariableOrMethodParameter
-			synchronized (cacheElement) {
-				if (cacheElement.isExpired()) {
-					cacheElement.setExpired(false);
-
-					final StringBuilder components = new StringBuilder();
-					final List<String> componentPresentations = getCustomMetaQueryComponentPresentations(queryStringCollection, templateId, publicationId);
-					for (String componentPresentation : componentPresentations) {
-						components.append(componentPresentation);
-						components.append(DIVIDER);
-					}
-
-					LOG.debug("Returning: {}", components);
-					result = components.toString();
-
-					cacheElement.setPayload(result);
-					cacheProvider.storeInItemCache(key, cacheElement);
-				} else {
-					LOG.debug("Retrieving from cache");
-					result = cacheElement.getPayload();
+		final String key = getKey(CacheType.SEARCH_CUSTOM_META, publicationId, queryStringCollection);
+		String result = loadPayload(CacheType.SEARCH_CUSTOM_META, publicationId, key, IOException.class, context -> {
+			try {
+				final StringBuilder components = new StringBuilder();
+				final List<String> componentPresentations = getCustomMetaQueryComponentPresentations(queryStringCollection, templateId, publicationId, context);
+				for (String componentPresentation : componentPresentations) {
+					components.append(componentPresentation);
+					components.append(DIVIDER);
 				}
+
+				LOG.debug("Returning: {}", components);
+				return components.toString();
+			} catch (ItemNotFoundException e) {
+				LOG.info(e.getLocalizedMessage());
+				context.skipCache();
+				return null;
+			} catch (ParseException | StorageException | SerializationException e) {
+				throw new IOException(e);
 			}
-		} else {
-			LOG.debug("Retrieving from cache");
-			result = cacheElement.getPayload();
-		}
+		});
 
 		if (result == null) {
 			throw new ItemNotFoundException("Cannot find item (return previously cached value)");
@@ -113,12 +133,20 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 	}
 
 	public List<String> getCustomMetaQueryComponentPresentations (final MultivaluedMap<String, String> queryStringCollection, final int templateId, final int publicationId) throws ItemNotFoundException, ParseException, StorageException, UnsupportedEncodingException, SerializationException {
+		return getCustomMetaQueryComponentPresentations(queryStringCollection, templateId, publicationId, null);
+	}
+
+	private List<String> getCustomMetaQueryComponentPresentations (final MultivaluedMap<String, String> queryStringCollection, final int templateId, final int publicationId, final LoadContext context) throws ItemNotFoundException, ParseException, StorageException, SerializationException {
 
 		final String itemUris[] = getCustomMetaQueryResults(publicationId, queryStringCollection);
 		if (itemUris == null || itemUris.length == 0) {
 			LOG.debug("No results found.");
 		} else {
 			LOG.debug("Found {} results.", itemUris.length);
+			if (context != null) {
+				addComponentDependencies(itemUris, context);
+				context.expireAfter(timeToLive);
+			}
 
 			return TridionComponentPresentationProvider.getInstance().getDynamicComponentPresentations(itemUris, templateId, publicationId);
 
@@ -137,47 +165,33 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 		LOG.debug("Publication Id is: {}", publicationId);
 
 		final String key = getKey(RsCacheType.CUSTOM_META_VALUES_FOR_KEY, publicationId, metaKey, 0);
-		CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-		String result = null;
-
-		if (cacheElement.isExpired()) {
-			//noinspection SynchronizationOnLocalVariableOrMethodParameter
-			synchronized (cacheElement) {
-				if (cacheElement.isExpired()) {
-					cacheElement.setExpired(false);
-					try {
-						final Map<String, Object> queryParams = new HashMap<>();
-						queryParams.put("publicationId", publicationId);
-						queryParams.put("itemType", ItemTypes.COMPONENT);
-						queryParams.put("keyName", metaKey);
-
-						final List<CustomMetaValue> queryResult = DaoUtils.getJPADAO(publicationId,StorageTypeMapping.ITEM_META).executeQueryListResult(SELECT_ARTICLE_SKUS, queryParams);
-
-						final StringBuilder resultBuilder = new StringBuilder();
-
-						for (CustomMetaValue customMetaValue : queryResult) {
-							if (resultBuilder.length() > 0) {
-								resultBuilder.append(",");
-							}
-							resultBuilder.append(customMetaValue.getStringValue());
-						}
-
-						result = resultBuilder.toString();
-						LOG.debug(result);
-						cacheElement.setPayload(result);
-						cacheProvider.storeInItemCache(key, cacheElement);
-					} catch (StorageException e) {
-						LOG.error(e.getLocalizedMessage(), e);
+		String result = loadPayload(RsCacheType.CUSTOM_META_VALUES_FOR_KEY, publicationId, key, StorageException.class, context -> {
+			try {
+				final Map<String, Object> queryParams = new HashMap<>();
+				queryParams.put("publicationId", publicationId);
+				queryParams.put("itemType", ItemTypes.COMPONENT);
+				queryParams.put("keyName", metaKey);
+
+				final List<CustomMetaValue> queryResult = DaoUtils.getJPADAO(publicationId,StorageTypeMapping.ITEM_META).executeQueryListResult(SELECT_ARTICLE_SKUS, queryParams);
+
+				final StringBuilder resultBuilder = new StringBuilder();
+
+				for (CustomMetaValue customMetaValue : queryResult) {
+					if (resultBuilder.length() > 0) {
+						resultBuilder.append(",");
 					}
-				} else {
-					LOG.debug("Retrieving from cache");
-					result = cacheElement.getPayload();
+					resultBuilder.append(customMetaValue.getStringValue());
 				}
+
+				String values = resultBuilder.toString();
+				LOG.debug(values);
+				return values;
+			} catch (StorageException e) {
+				LOG.error(e.getLocalizedMessage(), e);
+				context.skipCache();
+				return null;
 			}
-		} else {
-			LOG.debug("Retrieving from cache");
-			result = cacheElement.getPayload();
-		}
+		});
 		if (result == null) {
 			throw new ItemNotFoundException("Cannot find item (return previously cached value)");
 		}
@@ -202,48 +216,35 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 		LOG.debug("Publication Id is: {}", publicationId);
 
 		final String key = getKey(CacheType.COMPONENTS_BY_SCHEMA, publicationId, schema, templateId);
-		CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-		String result;
-
-		if (cacheElement.isExpired()) {
-			//noinspection SynchronizationOnLocalVariableOrMethodParameter
-			synchronized (cacheElement) {
-				if (cacheElement.isExpired()) {
-					cacheElement.setExpired(false);
-
-
-					final String[] itemUris = getComponentUrisBySchema(schema, publicationId);
-
-					if (itemUris == null || itemUris.length == 0) {
-						LOG.debug("No results found.");
-						result = "";
-						cacheElement.setExpired(true);
-					} else {
-						LOG.debug("Found {} results.", itemUris.length);
-						final StringBuilder components = new StringBuilder();
-						final List<String> componentPresentations = TridionComponentPresentationProvider.getInstance().getDynamicComponentPresentations(itemUris, templateId, publicationId);
-						for (String componentPresentation : componentPresentations) {
-							components.append(componentPresentation);
-							components.append(DIVIDER);
-						}
-
-						LOG.trace("Returning: {}", components);
-						result = components.toString();
+		String result = loadPayload(CacheType.COMPONENTS_BY_SCHEMA, publicationId, key, IOException.class, context -> {
+			try {
+				final String queryResult;
+				final String[] itemUris = getComponentUrisBySchema(schema, publicationId);
+
+				if (itemUris == null || itemUris.length == 0) {
+					LOG.debug("No results found.");
+					queryResult = "";
+					context.skipCache();
+				} else {
+					LOG.debug("Found {} results.", itemUris.length);
+					addComponentDependencies(itemUris, context);
+					addSchemaDependency(itemUris, context);
+					final StringBuilder components = new StringBuilder();
+					final List<String> componentPresentations = TridionComponentPresentationProvider.getInstance().getDynamicComponentPresentations(itemUris, templateId, publicationId);
+					for (String componentPresentation : componentPresentations) {
+						components.append(componentPresentation);
+						components.append(DIVIDER);
 					}
 
-
-					LOG.debug("Storing result in cache.");
-					cacheElement.setPayload(result);
-					cacheProvider.storeInItemCache(key, cacheElement);
-				} else {
-					LOG.debug("Retrieving from cache");
-					result = cacheElement.getPayload();
+					LOG.trace("Returning: {}", components);
+					queryResult = components.toString();
 				}
+
+				return queryResult;
+			} catch (StorageException | SerializationException | ItemNotFoundException e) {
+				throw new IOException(e);
 			}
-		} else {
-			LOG.debug("Retrieving from cache");
-			result = cacheElement.getPayload();
-		}
+		});
 
 		if (result == null) {
 			throw new ItemNotFoundException("Cannot find item (return previously cached value)");
@@ -272,64 +273,50 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 		final int publicationId = getPublicationId(locale);
 		LOG.debug("Publication Id is: {}", publicationId);
 
-		final String key = getKey(CacheType.COMPONENTS_BY_SCHEMA_IN_KEYWORD, publicationId, schema + "-" + keywordId, templateId);
-		CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-		String result = null;
-
-		if (cacheElement.isExpired()) {
-			//noinspection SynchronizationOnLocalVariableOrMethodParameter
-			synchronized (cacheElement) {
-				if (cacheElement.isExpired()) {
-					cacheElement.setExpired(false);
-
-
-					final Criteria[] criteria = new Criteria[]{new PublicationCriteria(publicationId), new SchemaTitleCriteria(schema), new TaxonomyKeywordCriteria(publicationId, categoryId, keywordId, false)};
+		final String key = getKey(CacheType.COMPONENTS_BY_SCHEMA_IN_KEYWORD, publicationId, schema, keywordId, templateId);
+		String result = loadPayload(CacheType.COMPONENTS_BY_SCHEMA_IN_KEYWORD, publicationId, key, ItemNotFoundException.class, context -> {
+			final Criteria[] criteria = new Criteria[]{new PublicationCriteria(publicationId), new SchemaTitleCriteria(schema), new TaxonomyKeywordCriteria(publicationId, categoryId, keywordId, false)};
 
-					final AndCriteria andCriteria = new AndCriteria(criteria);
-					final SortParameter sortParameter = new SortParameter(new ItemLastPublishColumn(), SortDirection.DESCENDING);
-					final Query query = new Query(andCriteria);
+			final AndCriteria andCriteria = new AndCriteria(criteria);
+			final SortParameter sortParameter = new SortParameter(new ItemLastPublishColumn(), SortDirection.DESCENDING);
+			final Query query = new Query(andCriteria);
 
-					query.addSorting(sortParameter);
-					query.setResultFilter(new LimitFilter(MAX_SEARCH_RESULTS));
+			query.addSorting(sortParameter);
+			query.setResultFilter(new LimitFilter(MAX_SEARCH_RESULTS));
 
-					try {
-						final String[] itemUris = query.executeQuery();
+			try {
+				String queryResult = null;
+				final String[] itemUris = query.executeQuery();
 
-						if (itemUris == null || itemUris.length == 0) {
-							LOG.debug("No results found.");
-							cacheElement.setExpired(true);
-						} else {
-							LOG.debug("Found {} results.", itemUris.length);
-							final StringBuilder components = new StringBuilder();
-
-							List<String> componentPresentations = TridionComponentPresentationProvider.getInstance().getDynamicComponentPresentations(itemUris, templateId, publicationId);
-
-							for (String componentPresentation : componentPresentations) {
-								components.append(componentPresentation);
-								components.append(DIVIDER);
-							}
+				if (itemUris == null || itemUris.length == 0) {
+					LOG.debug("No results found.");
+					context.skipCache();
+				} else {
+					LOG.debug("Found {} results.", itemUris.length);
+					addComponentDependencies(itemUris, context);
+					addSchemaDependency(itemUris, context);
+					context.dependsOn(publicationId, keywordId);
+					context.dependsOn(publicationId, categoryId);
+					final StringBuilder components = new StringBuilder();
 
-							LOG.trace("Returning: {}", components);
-							result = components.toString();
-						}
+					List<String> componentPresentations = TridionComponentPresentationProvider.getInstance().getDynamicComponentPresentations(itemUris, templateId, publicationId);
 
-						LOG.debug("Storing result in cache.");
-						cacheElement.setPayload(result);
-						cacheProvider.storeInItemCache(key, cacheElement);
-					} catch (StorageException | SerializationException | ItemNotFoundException e) {
-						LOG.error(e.getLocalizedMessage(),e);
-						cacheElement.setExpired(true);
+					for (String componentPresentation : componentPresentations) {
+						components.append(componentPresentation);
+						components.append(DIVIDER);
 					}
 
-				} else {
-					LOG.debug("Retrieving from cache");
-					result = cacheElement.getPayload();
+					LOG.trace("Returning: {}", components);
+					queryResult = components.toString();
 				}
+
+				return queryResult;
+			} catch (StorageException | SerializationException | ItemNotFoundException e) {
+				LOG.error(e.getLocalizedMessage(),e);
+				context.skipCache();
+				return null;
 			}
-		} else {
-			LOG.debug("Retrieving from cache");
-			result = cacheElement.getPayload();
-		}
+		});
 
 		if (result == null) {
 			throw new ItemNotFoundException("Cannot find item (return previously cached value)");
@@ -338,17 +325,63 @@ public class TridionCustomMetaQueryProvider extends TridionBaseProvider {
 		return result;
 	}
 
-    //FIXME
-    private String getKey (RsCacheType type, int publicationId, String schema, int template) {
-        return String.format("%s-%d-%s-%d", type, publicationId, schema, template);
-    }
+	/**
+	 * Links a cached query result to the components it contains, so (un-)publishing any of them invalidates it.
+	 * A result with a component that can't be tracked is not cached. A result of more than maxDependencies components
+	 * is not linked to them, as that would fill the dependency index with one query; it expires after the timeToLive
+	 * instead, and results by schema are still invalidated through their schema dependency.
+	 *
+	 * @param itemUris String[] the component URIs in the query result
+	 * @param context  the LoadContext of the query result
+	 */
+	private void addComponentDependencies (final String[] itemUris, final LoadContext context) {
+		if (itemUris.length > maxDependencies) {
+			LOG.debug("Not linking query result to its {} components; it expires after {} seconds", itemUris.length, timeToLive);
+			context.expireAfter(timeToLive);
+			return;
+		}
+
+		for (String itemUri : itemUris) {
+			try {
+				final TCMURI tcmUri = new TCMURI(itemUri);
+				context.dependsOn(tcmUri.getPublicationId(), tcmUri.getItemId());
+			} catch (ParseException e) {
+				LOG.warn("Not caching query result with invalid component URI: {}", itemUri, e);
+				context.skipCache();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Links a cached query result by schema to the schema of its components. Publishing a new component of that schema
+	 * invalidates the result through the @see ComponentSchemaResolver.
+	 *
+	 * @param itemUris String[] the component URIs in the query result, all of the same schema
+	 * @param context  the LoadContext of the query result
+	 */
+	private static void addSchemaDependency (final String[] itemUris, final LoadContext context) {
+		try {
+			final TCMURI tcmUri = new TCMURI(itemUris[0]);
+			final int schemaId = ComponentSchemaResolver.getSchemaId(tcmUri.getPublicationId(), tcmUri.getItemId());
+			if (schemaId > 0) {
+				context.dependsOn(tcmUri.getPublicationId(), schemaId);
+			}
+		} catch (ParseException e) {
+			LOG.warn("Cannot resolve schema of component: {}", itemUris[0], e);
+		}
+	}
+
+	private String getKey (Enum<?> type, int publicationId, String schema, int template) {
+		return CacheKey.getKey(type, publicationId, schema, template);
+	}
 
-	private String getKey (CacheType type, int publicationId, String schema, int template) {
-		return String.format("%s-%d-%s-%d", type, publicationId, schema, template);
+	private String getKey (CacheType type, int publicationId, String schema, int keywordId, int template) {
+		return CacheKey.getKey(type, publicationId, schema, keywordId, template);
 	}
 
 	private String getKey (CacheType type, int publicationId, MultivaluedMap<String, String> collection) {
-		return String.format("%s-%d-%s", type, publicationId, getHash(collection));
+		return CacheKey.getKey(type, publicationId, getHash(collection));
 	}
 
 	private String getHash (MultivaluedMap<String, String> collection) {
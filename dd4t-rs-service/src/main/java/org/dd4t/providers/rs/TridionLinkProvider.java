@@ -1,12 +1,13 @@
 package org.dd4t.providers.rs;
 
 import com.tridion.util.TCMURI;
-import org.dd4t.core.caching.CacheElement;
 import org.dd4t.core.caching.CacheType;
 import org.dd4t.core.exceptions.ItemNotFoundException;
 import org.dd4t.core.exceptions.SerializationException;
 import org.dd4t.providers.LinkProvider;
 import org.dd4t.providers.impl.BrokerLinkProvider;
+import org.dd4t.providers.rs.caching.CacheKey;
+import org.dd4t.providers.rs.caching.LoadContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,8 +25,8 @@ import java.text.ParseException;
 public class TridionLinkProvider extends TridionBaseProvider implements LinkProvider {
 
     private final static Logger LOG = LoggerFactory.getLogger(TridionLinkProvider.class);
-    private final BrokerLinkProvider linkProvider = new BrokerLinkProvider();
     private final static TridionLinkProvider INSTANCE = new TridionLinkProvider();
+    private BrokerLinkProvider linkProvider = new BrokerLinkProvider();
 
     private TridionLinkProvider() {
 
@@ -35,6 +36,14 @@ public class TridionLinkProvider extends TridionBaseProvider implements LinkProv
          return INSTANCE;
     }
 
+    public BrokerLinkProvider getLinkProvider () {
+        return linkProvider;
+    }
+
+    public void setLinkProvider (final BrokerLinkProvider linkProvider) {
+        this.linkProvider = linkProvider;
+    }
+
     /**
      * Returns a link URL to the given Component TcmUri, if exists. Otherwise, returns null. The value is stored in and
      * retrieved from a EHCache instance.
@@ -46,26 +55,12 @@ public class TridionLinkProvider extends TridionBaseProvider implements LinkProv
     public String resolveComponent(String targetComponentURI)  {
         LOG.debug("Fetching link to Component with tcmuri: {}", targetComponentURI);
 
-        String key = getKey(CacheType.COMPONENT_LINK, targetComponentURI);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    result = linkProvider.resolveComponent(targetComponentURI);
-                    cacheElement.setPayload(result);
-                    tryStoreInCache(targetComponentURI, key, cacheElement);
-
-                } else {
-                    result = cacheElement.getPayload();
-                }
-            }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        final String key = getKey(CacheType.COMPONENT_LINK, targetComponentURI);
+        final int publicationId = getPublicationId(targetComponentURI);
+        String result = loadPayload(CacheType.COMPONENT_LINK, publicationId, key, RuntimeException.class, context -> {
+            String link = linkProvider.resolveComponent(targetComponentURI);
+            return addDependency(link, targetComponentURI, context);
+        });
 
         return result;
     }
@@ -95,25 +90,13 @@ public class TridionLinkProvider extends TridionBaseProvider implements LinkProv
     public String resolveComponentFromPage(String targetComponentURI, String sourcePageURI) {
         LOG.debug("Fetching link to Component: {} from Page: {}", targetComponentURI, sourcePageURI);
 
-        String key = getKey(CacheType.COMPONENT_LINK_PAGE, targetComponentURI, sourcePageURI);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    result = linkProvider.resolveComponentFromPage(targetComponentURI, sourcePageURI);
-                    cacheElement.setPayload(result);
-                    tryStoreInCache(targetComponentURI, key, cacheElement);
-                } else {
-                    result = cacheElement.getPayload();
-                }
-            }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        final String key = getKey(CacheType.COMPONENT_LINK_PAGE, targetComponentURI, sourcePageURI);
+        final int publicationId = getPublicationId(targetComponentURI);
+        String result = loadPayload(CacheType.COMPONENT_LINK_PAGE, publicationId, key, RuntimeException.class,
+                context -> {
+                    String link = linkProvider.resolveComponentFromPage(targetComponentURI, sourcePageURI);
+                    return addDependency(link, targetComponentURI, context);
+                });
 
         return result;
     }
@@ -122,38 +105,47 @@ public class TridionLinkProvider extends TridionBaseProvider implements LinkProv
     public String resolveComponent (final String targetComponentUri, final String excludeComponentTemplateUri) throws ItemNotFoundException, SerializationException {
         LOG.debug("Fetching link to Component with tcmuri: {}", targetComponentUri);
 
-        String key = getKey(CacheType.COMPONENT_LINK, targetComponentUri+"_"+excludeComponentTemplateUri);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    result = linkProvider.resolveComponent(targetComponentUri,excludeComponentTemplateUri);
-                    cacheElement.setPayload(result);
-                    tryStoreInCache(targetComponentUri, key, cacheElement);
-
-                } else {
-                    result = cacheElement.getPayload();
-                }
-            }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        final String key = getKey(CacheType.COMPONENT_LINK, targetComponentUri, excludeComponentTemplateUri);
+        final int publicationId = getPublicationId(targetComponentUri);
+        String result = loadPayload(CacheType.COMPONENT_LINK, publicationId, key, ItemNotFoundException.class,
+                context -> {
+                    String link = linkProvider.resolveComponent(targetComponentUri,excludeComponentTemplateUri);
+                    return addDependency(link, targetComponentUri, context);
+                });
 
         return result;
     }
 
-    private void tryStoreInCache (final String targetComponentURI, final String key, final CacheElement<String> cacheElement) {
+    /*
+    A link that does not resolve is a miss, kept in the negative cache of the Publication of the target Component, so
+    it is looked up again once anything in that Publication is (un-)published, e.g. the Page that links to it.
+     */
+    private static String addDependency (final String link, final String targetComponentURI,
+                                         final LoadContext context) {
+        if (link == null) {
+            context.notFound();
+            return link;
+        }
+
         final TCMURI tcmUri;
         try {
             tcmUri = new TCMURI(targetComponentURI);
-            cacheProvider.storeInItemCache(key, cacheElement, tcmUri.getPublicationId(), tcmUri.getItemId());
+            context.dependsOn(tcmUri.getPublicationId(), tcmUri.getItemId());
         } catch (ParseException e) {
             LOG.error(e.getLocalizedMessage(),e);
-            cacheElement.setExpired(true);
+            context.skipCache();
+        }
+        return link;
+    }
+
+    /*
+    The Publication id the cache entries of links to the given Component are kept under; 0 if the TcmUri is invalid.
+     */
+    private static int getPublicationId (final String targetComponentURI) {
+        try {
+            return new TCMURI(targetComponentURI).getPublicationId();
+        } catch (ParseException e) {
+            return 0;
         }
     }
 
@@ -182,11 +174,7 @@ public class TridionLinkProvider extends TridionBaseProvider implements LinkProv
      * @return String representing the key pointing to a cached value
      */
     private String getKey(CacheType type, String componentURI) {
-        if (componentURI.endsWith("-16")) {
-            return String.format("%s-%s", type, componentURI);
-        } else {
-            return String.format("%s-%s-16", type, componentURI);
-        }
+        return CacheKey.getKey(type, getComponentURI(componentURI));
     }
 
     /**
@@ -195,14 +183,17 @@ public class TridionLinkProvider extends TridionBaseProvider implements LinkProv
      *
      * @param type         CacheType representing the type (or region) where the associated item is in cache
      * @param componentURI the Tridion TcmUri componentURI
-     * @param pageURI      the Tridion TcmUri pageURI
+     * @param otherURI     the Tridion TcmUri of the page linked from, or of the Component Template to exclude
      * @return String representing the key pointing to a cached value
      */
-    private String getKey(CacheType type, String componentURI, String pageURI) {
-        if (componentURI.endsWith("-16")) {
-            return String.format("%s-%s-%s", type, componentURI, pageURI);
-        } else {
-            return String.format("%s-%s-16-%s", type, componentURI, pageURI);
-        }
+    private String getKey(CacheType type, String componentURI, String otherURI) {
+        return CacheKey.getKey(type, getComponentURI(componentURI), otherURI);
+    }
+
+    /*
+    The componentURI with its item type, so a URI with and without it shares a key.
+     */
+    private static String getComponentURI(String componentURI) {
+        return componentURI.endsWith("-16") ? componentURI : componentURI + "-16";
     }
 }
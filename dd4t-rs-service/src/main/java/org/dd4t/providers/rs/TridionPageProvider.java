@@ -1,7 +1,6 @@
 package org.dd4t.providers.rs;
 
 import com.tridion.storage.PageMeta;
-import org.dd4t.core.caching.CacheElement;
 import org.dd4t.core.caching.CacheType;
 import org.dd4t.core.exceptions.ItemNotFoundException;
 import org.dd4t.core.exceptions.SerializationException;
@@ -9,6 +8,9 @@ import org.dd4t.core.util.TCMURI;
 import org.dd4t.providers.PageProvider;
 import org.dd4t.providers.ProviderResultItem;
 import org.dd4t.providers.impl.BrokerPageProvider;
+import org.dd4t.providers.rs.caching.CacheKey;
+import org.dd4t.providers.serializer.CompressionCodec;
+import org.dd4t.providers.serializer.ContentEncoding;
 import org.dd4t.providers.serializer.SerializerFactory;
 import org.dd4t.providers.serializer.json.JSONSerializer;
 import org.joda.time.DateTime;
@@ -82,49 +84,46 @@ public class TridionPageProvider extends TridionBaseProvider implements PageProv
 
     @Override
     public String getPageContentByURL (final String url, final int publication) throws ItemNotFoundException, SerializationException {
+        return encodeBase64(getCompressedPageContentByURL(url, publication));
+    }
+
+    /**
+     * Returns the GZip compressed page content as it is cached, so it can be Base64 encoded straight into a response.
+     *
+     * @param url         String representing the Base64 encoded path part of the page URL
+     * @param publication int representing the page Publication id
+     * @return byte[] the GZip compressed page content
+     * @throws ItemNotFoundException  if the page does not exist
+     * @throws SerializationException if the page content could not be compressed
+     */
+    public byte[] getCompressedPageContentByURL (final String url, final int publication) throws ItemNotFoundException, SerializationException {
         LOG.debug("Fetching Page Content by url: {} and publication: {}", url, publication);
 
         String decodedUrl = decodeUrl(url);
-        String key = getKey(CacheType.PAGE_CONTENT, decodedUrl, publication);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        final PageMeta pageMeta = getPageMetaByURL(url, publication);
-                        if (pageMeta == null) {
-                            result = null;
-                            cacheElement.setPayload(null);
-                            cacheProvider.storeInItemCache(key, cacheElement);
-                            cacheElement.setExpired(true);
-                        } else {
-                            result = pageProvider.getPageContentById(pageMeta.getItemId(), publication);
-                            result = serialize(result);
-
-                            cacheElement.setPayload(result);
-                            cacheProvider.storeInItemCache(key, cacheElement, publication, pageMeta.getItemId());
-                            LOG.debug("Stored Page Content with key: {} in cache", key);
-                        }
-                    } catch (ItemNotFoundException | SerializationException e) {
-                        LOG.info("Unable to find page by url '" + url + "' and publication '" + publication + "': " + e.getMessage());
-                        result = null;
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-                        cacheElement.setExpired(true);
-                    }
-                } else {
-                    LOG.debug("Fetched a Page Content with key: {} from cache", key);
-                    result = cacheElement.getPayload();
+        final String key = getKey(CacheType.PAGE_CONTENT, decodedUrl, publication);
+        byte[] result = loadPayload(CacheType.PAGE_CONTENT, publication, key, ItemNotFoundException.class, context -> {
+            try {
+                final PageMeta pageMeta = getPageMetaByURL(url, publication);
+                if (pageMeta == null) {
+                    context.notFound();
+                    return null;
                 }
+
+                byte[] content = serialize(pageProvider.getPageContentById(pageMeta.getItemId(), publication));
+
+                context.dependsOn(publication, pageMeta.getItemId());
+                LOG.debug("Loaded Page Content with key: {}", key);
+                return content;
+            } catch (ItemNotFoundException e) {
+                LOG.info("Unable to find page by url '" + url + "' and publication '" + publication + "': " + e.getMessage());
+                context.notFound();
+                return null;
+            } catch (SerializationException e) {
+                LOG.info("Unable to find page by url '" + url + "' and publication '" + publication + "': " + e.getMessage());
+                context.skipCache();
+                return null;
             }
-        } else {
-            LOG.debug("Fetched Page Content with key: {} from cache", key);
-            result = cacheElement.getPayload();
-        }
+        });
 
         if (result == null) {
             throw new ItemNotFoundException("Unable to find page by url '" + url + "' and publication '" + publication + "'.");
@@ -135,6 +134,27 @@ public class TridionPageProvider extends TridionBaseProvider implements PageProv
 
     }
 
+    /**
+     * Returns the given page content, as returned by getCompressedPageContentByURL, compressed with the given codec.
+     * The result is stored as a variant of the cached page content.
+     *
+     * @param url         String representing the Base64 encoded path part of the page URL
+     * @param publication int representing the page Publication id
+     * @param content     byte[] the GZip compressed page content
+     * @param codec       CompressionCodec to compress the content with
+     * @return byte[] the page content compressed with the codec; null if it could not be compressed
+     */
+    public byte[] getCompressedPageContentVariant (final String url, final int publication, final byte[] content,
+                                                   final CompressionCodec codec) {
+        try {
+            return getVariant(CacheType.PAGE_CONTENT, getKey(CacheType.PAGE_CONTENT, decodeUrl(url), publication),
+                    content, codec);
+        } catch (ItemNotFoundException e) {
+            // the content was found by this url, so it decodes
+            return null;
+        }
+    }
+
     @Override
     public String getPageContentById (final String tcmUri) throws ItemNotFoundException, ParseException, SerializationException {
         return pageProvider.getPageContentById(tcmUri);
@@ -161,19 +181,21 @@ public class TridionPageProvider extends TridionBaseProvider implements PageProv
     }
 
     /**
-     * Compresses the given page content, then encodes it to BASE64. Content is already supposed to be in JSON format.
+     * Compresses the given page content, to be cached as is. Content is already supposed to be in JSON format;
+     * content that is already compressed and Base64 encoded is only decoded (@see JSONSerializer#getContentEncoding).
      *
      * @param content String the page content to serialize
-     * @return String the compressed content in BASE64 encoding
+     * @return byte[] the compressed content
      */
-    private String serialize (String content) throws SerializationException {
+    private byte[] serialize (String content) throws SerializationException {
         JSONSerializer serializer = SerializerFactory.getSerializer();
 
-        if (content != null && !serializer.isBase64(content)) {
-            byte[] gzipArray = serializer.compressGZip(content);
-            return serializer.encodeBase64(gzipArray);
+        if (content == null) {
+            return null;
+        } else if (serializer.getContentEncoding(content) == ContentEncoding.BASE64_GZIP) {
+            return decodeBase64(content);
         } else {
-            return content;
+            return serializer.compressGZip(content);
         }
     }
 
@@ -187,7 +209,7 @@ public class TridionPageProvider extends TridionBaseProvider implements PageProv
      * @return String representing the key pointing to a URL value
      */
     private String getKey (CacheType type, String url, int publication) {
-        return String.format("%s-%s-%d", type, url, publication);
+        return CacheKey.getKey(type, url, publication);
     }
 
     /**
@@ -200,7 +222,7 @@ public class TridionPageProvider extends TridionBaseProvider implements PageProv
      * @return String representing the key pointing to a URL value
      */
     private String getKey (CacheType type, int id, int publication) {
-        return String.format("%s-%d-%d", type, publication, id);
+        return CacheKey.getKey(type, publication, id);
     }
 
     /**
@@ -212,7 +234,7 @@ public class TridionPageProvider extends TridionBaseProvider implements PageProv
      * @return String representing the key pointing to a URL value
      */
     private String getKey (CacheType type, String url) {
-        return String.format("%s-%s", type, url);
+        return CacheKey.getKey(type, url);
     }
 
     /**
@@ -224,6 +246,6 @@ public class TridionPageProvider extends TridionBaseProvider implements PageProv
      * @return String representing the key pointing to a URL value
      */
     private String getKey (CacheType type, int id) {
-        return String.format("%s-%s", type, id);
+        return CacheKey.getKey(type, id);
     }
 }
@@ -5,12 +5,13 @@ import com.tridion.broker.StorageException;
 import com.tridion.storage.RelatedKeyword;
 import org.dd4t.contentmodel.Keyword;
 import org.dd4t.contentmodel.impl.KeywordImpl;
-import org.dd4t.core.caching.CacheElement;
 import org.dd4t.core.caching.CacheType;
 import org.dd4t.core.exceptions.ItemNotFoundException;
 import org.dd4t.core.exceptions.SerializationException;
 import org.dd4t.core.util.TCMURI;
 import org.dd4t.providers.impl.BrokerTaxonomyProvider;
+import org.dd4t.providers.rs.caching.CacheKey;
+import org.dd4t.providers.serializer.CompressionCodec;
 import org.dd4t.providers.serializer.KeywordBuilder;
 import org.dd4t.providers.serializer.SerializerFactory;
 import org.dd4t.providers.serializer.json.JSONSerializer;
@@ -64,52 +65,51 @@ public class TridionTaxonomyProvider extends TridionBaseProvider {
      */
     public String getTaxonomy(final String taxonomyURI, final boolean resolveContent)
             throws IOException, ItemNotFoundException, ParseException {
+        return encodeBase64(getCompressedTaxonomy(taxonomyURI, resolveContent));
+    }
+
+    /**
+     * Returns the GZip compressed serialized Keyword as it is cached, so it can be Base64 encoded straight into a
+     * response.
+     *
+     * @param taxonomyURI    String representing the root taxonomy Keyword TCMURI
+     * @param resolveContent boolean indicating whether or not to include classified content TCMURIs for each Keyword
+     * @return byte[] the GZip compressed serialized keyword
+     * @throws IOException           if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item identified by taxonomyURI was not found
+     * @throws ParseException        if the TCMURI is invalid
+     */
+    public byte[] getCompressedTaxonomy(final String taxonomyURI, final boolean resolveContent)
+            throws IOException, ItemNotFoundException, ParseException {
         LOG.debug("Fetching taxonomy by uri: {}", taxonomyURI);
 
-        String key = getKey(CacheType.TAXONOMY, taxonomyURI);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        com.tridion.taxonomies.Keyword tridionKeyword = taxonomyProvider.getTaxonomy(taxonomyURI);
-                        if (tridionKeyword == null) {
-                            cacheElement.setPayload(null);
-                            cacheProvider.storeInItemCache(key, cacheElement);
-                            throw new ItemNotFoundException("Taxonomy with URI " + taxonomyURI + " was not found");
-                        }
-
-                        KeywordBuilder builder;
-                        if (resolveContent) {
-                            Map<String, Set<TCMURI>> relatedItems = getRelatedContent(taxonomyURI);
-                            builder = new KeywordBuilder(relatedItems);
-                        } else {
-                            builder = new KeywordBuilder();
-                        }
-
-                        Keyword keyword = builder.build(tridionKeyword);
-                        result = serialize(keyword);
-
-                        TCMURI tcmUri = new TCMURI(taxonomyURI);
-                        cacheElement.setPayload(result);
-                        cacheProvider.storeInItemCache(key, cacheElement, tcmUri.getPublicationId(), tcmUri.getItemId());
-                    } catch (SerializationException | StorageException se) {
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-
-                        throw new IOException(se);
-                    }
+        final String key = getKey(CacheType.TAXONOMY, taxonomyURI);
+        final TCMURI tcmUri = new TCMURI(taxonomyURI);
+        byte[] result = loadPayload(CacheType.TAXONOMY, tcmUri.getPublicationId(), key, IOException.class, context -> {
+            try {
+                com.tridion.taxonomies.Keyword tridionKeyword = taxonomyProvider.getTaxonomy(taxonomyURI);
+                if (tridionKeyword == null) {
+                    context.notFound();
+                    return null;
+                }
+
+                KeywordBuilder builder;
+                if (resolveContent) {
+                    Map<String, Set<TCMURI>> relatedItems = getRelatedContent(taxonomyURI, tcmUri.getPublicationId());
+                    builder = new KeywordBuilder(relatedItems);
                 } else {
-                    result = cacheElement.getPayload();
+                    builder = new KeywordBuilder();
                 }
+
+                Keyword keyword = builder.build(tridionKeyword);
+                byte[] taxonomy = serialize(keyword);
+
+                context.dependsOn(tcmUri.getPublicationId(), tcmUri.getItemId());
+                return taxonomy;
+            } catch (SerializationException | StorageException se) {
+                throw new IOException(se);
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        });
 
         if (result == null) {
             throw new ItemNotFoundException("Taxonomy with URI " + taxonomyURI + " was not found");
@@ -132,46 +132,60 @@ public class TridionTaxonomyProvider extends TridionBaseProvider {
      */
     public String getTaxonomyRelatedBySchema(final String taxonomyURI, final String schemaURI)
             throws IOException, ItemNotFoundException, ParseException {
+        return encodeBase64(getCompressedTaxonomyRelatedBySchema(taxonomyURI, schemaURI));
+    }
+
+    /**
+     * Returns the given taxonomy, as returned by getCompressedTaxonomy, compressed with the given codec. The result is
+     * stored as a variant of the cached taxonomy.
+     *
+     * @param taxonomyURI String representing the root taxonomy Keyword TCMURI
+     * @param content     byte[] the GZip compressed taxonomy
+     * @param codec       CompressionCodec to compress the taxonomy with
+     * @return byte[] the taxonomy compressed with the codec; null if it could not be compressed
+     */
+    public byte[] getCompressedTaxonomyVariant(final String taxonomyURI, final byte[] content,
+                                               final CompressionCodec codec) {
+        return getVariant(CacheType.TAXONOMY, getKey(CacheType.TAXONOMY, taxonomyURI), content, codec);
+    }
+
+    /**
+     * Returns the GZip compressed serialized Keyword as it is cached, so it can be Base64 encoded straight into a
+     * response.
+     *
+     * @param taxonomyURI String representing the root taxonomy Keyword TCMURI
+     * @param schemaURI   String representing the filter for classified related Components to return for each Keyword
+     * @return byte[] the GZip compressed serialized keyword
+     * @throws IOException           if something went wrong during accessing the CD DB
+     * @throws ItemNotFoundException if the item identified by taxonomyURI was not found
+     * @throws ParseException        if the TCMURI is invalid
+     */
+    public byte[] getCompressedTaxonomyRelatedBySchema(final String taxonomyURI, final String schemaURI)
+            throws IOException, ItemNotFoundException, ParseException {
         LOG.debug("Fetching taxonomy by: {} and filter related Components by schemaURI: {}", taxonomyURI, schemaURI);
 
-        String key = getKey(CacheType.TAXONOMY, taxonomyURI, schemaURI);
-        CacheElement<String> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        String result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        com.tridion.taxonomies.Keyword tridionKeyword = taxonomyProvider.getTaxonomy(taxonomyURI);
-                        if (tridionKeyword == null) {
-                            cacheElement.setPayload(null);
-                            cacheProvider.storeInItemCache(key, cacheElement);
-                            throw new ItemNotFoundException("Taxonomy with URI " + taxonomyURI + " was not found");
-                        }
-
-                        Map<String, Set<TCMURI>> relatedItems = getRelatedContentBySchema(taxonomyURI, schemaURI);
-                        KeywordBuilder builder = new KeywordBuilder(relatedItems);
-                        Keyword keyword = builder.build(tridionKeyword);
-                        result = serialize(keyword);
-
-                        TCMURI tcmUri = new TCMURI(taxonomyURI);
-                        cacheElement.setPayload(result);
-                        cacheProvider.storeInItemCache(key, cacheElement, tcmUri.getPublicationId(), tcmUri.getItemId());
-                    } catch (IOException | SerializationException | StorageException se) {
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-
-                        throw new IOException(se);
-                    }
-                } else {
-                    result = cacheElement.getPayload();
+        final String key = getKey(CacheType.TAXONOMY, taxonomyURI, schemaURI);
+        final TCMURI tcmUri = new TCMURI(taxonomyURI);
+        byte[] result = loadPayload(CacheType.TAXONOMY, tcmUri.getPublicationId(), key, IOException.class, context -> {
+            try {
+                com.tridion.taxonomies.Keyword tridionKeyword = taxonomyProvider.getTaxonomy(taxonomyURI);
+                if (tridionKeyword == null) {
+                    context.notFound();
+                    return null;
                 }
+
+                Map<String, Set<TCMURI>> relatedItems = getRelatedContentBySchema(taxonomyURI, schemaURI,
+                        tcmUri.getPublicationId());
+                KeywordBuilder builder = new KeywordBuilder(relatedItems);
+                Keyword keyword = builder.build(tridionKeyword);
+                byte[] taxonomy = serialize(keyword);
+
+                context.dependsOn(tcmUri.getPublicationId(), tcmUri.getItemId());
+                return taxonomy;
+            } catch (IOException | SerializationException | StorageException se) {
+                throw new IOException(se);
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
+        });
 
         if (result == null) {
             throw new ItemNotFoundException("Taxonomy with URI " + taxonomyURI + " was not found");
@@ -180,98 +194,80 @@ public class TridionTaxonomyProvider extends TridionBaseProvider {
         return result;
     }
 
+    /**
+     * Returns the given taxonomy, as returned by getCompressedTaxonomyRelatedBySchema, compressed with the given codec.
+     * The result is stored as a variant of the cached taxonomy.
+     *
+     * @param taxonomyURI String representing the root taxonomy Keyword TCMURI
+     * @param schemaURI   String representing the filter for classified related Components
+     * @param content     byte[] the GZip compressed taxonomy
+     * @param codec       CompressionCodec to compress the taxonomy with
+     * @return byte[] the taxonomy compressed with the codec; null if it could not be compressed
+     */
+    public byte[] getCompressedTaxonomyRelatedBySchemaVariant(final String taxonomyURI, final String schemaURI,
+                                                              final byte[] content, final CompressionCodec codec) {
+        return getVariant(CacheType.TAXONOMY, getKey(CacheType.TAXONOMY, taxonomyURI, schemaURI), content, codec);
+    }
+
     /**
      * Retrieves a map having Keyword TCMURIs as keys and as values a set of TCMURIs representing the items that make
      * direct 'use' the the Keyword in the key.
      *
-     * @param taxonomyURI String representing the root taxonomy Keyword TCMURI
+     * @param taxonomyURI   String representing the root taxonomy Keyword TCMURI
+     * @param publicationId int representing the Publication id of the taxonomy
      * @return Map of items that use each keyword directly
      * @throws IOException if something went wrong during accessing the CD DB
      */
-    private Map<String, Set<TCMURI>> getRelatedContent(final String taxonomyURI) throws IOException {
+    private Map<String, Set<TCMURI>> getRelatedContent(final String taxonomyURI, final int publicationId)
+            throws IOException {
         LOG.debug("Fetching related items for keywords in taxonomy with taxonomyURI: {}", taxonomyURI);
 
-        String key = getKey(CacheType.RELATED_KEYWORD, taxonomyURI);
-        CacheElement<Map<String, Set<TCMURI>>> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        Map<String, Set<TCMURI>> result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        result = new HashMap<>();
-                        List<RelatedKeyword> relatedComponents = taxonomyProvider.getRelatedItems(taxonomyURI, ItemTypes.COMPONENT);
-                        mergeRelatedItems(relatedComponents, result, ItemTypes.COMPONENT);
-                        List<RelatedKeyword> relatedPages = taxonomyProvider.getRelatedItems(taxonomyURI, ItemTypes.PAGE);
-                        mergeRelatedItems(relatedPages, result, ItemTypes.PAGE);
-
-                        TCMURI tcmUri = new TCMURI(taxonomyURI);
-                        cacheElement.setPayload(result);
-                        cacheProvider.storeInItemCache(key, cacheElement, tcmUri.getPublicationId(), tcmUri.getItemId());
-                    } catch (ParseException | StorageException e) {
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-
-                        throw new IOException(e);
-                    }
-                } else {
-                    result = cacheElement.getPayload();
-                }
+        final String key = getKey(CacheType.RELATED_KEYWORD, taxonomyURI);
+        return loadPayload(CacheType.RELATED_KEYWORD, publicationId, key, IOException.class, context -> {
+            try {
+                Map<String, Set<TCMURI>> relatedItems = new HashMap<>();
+                List<RelatedKeyword> relatedComponents = taxonomyProvider.getRelatedItems(taxonomyURI, ItemTypes.COMPONENT);
+                mergeRelatedItems(relatedComponents, relatedItems, ItemTypes.COMPONENT);
+                List<RelatedKeyword> relatedPages = taxonomyProvider.getRelatedItems(taxonomyURI, ItemTypes.PAGE);
+                mergeRelatedItems(relatedPages, relatedItems, ItemTypes.PAGE);
+
+                TCMURI tcmUri = new TCMURI(taxonomyURI);
+                context.dependsOn(tcmUri.getPublicationId(), tcmUri.getItemId());
+                return relatedItems;
+            } catch (ParseException | StorageException e) {
+                throw new IOException(e);
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
-
-        return result;
+        });
     }
 
     /**
      * Retrieves a map having Keyword TCMURIs as keys and as values a set of TCMURIs representing the items that make
      * direct 'use' the the Keyword in the key. The related items are only Components based on the given SchemaURI.
      *
-     * @param taxonomyURI String representing the root taxonomy Keyword TCMURI
-     * @param schemaURI   String representing the filter for classified related Components to return for each Keyword
+     * @param taxonomyURI   String representing the root taxonomy Keyword TCMURI
+     * @param schemaURI     String representing the filter for classified related Components to return for each Keyword
+     * @param publicationId int representing the Publication id of the taxonomy
      * @return Map of items that use each keyword directly
      * @throws IOException if something went wrong during accessing the CD DB
      */
-    private Map<String, Set<TCMURI>> getRelatedContentBySchema(final String taxonomyURI, final String schemaURI)
-            throws IOException {
+    private Map<String, Set<TCMURI>> getRelatedContentBySchema(final String taxonomyURI, final String schemaURI,
+                                                               final int publicationId) throws IOException {
         LOG.debug("Fetching related component by schemaURI: {} for keywords in taxonomy with taxonomyURI: {}", taxonomyURI, schemaURI);
 
-        String key = getKey(CacheType.RELATED_KEYWORD_BY_SCHEMA, taxonomyURI, schemaURI);
-        CacheElement<Map<String, Set<TCMURI>>> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
-        Map<String, Set<TCMURI>> result;
-
-        if (cacheElement.isExpired()) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (cacheElement) {
-                if (cacheElement.isExpired()) {
-                    cacheElement.setExpired(false);
-                    try {
-                        result = new HashMap<>();
-                        List<RelatedKeyword> relatedComponents = taxonomyProvider.getRelatedComponentsBySchema(taxonomyURI, schemaURI);
-                        mergeRelatedItems(relatedComponents, result, ItemTypes.COMPONENT);
-
-                        TCMURI tcmUri = new TCMURI(taxonomyURI);
-                        cacheElement.setPayload(result);
-                        cacheProvider.storeInItemCache(key, cacheElement, tcmUri.getPublicationId(), tcmUri.getItemId());
-                    } catch (ParseException | StorageException e) {
-                        cacheElement.setPayload(null);
-                        cacheProvider.storeInItemCache(key, cacheElement);
-
-                        throw new IOException(e);
-                    }
-                } else {
-                    result = cacheElement.getPayload();
-                }
+        final String key = getKey(CacheType.RELATED_KEYWORD_BY_SCHEMA, taxonomyURI, schemaURI);
+        return loadPayload(CacheType.RELATED_KEYWORD_BY_SCHEMA, publicationId, key, IOException.class, context -> {
+            try {
+                Map<String, Set<TCMURI>> relatedItems = new HashMap<>();
+                List<RelatedKeyword> relatedComponents = taxonomyProvider.getRelatedComponentsBySchema(taxonomyURI, schemaURI);
+                mergeRelatedItems(relatedComponents, relatedItems, ItemTypes.COMPONENT);
+
+                TCMURI tcmUri = new TCMURI(taxonomyURI);
+                context.dependsOn(tcmUri.getPublicationId(), tcmUri.getItemId());
+                return relatedItems;
+            } catch (ParseException | StorageException e) {
+                throw new IOException(e);
             }
-        } else {
-            result = cacheElement.getPayload();
-        }
-
-        return result;
+        });
     }
 
     /*
@@ -293,14 +289,13 @@ public class TridionTaxonomyProvider extends TridionBaseProvider {
     }
 
     /*
-    Serializes a Keyword object by performing the following steps: serialize to JSON, compress with GZip, encode with
-    Base64. On the client side, perform the same steps for deserializing, only in reversed order.
+    Serializes a Keyword object by performing the following steps: serialize to JSON, compress with GZip, streamed in
+    one pass. The result is cached, and Base64 encoded when it is sent. On the client side, perform the same steps for
+    deserializing, only in reversed order.
      */
-    private String serialize(Keyword keyword) throws SerializationException {
+    private byte[] serialize(Keyword keyword) throws SerializationException {
         JSONSerializer serializer = SerializerFactory.getSerializer();
-        String json = serializer.serializeJSON(keyword);
-        byte[] gzip = serializer.compressGZip(json);
-        return serializer.encodeBase64(gzip);
+        return serializer.serializeJSONGZip(keyword);
     }
 
     /*
@@ -323,7 +318,7 @@ public class TridionTaxonomyProvider extends TridionBaseProvider {
      * @return String representing the key pointing to a cached value
      */
     private String getKey(CacheType type, String taxonomyURI) {
-        return String.format("%s-%s", type, taxonomyURI);
+        return CacheKey.getKey(type, taxonomyURI);
     }
 
     /**
@@ -336,6 +331,6 @@ public class TridionTaxonomyProvider extends TridionBaseProvider {
      * @return String representing the key pointing to a cached value
      */
     private String getKey(CacheType type, String taxonomyURI, String schemaURI) {
-        return String.format("%s-%s-%s", type, taxonomyURI, schemaURI);
+        return CacheKey.getKey(type, taxonomyURI, schemaURI);
     }
 }
@@ -0,0 +1,377 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.providers.PayloadCacheProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte based capacity of the provider cache, per cache type. Every stored payload is weighed by the PayloadWeigher of
+ * its cache type and counted against the budget of that type. When a type exceeds its budget, payloads are expired
+ * until it fits again, so a burst of large binaries can't push pages and links out of the cache. Budgets set in @see
+ * CacheTypeSettings take precedence over the budgets map.
+ * <p/>
+ * Eviction is frequency aware: each type is a segmented LRU (probation and protected), and a new payload is only
+ * admitted at the expense of a victim that was requested less often recently, as estimated by a shared @see
+ * FrequencySketch (TinyLFU). A crawler sweeping over all page or binary URLs therefore does not evict the popular
+ * pages, DCPs and links.
+ * <p/>
+ * Eviction is also cost aware: every payload carries the time it took to load (broker query plus serialization). The
+ * admission check weighs frequency by load time per byte, and a payload that is much more expensive per byte than the
+ * average of its type is passed over a few times before it is evicted, so a slow taxonomy or custom meta query stays
+ * cached at the expense of cheap links of the same size.
+ * <p/>
+ * Recency is tracked with a CLOCK: a cache hit only sets a flag on the entry, so hits don't take a lock. Entries hold
+ * their key, and are evicted by key through the cache provider, which may hand out copies of its elements. Payloads
+ * the cache region dropped by itself keep counting until they are picked as victim, which then only releases them.
+ *
+ * @author R. Kempees
+ */
+public class CacheBudget {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheBudget.class);
+    private static final int MIN_SWEEP_SIZE = 1024;
+    private static final int DEFAULT_SKETCH_WIDTH = 262144;
+    private static final double PROTECTED_SHARE = 0.8;
+    private static final int MAX_CHANCES = 3;
+    private static final CacheBudget INSTANCE = new CacheBudget();
+
+    private final ConcurrentMap<String, Region> regions = new ConcurrentHashMap<>();
+    private final PayloadWeigher defaultWeigher = new DefaultPayloadWeigher();
+    private final CacheTypeSettings typeSettings = CacheTypeSettings.getInstance();
+    private volatile Map<String, Long> budgets = Collections.emptyMap();
+    private volatile Map<String, PayloadWeigher> weighers = Collections.emptyMap();
+    private volatile long defaultBudget;
+    private volatile FrequencySketch sketch = new FrequencySketch(DEFAULT_SKETCH_WIDTH);
+
+    private CacheBudget () {
+
+    }
+
+    public static CacheBudget getInstance () {
+        return INSTANCE;
+    }
+
+    public Map<String, Long> getBudgets () {
+        return budgets;
+    }
+
+    /**
+     * @param budgets Map with cache type names (e.g. BINARY_CONTENT) as keys and their budgets in bytes as values
+     */
+    public void setBudgets (final Map<String, Long> budgets) {
+        this.budgets = new HashMap<>(budgets);
+    }
+
+    public long getDefaultBudget () {
+        return defaultBudget;
+    }
+
+    /**
+     * @param defaultBudget long the budget in bytes of cache types without a budget of their own; 0 for no limit
+     */
+    public void setDefaultBudget (final long defaultBudget) {
+        this.defaultBudget = defaultBudget;
+    }
+
+    public Map<String, PayloadWeigher> getWeighers () {
+        return weighers;
+    }
+
+    /**
+     * @param weighers Map with cache type names as keys and the PayloadWeigher to use for them as values. Cache types
+     *                 without a weigher use the @see DefaultPayloadWeigher
+     */
+    public void setWeighers (final Map<String, PayloadWeigher> weighers) {
+        this.weighers = new HashMap<>(weighers);
+    }
+
+    /**
+     * @param sketchWidth int the number of counters per row of the frequency sketch; about the number of entries in
+     *                    the provider cache. Rounded up to a power of two; the sketch takes four bytes per unit
+     */
+    public void setSketchWidth (final int sketchWidth) {
+        this.sketch = new FrequencySketch(sketchWidth);
+    }
+
+    /**
+     * @param type String representing the cache type
+     * @return long the estimated number of bytes cached for the given type
+     */
+    public long getWeight (final String type) {
+        final Region region = regions.get(type);
+        return region == null ? 0 : region.bytes.get();
+    }
+
+    /**
+     * Counts a newly stored payload and its variants against the budget of its cache type, evicting other payloads of
+     * that type if the budget is exceeded. A payload stored again, e.g. with a new variant, replaces its earlier count.
+     *
+     * @param type          String representing the cache type
+     * @param key           String representing the cache key
+     * @param cacheProvider the PayloadCacheProvider the payload is stored in
+     * @param cachedPayload the stored CachedPayload
+     */
+    public void add (final String type, final String key, final PayloadCacheProvider cacheProvider,
+                     final CachedPayload<?> cachedPayload) {
+        final long budget = getBudget(type);
+        if (budget <= 0) {
+            return;
+        }
+
+        final PayloadWeigher weigher = weighers.get(type);
+        final long weight = (weigher == null ? defaultWeigher : weigher).weigh(key, cachedPayload.getPayload()) +
+                cachedPayload.getVariantWeight();
+
+        Region region = regions.get(type);
+        if (region == null) {
+            region = new Region();
+            final Region existing = regions.putIfAbsent(type, region);
+            if (existing != null) {
+                region = existing;
+            }
+        }
+        sketch.increment(key);
+        region.evict(type, budget, region.add(key, cacheProvider, cachedPayload.getLoadedAt(), weight,
+                cachedPayload.getLoadTime() + 1));
+    }
+
+    /**
+     * Marks the payload under the given key as recently used, and counts the access in the frequency sketch.
+     *
+     * @param type String representing the cache type
+     * @param key  String representing the cache key
+     */
+    public void touch (final String type, final String key) {
+        final Region region = regions.get(type);
+        if (region != null) {
+            sketch.increment(key);
+            region.touch(key);
+        }
+    }
+
+    private long getBudget (final String type) {
+        final Long budget = budgets.get(type);
+        return typeSettings.getBudget(type, budget == null ? defaultBudget : budget);
+    }
+
+    /*
+    Segmented LRU over the payloads of one cache type. New payloads enter the probation segment; payloads that are hit
+    while in probation are promoted to the protected segment, which holds at most PROTECTED_SHARE of the budget. Victims
+    are taken from probation first, so payloads that are only requested once (e.g. by a crawler) are evicted before
+    popular ones. Recency within a segment is tracked with a CLOCK: a hit only sets a flag on the entry.
+     */
+    private class Region {
+
+        private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Queue<Entry> probation = new ConcurrentLinkedQueue<>();
+        private final Queue<Entry> protectedSegment = new ConcurrentLinkedQueue<>();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong costs = new AtomicLong();
+        private final AtomicInteger queued = new AtomicInteger();
+        private long protectedBytes;
+
+        Entry add (final String key, final PayloadCacheProvider cacheProvider, final long loadedAt, final long weight,
+                   final long cost) {
+            final Entry entry = new Entry(key, cacheProvider, loadedAt, weight, cost);
+            entry.chances = getChances(entry, costs.get(), bytes.get());
+            final Entry replaced = entries.put(key, entry);
+            if (replaced != null) {
+                release(replaced);
+            }
+            bytes.addAndGet(weight);
+            costs.addAndGet(cost);
+            probation.add(entry);
+
+            if (queued.incrementAndGet() > 2 * entries.size() + MIN_SWEEP_SIZE) {
+                sweep();
+            }
+            return entry;
+        }
+
+        void touch (final String key) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                entry.referenced = true;
+            }
+        }
+
+        /*
+        Evicts payloads until the region fits its budget. The payload just added competes with each victim: if the
+        victim was requested more often recently, weighted by load time per byte, the new payload is dropped instead
+        (TinyLFU admission).
+         */
+        synchronized void evict (final String type, final long budget, final Entry candidate) {
+            while (bytes.get() > budget) {
+                final Entry victim = nextVictim(budget);
+                if (victim == null) {
+                    return;
+                }
+
+                if (victim != candidate && !candidate.released && getValue(candidate) < getValue(victim)) {
+                    probation.add(victim);
+                    queued.incrementAndGet();
+                    remove(type, budget, candidate, "Rejected");
+                } else {
+                    remove(type, budget, victim, "Evicted");
+                }
+            }
+        }
+
+        /*
+        Takes the next eviction candidate off the queues. Referenced probation entries are promoted, and the protected
+        segment is shrunk back to its share of the budget by demoting its oldest entries to probation. Entries that are
+        expensive to reload are requeued while they have chances left.
+         */
+        private Entry nextVictim (final long budget) {
+            while (true) {
+                if (protectedBytes > budget * PROTECTED_SHARE || probation.isEmpty()) {
+                    final Entry demoted = protectedSegment.poll();
+                    if (demoted != null) {
+                        protectedBytes -= demoted.weight;
+                        demoted.referenced = false;
+                        probation.add(demoted);
+                        continue;
+                    }
+                }
+
+                final Entry entry = probation.poll();
+                if (entry == null) {
+                    return null;
+                }
+                queued.decrementAndGet();
+
+                if (entry.released) {
+                    discard(entry);
+                    if (bytes.get() <= budget) {
+                        return null;
+                    }
+                    continue;
+                }
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    protectedBytes += entry.weight;
+                    protectedSegment.add(entry);
+                    queued.incrementAndGet();
+                    continue;
+                }
+                if (entry.chances > 0) {
+                    entry.chances--;
+                    probation.add(entry);
+                    queued.incrementAndGet();
+                    continue;
+                }
+                return entry;
+            }
+        }
+
+        private void remove (final String type, final long budget, final Entry entry, final String action) {
+            entries.remove(entry.key, entry);
+            if (release(entry)) {
+                if (CacheEntries.expire(entry.cacheProvider, entry.key, entry.loadedAt)) {
+                    CacheStatistics.getInstance().get(type).evicted();
+                    LOG.debug("{} payload with key: {} over {} byte budget of {}", action, entry.key, budget, type);
+                }
+            }
+        }
+
+        private void discard (final Entry entry) {
+            entries.remove(entry.key, entry);
+            release(entry);
+        }
+
+        private boolean release (final Entry entry) {
+            if (!entry.release()) {
+                return false;
+            }
+            bytes.addAndGet(-entry.weight);
+            costs.addAndGet(-entry.cost);
+            return true;
+        }
+
+        private double getValue (final Entry entry) {
+            return sketch.frequency(entry.key) * (double) entry.cost / Math.max(1, entry.weight);
+        }
+
+        /*
+        Drops entries that were replaced by a reload of their key, so the queues don't grow while the region is within
+        its budget.
+         */
+        synchronized void sweep () {
+            sweep(probation);
+            final Iterator<Entry> iterator = protectedSegment.iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (entry.released) {
+                    iterator.remove();
+                    queued.decrementAndGet();
+                    protectedBytes -= entry.weight;
+                    discard(entry);
+                }
+            }
+        }
+
+        private void sweep (final Queue<Entry> queue) {
+            final Iterator<Entry> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (entry.released) {
+                    iterator.remove();
+                    queued.decrementAndGet();
+                    discard(entry);
+                }
+            }
+        }
+    }
+
+    /*
+    The number of times an entry is passed over for eviction: one for twice the average load time per byte of its
+    region, two for four times, up to MAX_CHANCES.
+     */
+    private static int getChances (final Entry entry, final long regionCost, final long regionBytes) {
+        if (regionBytes <= 0) {
+            return 0;
+        }
+        final double ratio = ((double) entry.cost / Math.max(1, entry.weight)) / ((double) regionCost / regionBytes);
+        return ratio < 2 ? 0 : Math.min(MAX_CHANCES, 63 - Long.numberOfLeadingZeros((long) ratio));
+    }
+
+    private static class Entry {
+
+        private final String key;
+        private final PayloadCacheProvider cacheProvider;
+        private final long loadedAt;
+        private final long weight;
+        private final long cost;
+        private int chances;
+        private volatile boolean referenced;
+        private volatile boolean released;
+
+        Entry (final String key, final PayloadCacheProvider cacheProvider, final long loadedAt, final long weight,
+               final long cost) {
+            this.key = key;
+            this.cacheProvider = cacheProvider;
+            this.loadedAt = loadedAt;
+            this.weight = weight;
+            this.cost = cost;
+        }
+
+        synchronized boolean release () {
+            if (released) {
+                return false;
+            }
+            released = true;
+            return true;
+        }
+    }
+}
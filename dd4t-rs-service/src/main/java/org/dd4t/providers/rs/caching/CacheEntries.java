@@ -0,0 +1,97 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.core.caching.CacheElement;
+import org.dd4t.providers.PayloadCacheProvider;
+
+/**
+ * Expires, touches and replaces provider cache entries by key. A cache provider may hand out a copy of a cache element
+ * on every read, so an element only counts as expired, touched or replaced once it is stored back through the
+ * provider; changing an element that was handed out earlier has no effect.
+ *
+ * @author R. Kempees
+ */
+final class CacheEntries {
+
+    /**
+     * Passed as loadedAt to expire whatever payload is cached under a key.
+     */
+    static final long ANY_PAYLOAD = Long.MIN_VALUE;
+
+    private CacheEntries () {
+
+    }
+
+    /**
+     * Expires the payload cached under the given key, if it is the payload loaded at the given time. A payload that
+     * was reloaded since is left alone.
+     *
+     * @param cacheProvider the PayloadCacheProvider holding the payload
+     * @param key           String representing the cache key
+     * @param loadedAt      long the load time of the payload to expire, as in @see CachedPayload#getLoadedAt; or
+     *                      ANY_PAYLOAD
+     * @return boolean true if a payload was expired
+     */
+    static boolean expire (final PayloadCacheProvider cacheProvider, final String key, final long loadedAt) {
+        final CacheElement<Object> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
+        final Object payload = cacheElement.getPayload();
+        if (cacheElement.isExpired() || payload == null) {
+            return false;
+        }
+        if (loadedAt != ANY_PAYLOAD &&
+                (!(payload instanceof CachedPayload) || ((CachedPayload<?>) payload).getLoadedAt() != loadedAt)) {
+            return false;
+        }
+
+        cacheElement.setPayload(null);
+        cacheElement.setExpired(true);
+        cacheProvider.storeInItemCache(key, cacheElement);
+        return true;
+    }
+
+    /**
+     * Records a request of the payload cached under the given key, if it is the payload loaded at the given time, for
+     * idle expiry. A payload that was reloaded or expired since is left alone.
+     *
+     * @param cacheProvider the PayloadCacheProvider holding the payload
+     * @param key           String representing the cache key
+     * @param loadedAt      long the load time of the payload to touch, as in @see CachedPayload#getLoadedAt
+     * @param now           long representing the current time in milliseconds
+     * @return boolean true if a payload was touched
+     */
+    static boolean touch (final PayloadCacheProvider cacheProvider, final String key, final long loadedAt,
+                          final long now) {
+        final CacheElement<Object> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
+        final Object payload = cacheElement.getPayload();
+        if (cacheElement.isExpired() || !(payload instanceof CachedPayload) ||
+                ((CachedPayload<?>) payload).getLoadedAt() != loadedAt) {
+            return false;
+        }
+
+        ((CachedPayload<?>) payload).touch(now);
+        cacheProvider.storeInItemCache(key, cacheElement);
+        return true;
+    }
+
+    /**
+     * Replaces the payload cached under the given key with the given one, if the cached payload was loaded at the same
+     * time, e.g. to store it with a new variant. A payload that was reloaded or expired since is left alone.
+     *
+     * @param cacheProvider the PayloadCacheProvider holding the payload
+     * @param key           String representing the cache key
+     * @param cachedPayload the CachedPayload to store, with the load time of the payload it replaces
+     * @return boolean true if the payload was replaced
+     */
+    static boolean replace (final PayloadCacheProvider cacheProvider, final String key,
+                            final CachedPayload<?> cachedPayload) {
+        final CacheElement<Object> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
+        final Object payload = cacheElement.getPayload();
+        if (cacheElement.isExpired() || !(payload instanceof CachedPayload) ||
+                ((CachedPayload<?>) payload).getLoadedAt() != cachedPayload.getLoadedAt()) {
+            return false;
+        }
+
+        cacheElement.setPayload(cachedPayload);
+        cacheProvider.storeInItemCache(key, cacheElement);
+        return true;
+    }
+}
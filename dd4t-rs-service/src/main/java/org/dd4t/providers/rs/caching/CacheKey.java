@@ -0,0 +1,233 @@
+package org.dd4t.providers.rs.caching;
+
+/**
+ * Immutable cache key made of a cache type, up to two String ids (URLs, TcmUris or query parts) and up to three item
+ * or Publication ids, with a precomputed hash code. Its String form joins the parts with '-' in the order of the
+ * getKey method used: "type-id[-qualifier]" or "type-id-first" for String ids first, "type-first[-second[-third]]" for
+ * ids only, and "type-first-id[-second[-third]]" for a Publication id followed by a String id. It is the key text the
+ * PayloadCacheProvider works with, and the same text as the keys concatenated before.
+ * <p/>
+ * Recently built keys are kept in a fixed size table, indexed by hash. A lookup compares the fields of the slot with
+ * the requested type and ids without allocating anything, and returns the String of the key found there, so a key that
+ * was requested before is neither formatted nor allocated again. A key that misses takes over its slot; the table
+ * never grows and is never cleared.
+ * <p/>
+ * Slots are read and written without locking. Fields are final, so a key read from a slot is always complete; a lost
+ * write only costs a later miss.
+ *
+ * @author R. Kempees
+ */
+public final class CacheKey {
+
+    private static final int TABLE_SIZE = 8192;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+    private static final CacheKey[] TABLE = new CacheKey[TABLE_SIZE];
+
+    private final Enum<?> type;
+    private final String id;
+    private final String qualifier;
+    private final boolean idFirst;
+    private final int size;
+    private final int first;
+    private final int second;
+    private final int third;
+    private final int hash;
+    private final String key;
+
+    private CacheKey (final Enum<?> type, final String id, final String qualifier, final boolean idFirst,
+                      final int size, final int first, final int second, final int third, final int hash) {
+        this.type = type;
+        this.id = id;
+        this.qualifier = qualifier;
+        this.idFirst = idFirst;
+        this.size = size;
+        this.first = first;
+        this.second = second;
+        this.third = third;
+        this.hash = hash;
+        this.key = format();
+    }
+
+    /**
+     * @param type the CacheType (or RsCacheType) of the key
+     * @param id   String the URL or TcmUri of the item
+     * @return String representing the key "type-id"
+     */
+    public static String getKey (final Enum<?> type, final String id) {
+        return lookup(type, id, null, true, 0, 0, 0, 0);
+    }
+
+    /**
+     * @param type      the CacheType (or RsCacheType) of the key
+     * @param id        String the URL or TcmUri of the item
+     * @param qualifier String the TcmUri or text that narrows it down, e.g. a Page or Schema TcmUri
+     * @return String representing the key "type-id-qualifier"
+     */
+    public static String getKey (final Enum<?> type, final String id, final String qualifier) {
+        return lookup(type, id, qualifier, true, 0, 0, 0, 0);
+    }
+
+    /**
+     * @param type  the CacheType (or RsCacheType) of the key
+     * @param id    String the URL or TcmUri of the item
+     * @param first int the Publication or item id following it
+     * @return String representing the key "type-id-first"
+     */
+    public static String getKey (final Enum<?> type, final String id, final int first) {
+        return lookup(type, id, null, true, 1, first, 0, 0);
+    }
+
+    /**
+     * @param type  the CacheType (or RsCacheType) of the key
+     * @param first int the id
+     * @return String representing the key "type-first"
+     */
+    public static String getKey (final Enum<?> type, final int first) {
+        return lookup(type, null, null, false, 1, first, 0, 0);
+    }
+
+    /**
+     * @param type   the CacheType (or RsCacheType) of the key
+     * @param first  int the first id
+     * @param second int the second id
+     * @return String representing the key "type-first-second"
+     */
+    public static String getKey (final Enum<?> type, final int first, final int second) {
+        return lookup(type, null, null, false, 2, first, second, 0);
+    }
+
+    /**
+     * @param type   the CacheType (or RsCacheType) of the key
+     * @param first  int the first id
+     * @param second int the second id
+     * @param third  int the third id
+     * @return String representing the key "type-first-second-third"
+     */
+    public static String getKey (final Enum<?> type, final int first, final int second, final int third) {
+        return lookup(type, null, null, false, 3, first, second, third);
+    }
+
+    /**
+     * @param type  the CacheType (or RsCacheType) of the key
+     * @param first int the Publication id
+     * @param id    String the query part following it, e.g. a Schema title or the hash of a query
+     * @return String representing the key "type-first-id"
+     */
+    public static String getKey (final Enum<?> type, final int first, final String id) {
+        return lookup(type, id, null, false, 1, first, 0, 0);
+    }
+
+    /**
+     * @param type   the CacheType (or RsCacheType) of the key
+     * @param first  int the Publication id
+     * @param id     String the query part following it, e.g. a Schema title or a custom meta key
+     * @param second int the id following the query part, e.g. a Component Template id
+     * @return String representing the key "type-first-id-second"
+     */
+    public static String getKey (final Enum<?> type, final int first, final String id, final int second) {
+        return lookup(type, id, null, false, 2, first, second, 0);
+    }
+
+    /**
+     * @param type   the CacheType (or RsCacheType) of the key
+     * @param first  int the Publication id
+     * @param id     String the query part following it, e.g. a Schema title
+     * @param second int the first id following the query part, e.g. a Keyword id
+     * @param third  int the second id following the query part, e.g. a Component Template id
+     * @return String representing the key "type-first-id-second-third"
+     */
+    public static String getKey (final Enum<?> type, final int first, final String id, final int second,
+                                 final int third) {
+        return lookup(type, id, null, false, 3, first, second, third);
+    }
+
+    private static String lookup (final Enum<?> type, final String id, final String qualifier, final boolean idFirst,
+                                  final int size, final int first, final int second, final int third) {
+        final int hash = hash(type, id, qualifier, idFirst, size, first, second, third);
+        final int index = (hash ^ (hash >>> 16)) & TABLE_MASK;
+        final CacheKey cached = TABLE[index];
+        if (cached != null && cached.matches(hash, type, id, qualifier, idFirst, size, first, second, third)) {
+            return cached.key;
+        }
+
+        final CacheKey cacheKey = new CacheKey(type, id, qualifier, idFirst, size, first, second, third, hash);
+        TABLE[index] = cacheKey;
+        return cacheKey.key;
+    }
+
+    private static int hash (final Enum<?> type, final String id, final String qualifier, final boolean idFirst,
+                             final int size, final int first, final int second, final int third) {
+        int result = type.hashCode();
+        result = 31 * result + (id == null ? 0 : id.hashCode());
+        result = 31 * result + (qualifier == null ? 0 : qualifier.hashCode());
+        result = 31 * result + (idFirst ? 1 : 0);
+        result = 31 * result + size;
+        result = 31 * result + first;
+        result = 31 * result + second;
+        result = 31 * result + third;
+        return result;
+    }
+
+    private boolean matches (final int hash, final Enum<?> type, final String id, final String qualifier,
+                             final boolean idFirst, final int size, final int first, final int second,
+                             final int third) {
+        return this.hash == hash && this.type == type && this.idFirst == idFirst && this.size == size &&
+                this.first == first && this.second == second && this.third == third &&
+                (this.id == null ? id == null : this.id.equals(id)) &&
+                (this.qualifier == null ? qualifier == null : this.qualifier.equals(qualifier));
+    }
+
+    /*
+    A String id comes right after the type, or after the first id if it is not idFirst.
+     */
+    private String format () {
+        final StringBuilder builder = new StringBuilder(64 + (id == null ? 0 : id.length()) +
+                (qualifier == null ? 0 : qualifier.length())).append(type);
+        if (id != null && idFirst) {
+            appendIds(builder);
+        }
+        if (size > 0) {
+            builder.append('-').append(first);
+        }
+        if (id != null && !idFirst) {
+            appendIds(builder);
+        }
+        if (size > 1) {
+            builder.append('-').append(second);
+        }
+        if (size > 2) {
+            builder.append('-').append(third);
+        }
+        return builder.toString();
+    }
+
+    private void appendIds (final StringBuilder builder) {
+        builder.append('-').append(id);
+        if (qualifier != null) {
+            builder.append('-').append(qualifier);
+        }
+    }
+
+    @Override
+    public boolean equals (final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+
+        final CacheKey other = (CacheKey) o;
+        return other.matches(hash, type, id, qualifier, idFirst, size, first, second, third);
+    }
+
+    @Override
+    public int hashCode () {
+        return hash;
+    }
+
+    @Override
+    public String toString () {
+        return key;
+    }
+}
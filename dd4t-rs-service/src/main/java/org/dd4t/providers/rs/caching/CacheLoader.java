@@ -0,0 +1,22 @@
+package org.dd4t.providers.rs.caching;
+
+/**
+ * Loads a payload from the Content Delivery database on a cache miss. The loader only fetches and serializes the
+ * payload; storing it in the cache is done by the @see SingleFlightLoader, using the item dependency and cacheability
+ * recorded on the given LoadContext.
+ *
+ * @param <T> the payload type
+ * @param <E> the checked exception the loader may throw
+ * @author R. Kempees
+ */
+public interface CacheLoader<T, E extends Exception> {
+
+    /**
+     * Loads the payload for the cache key of the given context.
+     *
+     * @param context the LoadContext to record item dependencies on
+     * @return T the loaded payload; null if the item does not exist
+     * @throws E if the payload could not be loaded
+     */
+    T load (LoadContext context) throws E;
+}
@@ -0,0 +1,391 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.core.caching.CacheElement;
+import org.dd4t.providers.PayloadCacheProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the provider cache to a local file on graceful shutdown and loads it back on startup, so a restarted service
+ * does not send all its traffic to the broker database until the cache is warm again.
+ * <p/>
+ * Only payloads of the configured cache types are kept (text payloads such as pages, DCPs, links, taxonomies and binary
+ * meta; not binary content), with their expiry and item dependencies. The file is a sequence of length prefixed
+ * records, written and read with sequential FileChannel I/O. It is deleted once loaded, and ignored when it is older
+ * than maxAge seconds, since items may have been published while the service was down.
+ *
+ * @author R. Kempees
+ */
+public class CacheSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheSnapshot.class);
+    private static final int MAGIC = 0xDD4C5A10;
+    private static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int MIN_PURGE_SIZE = 10000;
+    private static final long DEFAULT_MAX_AGE = 3600;
+    private static final CacheSnapshot INSTANCE = new CacheSnapshot();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+    private volatile String file;
+    private volatile Set<String> types = Collections.emptySet();
+    private volatile long maxAge = DEFAULT_MAX_AGE;
+    private volatile int purgeAt = MIN_PURGE_SIZE;
+    private PayloadCacheProvider cacheProvider;
+
+    private CacheSnapshot () {
+
+    }
+
+    public static CacheSnapshot getInstance () {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled () {
+        return enabled;
+    }
+
+    public void setEnabled (final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getFile () {
+        return file;
+    }
+
+    /**
+     * @param file String representing the path of the snapshot file
+     */
+    public void setFile (final String file) {
+        this.file = file;
+    }
+
+    public Set<String> getTypes () {
+        return types;
+    }
+
+    /**
+     * @param types Set of the names of the cache types (e.g. PAGE_CONTENT) to keep in the snapshot
+     */
+    public void setTypes (final Set<String> types) {
+        this.types = new HashSet<>(types);
+    }
+
+    public long getMaxAge () {
+        return maxAge;
+    }
+
+    /**
+     * @param maxAge long the maximum age in seconds of a snapshot file that is still loaded on startup
+     */
+    public void setMaxAge (final long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public PayloadCacheProvider getCacheProvider () {
+        return cacheProvider;
+    }
+
+    public void setCacheProvider (final PayloadCacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    /**
+     * Remembers the key of a stored payload, if its cache type is kept in the snapshot. The payload itself is read
+     * from the cache provider when the snapshot is saved.
+     *
+     * @param type          String representing the cache type of the key
+     * @param publicationId int representing the Publication id of the key
+     * @param key           String representing the cache key
+     * @param dependencies  List of keys of the items the payload depends on
+     * @param cacheProvider the PayloadCacheProvider the payload is stored in
+     * @param expiresAt     long the moment in milliseconds the payload expires
+     */
+    void track (final String type, final int publicationId, final String key, final List<Long> dependencies,
+                final PayloadCacheProvider cacheProvider, final long expiresAt) {
+        if (!enabled || !types.contains(type)) {
+            return;
+        }
+
+        entries.put(key, new Entry(type, publicationId, dependencies, cacheProvider, expiresAt));
+        if (entries.size() > purgeAt) {
+            purge();
+        }
+    }
+
+    /**
+     * Forgets the keys of all stored payloads, e.g. after a flush; payloads stored from now on are tracked again.
+     */
+    void clear () {
+        entries.clear();
+    }
+
+    /**
+     * Loads the snapshot file into the provider cache, then deletes it.
+     */
+    public void load () {
+        if (!enabled) {
+            return;
+        }
+
+        final Path path = Paths.get(file);
+        try {
+            if (!Files.exists(path)) {
+                LOG.info("No cache snapshot found at: {}", path);
+                return;
+            }
+            if (Files.getLastModifiedTime(path).toMillis() < System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(maxAge)) {
+                LOG.info("Ignoring cache snapshot older than {} seconds at: {}", maxAge, path);
+                return;
+            }
+
+            final long start = System.currentTimeMillis();
+            final int count = read(path);
+            LOG.info("Loaded {} cache entries from snapshot: {} in {} ms", count, path, System.currentTimeMillis() - start);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LOG.error("Could not load cache snapshot: {}", path, e);
+        } finally {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOG.warn("Could not delete cache snapshot: {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Writes all cached payloads of the kept cache types to the snapshot file.
+     */
+    public void save () {
+        if (!enabled) {
+            return;
+        }
+
+        final Path path = Paths.get(file);
+        final Path temp = Paths.get(file + ".tmp");
+        try {
+            final long start = System.currentTimeMillis();
+            final int count = write(temp);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.info("Saved {} cache entries to snapshot: {} in {} ms", count, path, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Could not save cache snapshot: {}", path, e);
+        }
+    }
+
+    private int write (final Path path) throws IOException {
+        final long now = System.currentTimeMillis();
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        final ByteArrayOutputStream record = new ByteArrayOutputStream(4096);
+        int count = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(VERSION);
+
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                final CachedPayload<?> cachedPayload = entry.getValue().getCachedPayload(entry.getKey());
+                if (cachedPayload == null || !cachedPayload.isFresh(now) ||
+                        !(cachedPayload.getPayload() instanceof Serializable)) {
+                    continue;
+                }
+
+                record.reset();
+                writeRecord(new DataOutputStream(record), entry.getKey(), entry.getValue(), cachedPayload);
+                final byte[] bytes = record.toByteArray();
+                if (buffer.remaining() < 4 + bytes.length) {
+                    flush(channel, buffer);
+                }
+                if (buffer.remaining() < 4 + bytes.length) {
+                    // larger than the buffer; write it directly
+                    final ByteBuffer large = ByteBuffer.allocate(4 + bytes.length);
+                    large.putInt(bytes.length).put(bytes);
+                    flush(channel, large);
+                } else {
+                    buffer.putInt(bytes.length).put(bytes);
+                }
+                count++;
+            }
+            flush(channel, buffer);
+            channel.force(false);
+        }
+        return count;
+    }
+
+    private static void writeRecord (final DataOutputStream output, final String key, final Entry entry,
+                                     final CachedPayload<?> cachedPayload) throws IOException {
+        output.writeUTF(entry.type);
+        output.writeInt(entry.publicationId);
+        output.writeUTF(key);
+        output.writeLong(cachedPayload.getLoadedAt());
+        output.writeLong(cachedPayload.getExpiresAt());
+        output.writeLong(cachedPayload.getLoadTime());
+        output.writeInt(entry.dependencies.size());
+        for (Long dependency : entry.dependencies) {
+            output.writeLong(dependency);
+        }
+        try (ObjectOutputStream payload = new ObjectOutputStream(output)) {
+            payload.writeObject(cachedPayload.getPayload());
+        }
+    }
+
+    private static void flush (final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private int read (final Path path) throws IOException, ClassNotFoundException {
+        final SingleFlightLoader loader = SingleFlightLoader.getInstance();
+        final long now = System.currentTimeMillis();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+        int count = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!fill(channel, buffer, 8) || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                LOG.warn("Ignoring cache snapshot of unknown format: {}", path);
+                return 0;
+            }
+
+            while (fill(channel, buffer, 4)) {
+                final int length = buffer.getInt();
+                if (length > buffer.capacity()) {
+                    final ByteBuffer larger = ByteBuffer.allocate(length);
+                    larger.put(buffer);
+                    larger.flip();
+                    buffer = larger;
+                }
+                if (!fill(channel, buffer, length)) {
+                    LOG.warn("Cache snapshot is truncated: {}", path);
+                    break;
+                }
+
+                final byte[] record = new byte[length];
+                buffer.get(record);
+                if (readRecord(new DataInputStream(new ByteArrayInputStream(record)), loader, now)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+    Makes sure at least the given number of bytes can be read from the buffer, reading more of the file if needed.
+     */
+    private static boolean fill (final FileChannel channel, final ByteBuffer buffer, final int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < length) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    @SuppressWarnings ("unchecked")
+    private boolean readRecord (final DataInputStream input, final SingleFlightLoader loader, final long now)
+            throws IOException, ClassNotFoundException {
+        final String type = input.readUTF();
+        final int publicationId = input.readInt();
+        final String key = input.readUTF();
+        final long loadedAt = input.readLong();
+        final long expiresAt = input.readLong();
+        final long loadTime = input.readLong();
+        final int size = input.readInt();
+        final List<Long> dependencies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dependencies.add(input.readLong());
+        }
+        final Object payload;
+        try (ObjectInputStream payloadInput = new ObjectInputStream(input)) {
+            payload = payloadInput.readObject();
+        }
+
+        final CachedPayload<Object> cachedPayload = new CachedPayload<>(payload, loadedAt, expiresAt, loadTime);
+        if (!cachedPayload.isFresh(now) || !types.contains(type)) {
+            return false;
+        }
+
+        final CacheElement<CachedPayload<Object>> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
+        loader.store(type, publicationId, key, cacheElement, cachedPayload, dependencies, cacheProvider);
+        return true;
+    }
+
+    /*
+    Drops the keys of expired payloads, which are not saved; a reload tracks the key again.
+     */
+    private synchronized void purge () {
+        if (entries.size() <= purgeAt) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().expiresAt <= now) {
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        purgeAt = Math.max(MIN_PURGE_SIZE, 2 * entries.size());
+    }
+
+    private static class Entry {
+
+        private final String type;
+        private final int publicationId;
+        private final List<Long> dependencies;
+        private final PayloadCacheProvider cacheProvider;
+        private final long expiresAt;
+
+        Entry (final String type, final int publicationId, final List<Long> dependencies,
+               final PayloadCacheProvider cacheProvider, final long expiresAt) {
+            this.type = type;
+            this.publicationId = publicationId;
+            this.dependencies = dependencies;
+            this.cacheProvider = cacheProvider;
+            this.expiresAt = expiresAt;
+        }
+
+        CachedPayload<?> getCachedPayload (final String key) {
+            final CacheElement<?> element = cacheProvider.loadPayloadFromLocalCache(key);
+            if (element.isExpired() || !(element.getPayload() instanceof CachedPayload)) {
+                return null;
+            }
+            return (CachedPayload<?>) element.getPayload();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.dd4t.providers.rs.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the @see CacheTypeStatistics per cache type. Each cache type is registered as an MXBean named
+ * org.dd4t.providers.rs:type=CacheStatistics,cacheType=[type] when it is first used, if JMX is enabled.
+ *
+ * @author R. Kempees
+ */
+public class CacheStatistics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheStatistics.class);
+    private static final String OBJECT_NAME = "org.dd4t.providers.rs:type=CacheStatistics,cacheType=";
+    private static final CacheStatistics INSTANCE = new CacheStatistics();
+
+    private final ConcurrentMap<String, CacheTypeStatistics> statistics = new ConcurrentHashMap<>();
+    private volatile boolean jmxEnabled = true;
+    private volatile String resetToken;
+
+    private CacheStatistics () {
+
+    }
+
+    public static CacheStatistics getInstance () {
+        return INSTANCE;
+    }
+
+    public boolean isJmxEnabled () {
+        return jmxEnabled;
+    }
+
+    public void setJmxEnabled (final boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    public String getResetToken () {
+        return resetToken;
+    }
+
+    /**
+     * @param resetToken String the token a reset through the cache/statistics resource must present; empty to refuse
+     *                   all resets through it
+     */
+    public void setResetToken (final String resetToken) {
+        this.resetToken = resetToken;
+    }
+
+    /**
+     * @param token String the token presented with a reset request
+     * @return boolean true if a reset token is configured and the given token matches it
+     */
+    public boolean isResetAllowed (final String token) {
+        final String expected = resetToken;
+        if (expected == null || expected.isEmpty() || token == null) {
+            return false;
+        }
+        // compared in constant time, so the token can't be guessed from response times
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param type String representing the cache type
+     * @return CacheTypeStatistics of the given cache type, created when it is first used
+     */
+    public CacheTypeStatistics get (final String type) {
+        CacheTypeStatistics typeStatistics = statistics.get(type);
+        if (typeStatistics == null) {
+            typeStatistics = new CacheTypeStatistics(type);
+            final CacheTypeStatistics existing = statistics.putIfAbsent(type, typeStatistics);
+            if (existing != null) {
+                return existing;
+            }
+            if (jmxEnabled) {
+                register(typeStatistics);
+            }
+        }
+        return typeStatistics;
+    }
+
+    /**
+     * @param type String representing the cache type
+     * @return CacheTypeStatistics of the given cache type; or null, if it was not used yet
+     */
+    public CacheTypeStatistics find (final String type) {
+        return statistics.get(type);
+    }
+
+    /**
+     * Records which provider loads the given cache type.
+     *
+     * @param type     String representing the cache type
+     * @param provider String representing the provider name
+     */
+    public void setProvider (final String type, final String provider) {
+        final CacheTypeStatistics typeStatistics = get(type);
+        if (typeStatistics.getProvider() == null) {
+            typeStatistics.setProvider(provider);
+        }
+    }
+
+    /**
+     * @return Collection of the statistics of all cache types used so far, ordered by cache type
+     */
+    public Collection<CacheTypeStatistics> getAll () {
+        final List<CacheTypeStatistics> all = new ArrayList<>(statistics.values());
+        Collections.sort(all, (first, second) -> first.getCacheType().compareTo(second.getCacheType()));
+        return all;
+    }
+
+    /**
+     * Counts a hit of the given cache type in a cache tier outside the provider cache, e.g. the @see
+     * OffHeapBinaryStore.
+     *
+     * @param type String representing the cache type
+     */
+    public void hit (final String type) {
+        get(type).hit();
+    }
+
+    /**
+     * Resets the counters of all cache types.
+     */
+    public void reset () {
+        for (CacheTypeStatistics typeStatistics : statistics.values()) {
+            typeStatistics.reset();
+        }
+    }
+
+    /**
+     * Unregisters all MXBeans, so a redeployed service can register its own.
+     */
+    public void shutdown () {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (String type : statistics.keySet()) {
+            try {
+                final ObjectName name = new ObjectName(OBJECT_NAME + ObjectName.quote(type));
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                LOG.warn("Could not unregister cache statistics of: {}", type, e);
+            }
+        }
+    }
+
+    private static void register (final CacheTypeStatistics typeStatistics) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME + ObjectName.quote(typeStatistics.getCacheType()));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(typeStatistics, name);
+        } catch (JMException | SecurityException e) {
+            LOG.warn("Could not register cache statistics of: {}", typeStatistics.getCacheType(), e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.dd4t.providers.rs.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Cache settings per cache type (a CacheType or RsCacheType name), read from properties of the form
+ * providers.cache.type.[TYPE].[setting], e.g. providers.cache.type.TAXONOMY.ttl=43200. Supported settings:
+ * <ul>
+ * <li>ttl: seconds a payload is fresh (@see SingleFlightLoader#setTimeToLive)</li>
+ * <li>tti: seconds a payload stays cached without being requested; 0 for no idle expiry</li>
+ * <li>negativettl: seconds a miss is remembered (@see NegativeCache#setTimeToLive)</li>
+ * <li>budget: heap budget in bytes (@see CacheBudget)</li>
+ * </ul>
+ * Cache types without a setting use the global value. The ttl and tti are kept by @see CachedPayload, while the
+ * PayloadCacheProvider stores every element with the TTL and TTI of its ehcache region. Those still apply on top, so a
+ * per type value above them is ignored: ehcache drops the element first. The shipped region keeps elements for a day
+ * without idle expiry, so types can be kept fresh longer than the global providers.cache.ttl up to that.
+ *
+ * @author R. Kempees
+ */
+public class CacheTypeSettings {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheTypeSettings.class);
+    private static final String PREFIX = "providers.cache.type.";
+    private static final CacheTypeSettings INSTANCE = new CacheTypeSettings();
+
+    private volatile Map<String, Map<String, Long>> settings = Collections.emptyMap();
+
+    private CacheTypeSettings () {
+
+    }
+
+    public static CacheTypeSettings getInstance () {
+        return INSTANCE;
+    }
+
+    /**
+     * @param properties Properties to read the providers.cache.type.* settings from; other properties are ignored
+     */
+    public void setProperties (final Properties properties) {
+        final Map<String, Map<String, Long>> parsed = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (!name.startsWith(PREFIX)) {
+                continue;
+            }
+
+            final String setting = name.substring(PREFIX.length());
+            final int separator = setting.lastIndexOf('.');
+            final String value = properties.getProperty(name).trim();
+            if (separator <= 0 || value.isEmpty()) {
+                continue;
+            }
+            try {
+                final String type = setting.substring(0, separator);
+                Map<String, Long> typeSettings = parsed.get(type);
+                if (typeSettings == null) {
+                    typeSettings = new HashMap<>();
+                    parsed.put(type, typeSettings);
+                }
+                typeSettings.put(setting.substring(separator + 1).toLowerCase(), Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                LOG.warn("Ignoring cache setting {} with invalid value: {}", name, value);
+            }
+        }
+        LOG.info("Cache settings per type: {}", parsed);
+        this.settings = parsed;
+    }
+
+    /**
+     * @param type         String representing the cache type
+     * @param defaultValue long the global time to live in seconds
+     * @return long the time to live in seconds of the given cache type
+     */
+    public long getTimeToLive (final String type, final long defaultValue) {
+        return get(type, "ttl", defaultValue);
+    }
+
+    /**
+     * @param type         String representing the cache type
+     * @param defaultValue long the global time to idle in seconds
+     * @return long the time to idle in seconds of the given cache type
+     */
+    public long getTimeToIdle (final String type, final long defaultValue) {
+        return get(type, "tti", defaultValue);
+    }
+
+    /**
+     * @param type         String representing the cache type
+     * @param defaultValue long the global negative cache time to live in seconds
+     * @return long the negative cache time to live in seconds of the given cache type
+     */
+    public long getNegativeTimeToLive (final String type, final long defaultValue) {
+        return get(type, "negativettl", defaultValue);
+    }
+
+    /**
+     * @param type         String representing the cache type
+     * @param defaultValue long the budget in bytes configured otherwise
+     * @return long the budget in bytes of the given cache type
+     */
+    public long getBudget (final String type, final long defaultValue) {
+        return get(type, "budget", defaultValue);
+    }
+
+    private long get (final String type, final String setting, final long defaultValue) {
+        final Map<String, Long> typeSettings = settings.get(type);
+        if (typeSettings == null) {
+            return defaultValue;
+        }
+        final Long value = typeSettings.get(setting);
+        return value == null ? defaultValue : value;
+    }
+}
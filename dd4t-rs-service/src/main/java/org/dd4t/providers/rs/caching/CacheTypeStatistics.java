@@ -0,0 +1,196 @@
+package org.dd4t.providers.rs.caching;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and load time histogram of one cache type. Counters are striped LongAdders, so recording a hit from many
+ * request threads does not contend on a single cache line.
+ * <p/>
+ * Load times are counted in buckets with the upper bounds in milliseconds of @see #getLoadTimeBuckets; the last
+ * bucket counts all slower loads.
+ *
+ * @author R. Kempees
+ */
+public class CacheTypeStatistics implements CacheTypeStatisticsMXBean {
+
+    private static final long[] LOAD_TIME_BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final String cacheType;
+    private volatile String provider;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+    private final AtomicLong maxLoadTime = new AtomicLong();
+    private final LongAdder[] histogram = new LongAdder[LOAD_TIME_BUCKETS.length + 1];
+
+    CacheTypeStatistics (final String cacheType) {
+        this.cacheType = cacheType;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    void setProvider (final String provider) {
+        this.provider = provider;
+    }
+
+    void hit () {
+        hits.increment();
+    }
+
+    void staleHit () {
+        staleHits.increment();
+    }
+
+    void earlyRefresh () {
+        earlyRefreshes.increment();
+    }
+
+    void miss () {
+        misses.increment();
+    }
+
+    void negativeHit () {
+        negativeHits.increment();
+    }
+
+    void evicted () {
+        evictions.increment();
+    }
+
+    /**
+     * @param nanos   long the duration of the load in nanoseconds
+     * @param success boolean false if the loader threw an exception
+     */
+    void loaded (final long nanos, final boolean success) {
+        loads.increment();
+        if (!success) {
+            loadFailures.increment();
+        }
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        loadTime.add(millis);
+        long max = maxLoadTime.get();
+        while (millis > max && !maxLoadTime.compareAndSet(max, millis)) {
+            max = maxLoadTime.get();
+        }
+
+        int bucket = 0;
+        while (bucket < LOAD_TIME_BUCKETS.length && millis > LOAD_TIME_BUCKETS[bucket]) {
+            bucket++;
+        }
+        histogram[bucket].increment();
+    }
+
+    @Override
+    public String getCacheType () {
+        return cacheType;
+    }
+
+    @Override
+    public String getProvider () {
+        return provider;
+    }
+
+    @Override
+    public long getHits () {
+        return hits.sum();
+    }
+
+    @Override
+    public long getStaleHits () {
+        return staleHits.sum();
+    }
+
+    @Override
+    public long getEarlyRefreshes () {
+        return earlyRefreshes.sum();
+    }
+
+    @Override
+    public long getMisses () {
+        return misses.sum();
+    }
+
+    @Override
+    public long getNegativeHits () {
+        return negativeHits.sum();
+    }
+
+    @Override
+    public long getLoads () {
+        return loads.sum();
+    }
+
+    @Override
+    public long getLoadFailures () {
+        return loadFailures.sum();
+    }
+
+    @Override
+    public long getEvictions () {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getPayloadBytes () {
+        return CacheBudget.getInstance().getWeight(cacheType);
+    }
+
+    @Override
+    public double getHitRatio () {
+        final long served = getHits() + getStaleHits() + getNegativeHits();
+        final long requests = served + getMisses();
+        return requests == 0 ? 0 : (double) served / requests;
+    }
+
+    @Override
+    public double getAverageLoadTime () {
+        final long count = getLoads();
+        return count == 0 ? 0 : (double) loadTime.sum() / count;
+    }
+
+    @Override
+    public long getMaxLoadTime () {
+        return maxLoadTime.get();
+    }
+
+    @Override
+    public long[] getLoadTimeBuckets () {
+        return LOAD_TIME_BUCKETS.clone();
+    }
+
+    @Override
+    public long[] getLoadTimeHistogram () {
+        final long[] counts = new long[histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public void reset () {
+        hits.reset();
+        staleHits.reset();
+        earlyRefreshes.reset();
+        misses.reset();
+        negativeHits.reset();
+        loads.reset();
+        loadFailures.reset();
+        evictions.reset();
+        loadTime.reset();
+        maxLoadTime.set(0);
+        for (LongAdder bucket : histogram) {
+            bucket.reset();
+        }
+    }
+}
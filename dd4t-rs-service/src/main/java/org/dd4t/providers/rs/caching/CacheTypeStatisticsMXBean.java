@@ -0,0 +1,43 @@
+package org.dd4t.providers.rs.caching;
+
+/**
+ * JMX view on the @see CacheTypeStatistics of one cache type.
+ *
+ * @author R. Kempees
+ */
+public interface CacheTypeStatisticsMXBean {
+
+    String getCacheType ();
+
+    String getProvider ();
+
+    long getHits ();
+
+    long getStaleHits ();
+
+    long getEarlyRefreshes ();
+
+    long getMisses ();
+
+    long getNegativeHits ();
+
+    long getLoads ();
+
+    long getLoadFailures ();
+
+    long getEvictions ();
+
+    long getPayloadBytes ();
+
+    double getHitRatio ();
+
+    double getAverageLoadTime ();
+
+    long getMaxLoadTime ();
+
+    long[] getLoadTimeBuckets ();
+
+    long[] getLoadTimeHistogram ();
+
+    void reset ();
+}
@@ -0,0 +1,176 @@
+package org.dd4t.providers.rs.caching;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cache envelope around a provider payload. Besides the payload it keeps the moment the payload was loaded and the
+ * moment it stops being fresh, so an expired payload can still be served while it is being reloaded, and how long
+ * the load took, so a payload that is expensive to load can be refreshed early. The moment it was last requested is
+ * kept for idle expiry.
+ * <p/>
+ * Variants of the payload, such as the payload compressed with another codec, are kept by name next to it, so they
+ * are evicted, invalidated and replaced together with it (@see SingleFlightLoader#getVariant).
+ *
+ * @param <T> the payload type
+ * @author R. Kempees
+ */
+public class CachedPayload<T> implements Serializable {
+
+    private static final long serialVersionUID = 2148915740396871326L;
+    private static final int TOUCH_INTERVALS = 4;
+
+    private final T payload;
+    private final long loadedAt;
+    private final long expiresAt;
+    private final long loadTime;
+    private final Map<String, byte[]> variants;
+    private volatile long accessedAt;
+
+    public CachedPayload (final T payload, final long loadedAt, final long expiresAt) {
+        this(payload, loadedAt, expiresAt, 0);
+    }
+
+    public CachedPayload (final T payload, final long loadedAt, final long expiresAt, final long loadTime) {
+        this.payload = payload;
+        this.loadedAt = loadedAt;
+        this.expiresAt = expiresAt;
+        this.loadTime = loadTime;
+        this.variants = Collections.emptyMap();
+        this.accessedAt = loadedAt;
+    }
+
+    private CachedPayload (final CachedPayload<T> cachedPayload, final Map<String, byte[]> variants) {
+        this.payload = cachedPayload.payload;
+        this.loadedAt = cachedPayload.loadedAt;
+        this.expiresAt = cachedPayload.expiresAt;
+        this.loadTime = cachedPayload.loadTime;
+        this.variants = variants;
+        this.accessedAt = cachedPayload.accessedAt;
+    }
+
+    public T getPayload () {
+        return payload;
+    }
+
+    public long getLoadedAt () {
+        return loadedAt;
+    }
+
+    public long getExpiresAt () {
+        return expiresAt;
+    }
+
+    /**
+     * @return long the number of milliseconds it took to load the payload
+     */
+    public long getLoadTime () {
+        return loadTime;
+    }
+
+    /**
+     * @param name String representing the name of the variant, e.g. the name of the codec it is compressed with
+     * @return byte[] the variant with the given name; null if it was not added
+     */
+    public byte[] getVariant (final String name) {
+        return variants == null ? null : variants.get(name);
+    }
+
+    /**
+     * @return long the number of bytes of all variants of the payload
+     */
+    public long getVariantWeight () {
+        long weight = 0;
+        if (variants != null) {
+            for (byte[] variant : variants.values()) {
+                weight += variant.length;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @param name    String representing the name of the variant, e.g. the name of the codec it is compressed with
+     * @param variant byte[] the variant
+     * @return CachedPayload with the same payload and times as this one, and the given variant next to its own
+     */
+    public CachedPayload<T> withVariant (final String name, final byte[] variant) {
+        final Map<String, byte[]> result = variants == null ? new HashMap<String, byte[]>() : new HashMap<>(variants);
+        result.put(name, variant);
+        return new CachedPayload<>(this, Collections.unmodifiableMap(result));
+    }
+
+    public long getAccessedAt () {
+        return accessedAt;
+    }
+
+    /**
+     * Records a request of the payload on this instance only. A cache provider may hand out a copy of the payload on
+     * every read, so the request only counts for idle expiry once the payload is stored back (see @see
+     * CacheEntries#touch).
+     *
+     * @param now long representing the current time in milliseconds
+     */
+    public void touch (final long now) {
+        if (now > accessedAt) {
+            accessedAt = now;
+        }
+    }
+
+    /**
+     * @param now        long representing the current time in milliseconds
+     * @param timeToIdle long representing the time in milliseconds a payload is kept without being requested; 0 for
+     *                   no idle expiry
+     * @return boolean true if the payload was not requested for timeToIdle
+     */
+    public boolean isIdle (final long now, final long timeToIdle) {
+        return timeToIdle > 0 && now - accessedAt >= timeToIdle;
+    }
+
+    /**
+     * Storing the payload back on every request would cost a cache write per hit, so a request is only recorded once
+     * a quarter of timeToIdle has passed since the last recorded one. A payload may therefore go idle up to a quarter
+     * of timeToIdle early.
+     *
+     * @param now        long representing the current time in milliseconds
+     * @param timeToIdle long representing the time in milliseconds a payload is kept without being requested; 0 for
+     *                   no idle expiry
+     * @return boolean true if the request at now should be recorded
+     */
+    public boolean isTouchDue (final long now, final long timeToIdle) {
+        return timeToIdle > 0 && now - accessedAt >= timeToIdle / TOUCH_INTERVALS;
+    }
+
+    public boolean isFresh (final long now) {
+        return now < expiresAt;
+    }
+
+    /**
+     * @param now      long representing the current time in milliseconds
+     * @param maxStale long representing the maximum time in milliseconds a payload may be served after it expired
+     * @return boolean true if the payload is expired for no longer than maxStale
+     */
+    public boolean isServableStale (final long now, final long maxStale) {
+        return now - expiresAt <= maxStale;
+    }
+
+    /**
+     * Probabilistic early expiry (XFetch): a fresh payload is due for refresh when now - loadTime * beta * ln(random)
+     * reaches its expiry. The chance grows as the payload gets closer to expiry, and is higher for payloads that took
+     * long to load, so reloads of entries that were loaded together are spread out instead of happening all at once.
+     *
+     * @param now  long representing the current time in milliseconds
+     * @param beta double scaling the eagerness of early refreshes; 0 to disable them
+     * @return boolean true if the payload should be refreshed now
+     */
+    public boolean isEarlyRefreshDue (final long now, final double beta) {
+        if (beta <= 0 || loadTime <= 0 || expiresAt == Long.MAX_VALUE) {
+            return false;
+        }
+        final double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return now - loadTime * beta * Math.log(random) >= expiresAt;
+    }
+}
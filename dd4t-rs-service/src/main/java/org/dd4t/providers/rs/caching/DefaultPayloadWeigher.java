@@ -0,0 +1,52 @@
+package org.dd4t.providers.rs.caching;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Weighs the payload types the providers cache: byte arrays (compressed pages, DCPs, binary meta and taxonomies, and
+ * binary content), Strings (links, custom meta queries), Integers and the related item maps of taxonomies. Sizes are
+ * estimates of a 64-bit JVM with compressed references; they only need to be good enough to keep the cache types
+ * apart.
+ *
+ * @author R. Kempees
+ */
+public class DefaultPayloadWeigher implements PayloadWeigher {
+
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long STRING_OVERHEAD = 40;
+    private static final long ENTRY_OVERHEAD = 32;
+    private static final long ELEMENT_OVERHEAD = 64;
+
+    @Override
+    public long weigh (final String key, final Object payload) {
+        return ELEMENT_OVERHEAD + weighObject(key) + weighObject(payload);
+    }
+
+    private static long weighObject (final Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return STRING_OVERHEAD + 2L * ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return OBJECT_OVERHEAD + ((byte[]) value).length;
+        }
+        if (value instanceof Map) {
+            long weight = OBJECT_OVERHEAD;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                weight += ENTRY_OVERHEAD + weighObject(entry.getKey()) + weighObject(entry.getValue());
+            }
+            return weight;
+        }
+        if (value instanceof Collection) {
+            long weight = OBJECT_OVERHEAD;
+            for (Object element : (Collection<?>) value) {
+                weight += ENTRY_OVERHEAD + weighObject(element);
+            }
+            return weight;
+        }
+        return OBJECT_OVERHEAD;
+    }
+}
@@ -0,0 +1,206 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.providers.PayloadCacheProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index of the cache entries that depend on each Tridion item, as recorded through @see LoadContext#dependsOn when
+ * the entries were stored. Invalidating an item expires all its dependent cache entries, by key through the cache
+ * provider they are stored in, so they are reloaded on the next request.
+ * <p/>
+ * Each entry keeps the moment its payload expires; entries whose payload can't be served any longer, not even stale,
+ * are purged once the index grows beyond maxEntries. If that leaves more than maxEntries, live entries are dropped
+ * as well, and expired along with it: a publish could no longer reach them.
+ *
+ * @author R. Kempees
+ */
+public class DependencyIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DependencyIndex.class);
+    private static final int DEFAULT_MAX_ENTRIES = 200000;
+    private static final DependencyIndex INSTANCE = new DependencyIndex();
+
+    private final ConcurrentMap<Long, ConcurrentMap<String, Dependent>> items = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private DependencyIndex () {
+
+    }
+
+    public static DependencyIndex getInstance () {
+        return INSTANCE;
+    }
+
+    public int getMaxEntries () {
+        return maxEntries;
+    }
+
+    public void setMaxEntries (final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getSize () {
+        return size.get();
+    }
+
+    /**
+     * Records that the cache entry stored under the given key depends on all given items.
+     *
+     * @param itemKeys      Collection of item keys, as returned by @see #getItemKey
+     * @param key           String representing the cache key
+     * @param cacheProvider the PayloadCacheProvider the entry is stored in
+     * @param expiresAt     long the moment in milliseconds the payload of the entry expires, as in @see
+     *                      CachedPayload#getExpiresAt
+     */
+    public void add (final Collection<Long> itemKeys, final String key, final PayloadCacheProvider cacheProvider,
+                     final long expiresAt) {
+        final Dependent dependent = new Dependent(cacheProvider, expiresAt);
+        for (Long itemKey : itemKeys) {
+            add(itemKey, key, dependent);
+        }
+    }
+
+    /**
+     * @param itemKey long representing the key of an item in the index
+     * @return int the Publication id of the item
+     */
+    public static int getPublicationId (final long itemKey) {
+        return (int) (itemKey >>> 32);
+    }
+
+    /**
+     * @param itemKey long representing the key of an item in the index
+     * @return int the item id
+     */
+    public static int getItemId (final long itemKey) {
+        return (int) itemKey;
+    }
+
+    private void add (final Long itemKey, final String key, final Dependent dependent) {
+        ConcurrentMap<String, Dependent> keys = items.get(itemKey);
+        if (keys == null) {
+            keys = new ConcurrentHashMap<>();
+            final ConcurrentMap<String, Dependent> existing = items.putIfAbsent(itemKey, keys);
+            if (existing != null) {
+                keys = existing;
+            }
+        }
+
+        if (keys.put(key, dependent) == null && size.incrementAndGet() > maxEntries) {
+            purge();
+        }
+    }
+
+    /**
+     * Expires all cache entries that depend on the given item.
+     *
+     * @param publicationId int representing the Publication id of the item
+     * @param itemId        int representing the item id
+     * @return int the number of cache entries expired
+     */
+    public int invalidate (final int publicationId, final int itemId) {
+        final Map<String, Dependent> keys = items.remove(getItemKey(publicationId, itemId));
+        if (keys == null) {
+            return 0;
+        }
+
+        int count = 0;
+        for (Map.Entry<String, Dependent> entry : keys.entrySet()) {
+            size.decrementAndGet();
+            if (CacheEntries.expire(entry.getValue().cacheProvider, entry.getKey(), CacheEntries.ANY_PAYLOAD)) {
+                LOG.debug("Invalidated cache entry with key: {}", entry.getKey());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Expires all cache entries in the index.
+     */
+    public void clear () {
+        final Iterator<ConcurrentMap<String, Dependent>> iterator = items.values().iterator();
+        while (iterator.hasNext()) {
+            for (Map.Entry<String, Dependent> entry : iterator.next().entrySet()) {
+                size.decrementAndGet();
+                CacheEntries.expire(entry.getValue().cacheProvider, entry.getKey(), CacheEntries.ANY_PAYLOAD);
+            }
+            iterator.remove();
+        }
+    }
+
+    /*
+    Drops the entries whose payload expired longer than maxStale ago, so it is not served any more and needs no
+    invalidation. A reload adds the entry again. When still over maxEntries, live entries are expired and dropped until
+    a quarter of maxEntries is free, so the next purge is not due on the next add.
+     */
+    private synchronized void purge () {
+        if (size.get() <= maxEntries) {
+            return;
+        }
+
+        final long maxStale = TimeUnit.SECONDS.toMillis(SingleFlightLoader.getInstance().getMaxStale());
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<Long, ConcurrentMap<String, Dependent>> item : items.entrySet()) {
+            final Iterator<Dependent> dependents = item.getValue().values().iterator();
+            while (dependents.hasNext()) {
+                if (dependents.next().isGone(now, maxStale)) {
+                    dependents.remove();
+                    size.decrementAndGet();
+                }
+            }
+            if (item.getValue().isEmpty()) {
+                items.remove(item.getKey(), item.getValue());
+            }
+        }
+
+        final int target = maxEntries - maxEntries / 4;
+        int expired = 0;
+        final Iterator<ConcurrentMap<String, Dependent>> iterator = items.values().iterator();
+        while (size.get() > target && iterator.hasNext()) {
+            final Iterator<Map.Entry<String, Dependent>> dependents = iterator.next().entrySet().iterator();
+            while (size.get() > target && dependents.hasNext()) {
+                final Map.Entry<String, Dependent> entry = dependents.next();
+                dependents.remove();
+                size.decrementAndGet();
+                CacheEntries.expire(entry.getValue().cacheProvider, entry.getKey(), CacheEntries.ANY_PAYLOAD);
+                expired++;
+            }
+        }
+        LOG.debug("Purged dependency index to {} entries; expired {} live cache entries", size.get(), expired);
+    }
+
+    /**
+     * @param publicationId int representing the Publication id of the item
+     * @param itemId        int representing the item id
+     * @return long the key of the item in the index
+     */
+    public static long getItemKey (final int publicationId, final int itemId) {
+        return ((long) publicationId << 32) | (itemId & 0xFFFFFFFFL);
+    }
+
+    private static class Dependent {
+
+        private final PayloadCacheProvider cacheProvider;
+        private final long expiresAt;
+
+        Dependent (final PayloadCacheProvider cacheProvider, final long expiresAt) {
+            this.cacheProvider = cacheProvider;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isGone (final long now, final long maxStale) {
+            return expiresAt < now && now - expiresAt > maxStale;
+        }
+    }
+}
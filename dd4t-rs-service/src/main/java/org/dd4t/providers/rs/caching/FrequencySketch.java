@@ -0,0 +1,101 @@
+package org.dd4t.providers.rs.caching;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Approximate access frequency of cache keys (TinyLFU). A count-min sketch of four rows of counters that saturate at
+ * 15, so the frequency of any number of keys is tracked in a fixed amount of memory. Once the number of recorded
+ * accesses reaches ten times the width of the sketch, all counters are halved, so old popularity fades out.
+ * <p/>
+ * Counters are updated without locking. A lost update only makes a frequency estimate slightly lower. The number of
+ * recorded accesses is counted atomically, so concurrent increments can't postpone the halving.
+ *
+ * @author R. Kempees
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb8ae4c8d, 0x3f1ea85d, 0x6b43a9b5};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int resetAt;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param width int the number of counters per row; rounded up to a power of two. Should be about the number of
+     *              entries the cache holds. The sketch takes four bytes per counter of a row, e.g. 1 MB for 262144
+     */
+    public FrequencySketch (final int width) {
+        final int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.counters = new byte[DEPTH][size];
+        this.mask = size - 1;
+        this.resetAt = 10 * size;
+    }
+
+    /**
+     * @param key String representing the cache key
+     * @return int the estimated number of recent accesses of the key, at most 15
+     */
+    public int frequency (final String key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, counters[i][index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of the given key.
+     *
+     * @param key String representing the cache key
+     */
+    public void increment (final String key) {
+        final int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            final int index = index(hash, i);
+            if (counters[i][index] < MAX_COUNT) {
+                counters[i][index]++;
+                added = true;
+            }
+        }
+        if (added && additions.incrementAndGet() >= resetAt) {
+            reset();
+        }
+    }
+
+    private synchronized void reset () {
+        final int recorded = additions.get();
+        if (recorded < resetAt) {
+            return;
+        }
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        // additions recorded while halving are kept
+        additions.addAndGet(-(recorded - recorded / 2));
+    }
+
+    /**
+     * @return int the number of accesses recorded since the last halving, halved along with the counters
+     */
+    int getAdditions () {
+        return additions.get();
+    }
+
+    private int index (final int hash, final int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static int spread (final int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 15);
+    }
+}
@@ -0,0 +1,104 @@
+package org.dd4t.providers.rs.caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects what a @see CacheLoader learns about a payload while loading it: the Tridion items the cache entry depends
+ * on, whether the item exists, and whether the payload may be cached at all.
+ *
+ * @author R. Kempees
+ */
+public class LoadContext {
+
+    private final String type;
+    private final int publicationId;
+    private final String key;
+    private boolean cacheable = true;
+    private boolean found = true;
+    private long timeToLive;
+    private List<Long> dependencies = Collections.emptyList();
+
+    LoadContext (final String type, final int publicationId, final String key) {
+        this.type = type;
+        this.publicationId = publicationId;
+        this.key = key;
+    }
+
+    public String getType () {
+        return type;
+    }
+
+    public int getPublicationId () {
+        return publicationId;
+    }
+
+    public String getKey () {
+        return key;
+    }
+
+    /**
+     * Links the cache entry to a Tridion item, so it is invalidated when that item is (un-)published. May be called
+     * for several items, e.g. for every component in a query result; the first item is the one the cache entry is
+     * stored with in the provider cache.
+     *
+     * @param publicationId int representing the Publication id of the item
+     * @param itemId        int representing the item id
+     */
+    public void dependsOn (final int publicationId, final int itemId) {
+        if (dependencies.isEmpty()) {
+            dependencies = new ArrayList<>();
+        }
+        dependencies.add(DependencyIndex.getItemKey(publicationId, itemId));
+    }
+
+    /**
+     * Limits the freshness of the payload to the given number of seconds, below the timeToLive of its cache type. For
+     * payloads whose dependencies are not all recorded, so a publish may not invalidate them.
+     *
+     * @param seconds long the maximum number of seconds the payload is fresh
+     */
+    public void expireAfter (final long seconds) {
+        if (seconds > 0 && (timeToLive <= 0 || seconds < timeToLive)) {
+            timeToLive = seconds;
+        }
+    }
+
+    /**
+     * Marks the requested item as not existing. The miss is kept in the @see NegativeCache instead of the provider
+     * cache.
+     */
+    public void notFound () {
+        this.found = false;
+    }
+
+    /**
+     * Marks the loaded payload as not cacheable. The next request for the same key loads it again.
+     */
+    public void skipCache () {
+        this.cacheable = false;
+    }
+
+    boolean isCacheable () {
+        return cacheable;
+    }
+
+    boolean isFound () {
+        return found;
+    }
+
+    /**
+     * @return long the maximum number of seconds the payload is fresh, as set by @see #expireAfter; 0 if not limited
+     */
+    long getTimeToLive () {
+        return timeToLive;
+    }
+
+    /**
+     * @return List of the items the cache entry depends on, as keys of the @see DependencyIndex
+     */
+    List<Long> getDependencies () {
+        return dependencies;
+    }
+}
@@ -0,0 +1,204 @@
+package org.dd4t.providers.rs.caching;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers cache keys for which the Content Delivery database returned nothing, so repeated requests for missing
+ * pages, binaries or DCPs are answered without a database query. Misses are kept for a short timeToLive, separately
+ * from the provider cache, per Publication and cache type region. Each region is fronted by a Bloom filter, so
+ * lookups of keys that never missed do not touch the miss table. The timeToLive can be set per cache type in @see
+ * CacheTypeSettings.
+ * <p/>
+ * A publish can make any missing item appear, so all regions of a Publication are dropped when an item in it is
+ * (un-)published.
+ *
+ * @author R. Kempees
+ */
+public class NegativeCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NegativeCache.class);
+    private static final long DEFAULT_TIME_TO_LIVE = 30;
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final NegativeCache INSTANCE = new NegativeCache();
+
+    private final ConcurrentMap<Integer, ConcurrentMap<String, Region>> publications = new ConcurrentHashMap<>();
+    private final CacheTypeSettings typeSettings = CacheTypeSettings.getInstance();
+    private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private NegativeCache () {
+
+    }
+
+    public static NegativeCache getInstance () {
+        return INSTANCE;
+    }
+
+    public long getTimeToLive () {
+        return timeToLive;
+    }
+
+    /**
+     * @param timeToLive long the number of seconds a miss is remembered; 0 to disable the negative cache
+     */
+    public void setTimeToLive (final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public int getMaxEntries () {
+        return maxEntries;
+    }
+
+    /**
+     * @param maxEntries int the number of misses a region adds before it starts a new generation; also the number
+     *                   of insertions each Bloom filter is sized for. A region holds up to twice as many misses
+     */
+    public void setMaxEntries (final int maxEntries) {
+        this.maxEntries = maxEntries;
+        clear();
+    }
+
+    /**
+     * @param type          String representing the cache type of the key
+     * @param publicationId int representing the Publication id of the key
+     * @param key           String representing the cache key
+     * @return boolean true if the key was recently found missing
+     */
+    public boolean isMiss (final String type, final int publicationId, final String key) {
+        final ConcurrentMap<String, Region> regions = publications.get(publicationId);
+        final Region region = regions == null ? null : regions.get(type);
+        return region != null && region.isMiss(key, System.currentTimeMillis());
+    }
+
+    /**
+     * Remembers the given key as missing for the timeToLive of its cache type.
+     *
+     * @param type          String representing the cache type of the key
+     * @param publicationId int representing the Publication id of the key
+     * @param key           String representing the cache key
+     */
+    public void addMiss (final String type, final int publicationId, final String key) {
+        final long typeTimeToLive = typeSettings.getNegativeTimeToLive(type, timeToLive);
+        if (typeTimeToLive <= 0) {
+            return;
+        }
+
+        ConcurrentMap<String, Region> regions = publications.get(publicationId);
+        if (regions == null) {
+            regions = new ConcurrentHashMap<>();
+            final ConcurrentMap<String, Region> existing = publications.putIfAbsent(publicationId, regions);
+            if (existing != null) {
+                regions = existing;
+            }
+        }
+
+        Region region = regions.get(type);
+        if (region == null) {
+            final Region fresh = new Region(maxEntries);
+            region = regions.putIfAbsent(type, fresh);
+            if (region == null) {
+                LOG.debug("Started negative cache region: {} for publication: {}", type, publicationId);
+                region = fresh;
+            }
+        }
+
+        region.add(key, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(typeTimeToLive));
+    }
+
+    /**
+     * Forgets all misses in the given Publication.
+     *
+     * @param publicationId int representing the Publication id
+     */
+    public void clear (final int publicationId) {
+        if (publications.remove(publicationId) != null) {
+            LOG.debug("Cleared negative cache for publication: {}", publicationId);
+        }
+    }
+
+    /**
+     * Forgets all misses.
+     */
+    public void clear () {
+        publications.clear();
+    }
+
+    /*
+    Misses of one cache type in one Publication. Bloom filters can't forget keys, so misses are kept in two
+    generations: when the current one is full, it becomes the previous one, whose misses are still answered until the
+    next rotation, and the oldest generation is dropped. A full region thus never loses the misses added last.
+    Puts on a Bloom filter are not thread-safe, so adds are serialized per region; lookups are not locked.
+     */
+    private static class Region {
+
+        private final int maxEntries;
+        private volatile Generation current;
+        private volatile Generation previous;
+
+        Region (final int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.current = new Generation(maxEntries);
+        }
+
+        boolean isMiss (final String key, final long now) {
+            final Long expiresAt = current.get(key);
+            if (expiresAt != null) {
+                return current.isMiss(key, expiresAt, now);
+            }
+            final Generation older = previous;
+            if (older == null) {
+                return false;
+            }
+            final Long olderExpiresAt = older.get(key);
+            return olderExpiresAt != null && older.isMiss(key, olderExpiresAt, now);
+        }
+
+        synchronized void add (final String key, final long expiresAt) {
+            if (current.isFull(maxEntries)) {
+                previous = current;
+                current = new Generation(maxEntries);
+                LOG.debug("Rotated negative cache region of {} misses", maxEntries);
+            }
+            current.add(key, expiresAt);
+        }
+    }
+
+    private static class Generation {
+
+        private final BloomFilter<CharSequence> filter;
+        private final ConcurrentMap<String, Long> misses = new ConcurrentHashMap<>();
+
+        Generation (final int maxEntries) {
+            this.filter = BloomFilter.create(Funnels.stringFunnel(), maxEntries, FALSE_POSITIVE_PROBABILITY);
+        }
+
+        Long get (final String key) {
+            return filter.mightContain(key) ? misses.get(key) : null;
+        }
+
+        boolean isMiss (final String key, final Long expiresAt, final long now) {
+            if (expiresAt <= now) {
+                misses.remove(key, expiresAt);
+                return false;
+            }
+            return true;
+        }
+
+        void add (final String key, final long expiresAt) {
+            filter.put(key);
+            misses.put(key, expiresAt);
+        }
+
+        boolean isFull (final int maxEntries) {
+            return misses.size() >= maxEntries;
+        }
+    }
+}
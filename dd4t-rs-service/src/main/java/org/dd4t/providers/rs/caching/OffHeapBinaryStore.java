@@ -0,0 +1,245 @@
+package org.dd4t.providers.rs.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second cache tier for large binary content. Binaries of at least threshold bytes are kept in direct ByteBuffers
+ * outside the Java heap instead of as byte[] in the provider cache, so they don't end up as humongous allocations
+ * in the old generation. Only the index (key, size, dependency and expiry) lives on the heap.
+ * <p/>
+ * Entries are evicted least recently used first when the total size exceeds capacity, when they are older than
+ * timeToLive seconds or when the item they depend on is invalidated. Evicted buffers are released by the garbage
+ * collector once no response is streaming from them any longer; size -XX:MaxDirectMemorySize above capacity
+ * accordingly.
+ * <p/>
+ * Lookups take no lock: the index is a ConcurrentHashMap, and a hit only stamps the entry with its access time. Puts
+ * that overflow the capacity take an eviction lock and scan the index for the entry accessed longest ago; the store
+ * holds no more than capacity / threshold entries, so the scan is short.
+ *
+ * @author R. Kempees
+ */
+public class OffHeapBinaryStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapBinaryStore.class);
+    private static final int DEFAULT_THRESHOLD = 1024 * 1024;
+    private static final long DEFAULT_CAPACITY = 256L * 1024 * 1024;
+    private static final long DEFAULT_TIME_TO_LIVE = 3600;
+    private static final OffHeapBinaryStore INSTANCE = new OffHeapBinaryStore();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<String>> dependencies = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private volatile int threshold = DEFAULT_THRESHOLD;
+    private volatile long capacity = DEFAULT_CAPACITY;
+    private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+    private OffHeapBinaryStore () {
+
+    }
+
+    public static OffHeapBinaryStore getInstance () {
+        return INSTANCE;
+    }
+
+    public int getThreshold () {
+        return threshold;
+    }
+
+    /**
+     * @param threshold int the minimum size in bytes of binaries kept off-heap; 0 disables the off-heap tier
+     */
+    public void setThreshold (final int threshold) {
+        this.threshold = threshold;
+    }
+
+    public long getCapacity () {
+        return capacity;
+    }
+
+    /**
+     * @param capacity long the maximum total size in bytes of the binaries kept off-heap
+     */
+    public void setCapacity (final long capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getTimeToLive () {
+        return timeToLive;
+    }
+
+    /**
+     * @param timeToLive long the number of seconds a binary is kept off-heap; 0 to keep it until it is evicted or
+     *                   invalidated
+     */
+    public void setTimeToLive (final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public long getSize () {
+        return size.get();
+    }
+
+    public int getCount () {
+        return entries.size();
+    }
+
+    /**
+     * @param length int representing the size in bytes of a binary
+     * @return boolean true if a binary of the given size belongs in the off-heap tier
+     */
+    public boolean accepts (final int length) {
+        final int limit = threshold;
+        return limit > 0 && length >= limit && length <= capacity;
+    }
+
+    /**
+     * @param key String representing the cache key of the binary
+     * @return ByteBuffer a read-only view on the binary content, positioned at its start; or null, if the binary is not
+     * in the off-heap tier
+     */
+    public ByteBuffer get (final String key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key, entry);
+            return null;
+        }
+        entry.accessedAt = System.nanoTime();
+        return entry.buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the given binary content off-heap, evicting the least recently used binaries if the store is full.
+     *
+     * @param key           String representing the cache key of the binary
+     * @param content       byte[] the binary content
+     * @param publicationId int representing the Publication id of the binary item
+     * @param itemId        int representing the item id of the binary
+     */
+    public void put (final String key, final byte[] content, final int publicationId, final int itemId) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+        buffer.put(content);
+        buffer.flip();
+
+        final long ttl = timeToLive;
+        final long expiresAt = ttl > 0 ? System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl) : Long.MAX_VALUE;
+        final Entry entry = new Entry(buffer, getItemKey(publicationId, itemId), expiresAt);
+
+        dependencies.compute(entry.itemKey, (itemKey, keys) -> {
+            final Set<String> dependents = keys == null ? ConcurrentHashMap.<String>newKeySet() : keys;
+            dependents.add(key);
+            return dependents;
+        });
+        size.addAndGet(content.length);
+        final Entry replaced = entries.put(key, entry);
+        if (replaced != null) {
+            release(key, replaced);
+        }
+        LOG.debug("Stored binary of {} bytes with key: {} off-heap", content.length, key);
+
+        if (size.get() > capacity) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes all binaries that depend on the given item.
+     *
+     * @param publicationId int representing the Publication id of the item
+     * @param itemId        int representing the item id
+     * @return int the number of binaries removed
+     */
+    public int invalidate (final int publicationId, final int itemId) {
+        final long itemKey = getItemKey(publicationId, itemId);
+        final Set<String> keys = dependencies.remove(itemKey);
+        if (keys == null) {
+            return 0;
+        }
+        int count = 0;
+        for (String key : keys) {
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.itemKey == itemKey && remove(key, entry)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes all binaries.
+     */
+    public void clear () {
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void evict () {
+        synchronized (evictionLock) {
+            while (size.get() > capacity) {
+                Map.Entry<String, Entry> eldest = null;
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    if (eldest == null || entry.getValue().accessedAt - eldest.getValue().accessedAt < 0) {
+                        eldest = entry;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                if (remove(eldest.getKey(), eldest.getValue())) {
+                    LOG.debug("Evicted off-heap binary with key: {}", eldest.getKey());
+                }
+            }
+        }
+    }
+
+    private boolean remove (final String key, final Entry entry) {
+        if (!entries.remove(key, entry)) {
+            return false;
+        }
+        release(key, entry);
+        return true;
+    }
+
+    private void release (final String key, final Entry entry) {
+        size.addAndGet(-entry.buffer.capacity());
+        dependencies.computeIfPresent(entry.itemKey, (itemKey, keys) -> {
+            // unless the key was stored again for the same item
+            final Entry current = entries.get(key);
+            if (current == null || current.itemKey != itemKey) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static long getItemKey (final int publicationId, final int itemId) {
+        return ((long) publicationId << 32) | (itemId & 0xFFFFFFFFL);
+    }
+
+    private static class Entry {
+
+        private final ByteBuffer buffer;
+        private final long itemKey;
+        private final long expiresAt;
+        private volatile long accessedAt = System.nanoTime();
+
+        Entry (final ByteBuffer buffer, final long itemKey, final long expiresAt) {
+            this.buffer = buffer;
+            this.itemKey = itemKey;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
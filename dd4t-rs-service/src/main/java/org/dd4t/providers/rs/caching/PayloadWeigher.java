@@ -0,0 +1,17 @@
+package org.dd4t.providers.rs.caching;
+
+/**
+ * Estimates the number of heap bytes a cached payload takes, for byte based cache budgets.
+ *
+ * @author R. Kempees
+ * @see CacheBudget
+ */
+public interface PayloadWeigher {
+
+    /**
+     * @param key     String representing the cache key
+     * @param payload the cached payload; may be null
+     * @return long the estimated number of bytes of key and payload
+     */
+    long weigh (String key, Object payload);
+}
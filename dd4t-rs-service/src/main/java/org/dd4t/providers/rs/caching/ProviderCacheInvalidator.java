@@ -0,0 +1,76 @@
+package org.dd4t.providers.rs.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single entry point for publish driven invalidation of all provider cache tiers: cache entries that depend on the
+ * (un-)published item, off-heap binaries of the item and the negative cache of its Publication. Misses that are not
+ * tied to a Publication, such as images URLs that matched none, are kept under Publication 0 and dropped on every
+ * publish, as any publish can make them appear.
+ *
+ * @author R. Kempees
+ */
+public class ProviderCacheInvalidator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProviderCacheInvalidator.class);
+    private static final ProviderCacheInvalidator INSTANCE = new ProviderCacheInvalidator();
+
+    private final SingleFlightLoader loader = SingleFlightLoader.getInstance();
+    private final DependencyIndex dependencyIndex = DependencyIndex.getInstance();
+    private final OffHeapBinaryStore binaryStore = OffHeapBinaryStore.getInstance();
+    private final NegativeCache negativeCache = NegativeCache.getInstance();
+    private volatile RelatedItemResolver relatedItemResolver;
+
+    private ProviderCacheInvalidator () {
+
+    }
+
+    public static ProviderCacheInvalidator getInstance () {
+        return INSTANCE;
+    }
+
+    public RelatedItemResolver getRelatedItemResolver () {
+        return relatedItemResolver;
+    }
+
+    /**
+     * @param relatedItemResolver RelatedItemResolver whose related items are invalidated along with each item; null
+     *                            to invalidate the item only
+     */
+    public void setRelatedItemResolver (final RelatedItemResolver relatedItemResolver) {
+        this.relatedItemResolver = relatedItemResolver;
+    }
+
+    /**
+     * Evicts everything cached for the given item, and the cache entries that depend on its related items.
+     *
+     * @param publicationId int representing the Publication id of the item
+     * @param itemId        int representing the item id
+     */
+    public void invalidate (final int publicationId, final int itemId) {
+        int entries = dependencyIndex.invalidate(publicationId, itemId);
+        final RelatedItemResolver resolver = relatedItemResolver;
+        if (resolver != null) {
+            for (int relatedItemId : resolver.getRelatedItemIds(publicationId, itemId)) {
+                entries += dependencyIndex.invalidate(publicationId, relatedItemId);
+            }
+        }
+        final int binaries = binaryStore.invalidate(publicationId, itemId);
+        negativeCache.clear(publicationId);
+        negativeCache.clear(0);
+        LOG.debug("Invalidated item: {}:{}. Expired {} cache entries and {} off-heap binaries", publicationId, itemId,
+                entries, binaries);
+    }
+
+    /**
+     * Evicts everything cached for any item, of every cache type, including payloads that don't depend on an item.
+     */
+    public void flush () {
+        loader.flush();
+        dependencyIndex.clear();
+        binaryStore.clear();
+        negativeCache.clear();
+        LOG.info("Flushed provider cache");
+    }
+}
@@ -0,0 +1,17 @@
+package org.dd4t.providers.rs.caching;
+
+/**
+ * Resolves the items whose dependent cache entries are affected by a publish of another item. Used by the @see
+ * ProviderCacheInvalidator for cache entries that a newly published item would be part of, such as query results.
+ *
+ * @author R. Kempees
+ */
+public interface RelatedItemResolver {
+
+    /**
+     * @param publicationId int representing the Publication id of the (un-)published item
+     * @param itemId        int representing the id of the (un-)published item
+     * @return int[] the ids of the related items in the same Publication; never null
+     */
+    int[] getRelatedItemIds (int publicationId, int itemId);
+}
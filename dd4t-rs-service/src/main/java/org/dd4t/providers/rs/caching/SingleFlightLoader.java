@@ -0,0 +1,547 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.core.caching.CacheElement;
+import org.dd4t.providers.PayloadCacheProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Per-key single-flight loader for the provider cache. When a cache key is expired, the first caller becomes the
+ * leader and loads the payload on its own thread (keeping its request context); concurrent callers for the same key
+ * wait on the leader's CompletableFuture instead of on a monitor, so one miss costs one broker call.
+ * <p/>
+ * In-flight loads are tracked by cache key, not by CacheElement instance, so this works with cache providers that
+ * return a copy of the element on every read.
+ * <p/>
+ * Payloads are stored wrapped in a @see CachedPayload, which is fresh for timeToLive seconds; a timeToLive of 0 leaves
+ * expiry to the cache region. With staleWhileRevalidate enabled, a payload that expired no longer than maxStale seconds
+ * ago is still served, while a single background refresh reloads it. The cache region itself must keep elements for
+ * at least timeToLive + maxStale seconds. Elements invalidated by a publish are never served stale. Payloads that are
+ * not requested for timeToIdle seconds are reloaded on their next request; requests are stored back with the payload,
+ * so idle expiry also works with providers that copy elements on read. Both can be set per cache type in @see
+ * CacheTypeSettings.
+ * <p/>
+ * To avoid waves of reloads of payloads that were loaded together, the freshness of each payload is shortened by a
+ * random timeToLiveJitter, and fresh payloads are refreshed in the background before they expire with a probability
+ * that grows with their load time and their age (see @see CachedPayload#isEarlyRefreshDue).
+ * <p/>
+ * A flush (@see #flush) drops every payload loaded before it, whatever cache type or dependencies it has, by
+ * comparing the load time of cached payloads with the moment of the flush. Loads that started before it are not
+ * stored.
+ *
+ * @author R. Kempees
+ */
+public class SingleFlightLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SingleFlightLoader.class);
+    private static final long DEFAULT_AWAIT_TIMEOUT = 30000;
+    private static final long DEFAULT_TIME_TO_LIVE = 0;
+    private static final long DEFAULT_MAX_STALE = 300;
+    private static final double DEFAULT_EARLY_REFRESH_BETA = 1.0;
+    private static final double DEFAULT_TIME_TO_LIVE_JITTER = 0.1;
+    private static final int DEFAULT_REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_SIZE = 1000;
+    private static final SingleFlightLoader INSTANCE = new SingleFlightLoader();
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refreshExecutor;
+    private volatile NegativeCache negativeCache = NegativeCache.getInstance();
+    private volatile CacheBudget cacheBudget = CacheBudget.getInstance();
+    private volatile DependencyIndex dependencyIndex = DependencyIndex.getInstance();
+    private volatile CacheStatistics statistics = CacheStatistics.getInstance();
+    private volatile CacheSnapshot cacheSnapshot = CacheSnapshot.getInstance();
+    private volatile CacheTypeSettings typeSettings = CacheTypeSettings.getInstance();
+    private volatile long awaitTimeout = DEFAULT_AWAIT_TIMEOUT;
+    private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+    private volatile long timeToIdle;
+    private volatile long maxStale = DEFAULT_MAX_STALE;
+    private volatile boolean staleWhileRevalidate;
+    private volatile double earlyRefreshBeta = DEFAULT_EARLY_REFRESH_BETA;
+    private volatile double timeToLiveJitter = DEFAULT_TIME_TO_LIVE_JITTER;
+    private volatile long flushedAt = Long.MIN_VALUE;
+
+    private SingleFlightLoader () {
+        final AtomicInteger threadCount = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(DEFAULT_REFRESH_THREADS, DEFAULT_REFRESH_THREADS, 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(REFRESH_QUEUE_SIZE), runnable -> {
+            final Thread thread = new Thread(runnable, "dd4t-rs-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public static SingleFlightLoader getInstance () {
+        return INSTANCE;
+    }
+
+    public NegativeCache getNegativeCache () {
+        return negativeCache;
+    }
+
+    public void setNegativeCache (final NegativeCache negativeCache) {
+        this.negativeCache = negativeCache;
+    }
+
+    public CacheBudget getCacheBudget () {
+        return cacheBudget;
+    }
+
+    public void setCacheBudget (final CacheBudget cacheBudget) {
+        this.cacheBudget = cacheBudget;
+    }
+
+    public DependencyIndex getDependencyIndex () {
+        return dependencyIndex;
+    }
+
+    public void setDependencyIndex (final DependencyIndex dependencyIndex) {
+        this.dependencyIndex = dependencyIndex;
+    }
+
+    public CacheStatistics getStatistics () {
+        return statistics;
+    }
+
+    public void setStatistics (final CacheStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public CacheSnapshot getCacheSnapshot () {
+        return cacheSnapshot;
+    }
+
+    public void setCacheSnapshot (final CacheSnapshot cacheSnapshot) {
+        this.cacheSnapshot = cacheSnapshot;
+    }
+
+    public CacheTypeSettings getTypeSettings () {
+        return typeSettings;
+    }
+
+    public void setTypeSettings (final CacheTypeSettings typeSettings) {
+        this.typeSettings = typeSettings;
+    }
+
+    public long getAwaitTimeout () {
+        return awaitTimeout;
+    }
+
+    /**
+     * @param awaitTimeout long the maximum number of milliseconds a caller waits for another caller's load of the
+     *                     same key, before loading the payload itself
+     */
+    public void setAwaitTimeout (final long awaitTimeout) {
+        this.awaitTimeout = awaitTimeout;
+    }
+
+    public long getTimeToLive () {
+        return timeToLive;
+    }
+
+    /**
+     * @param timeToLive long the number of seconds a loaded payload is fresh; 0 to leave expiry to the cache region
+     */
+    public void setTimeToLive (final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public long getTimeToIdle () {
+        return timeToIdle;
+    }
+
+    /**
+     * @param timeToIdle long the number of seconds a payload is kept without being requested; 0 for no idle expiry
+     */
+    public void setTimeToIdle (final long timeToIdle) {
+        this.timeToIdle = timeToIdle;
+    }
+
+    public long getMaxStale () {
+        return maxStale;
+    }
+
+    /**
+     * @param maxStale long the maximum number of seconds an expired payload is served while it is being refreshed
+     */
+    public void setMaxStale (final long maxStale) {
+        this.maxStale = maxStale;
+    }
+
+    public boolean isStaleWhileRevalidate () {
+        return staleWhileRevalidate;
+    }
+
+    public void setStaleWhileRevalidate (final boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public double getEarlyRefreshBeta () {
+        return earlyRefreshBeta;
+    }
+
+    /**
+     * @param earlyRefreshBeta double scaling how eagerly fresh payloads are refreshed before they expire, based on
+     *                         their load time; 1.0 is the XFetch default, 0 disables early refreshes
+     */
+    public void setEarlyRefreshBeta (final double earlyRefreshBeta) {
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    public double getTimeToLiveJitter () {
+        return timeToLiveJitter;
+    }
+
+    /**
+     * @param timeToLiveJitter double the fraction of timeToLive by which the freshness of each payload is randomly
+     *                         shortened, so payloads loaded together don't expire together; 0 for no jitter
+     */
+    public void setTimeToLiveJitter (final double timeToLiveJitter) {
+        this.timeToLiveJitter = Math.max(0, Math.min(1, timeToLiveJitter));
+    }
+
+    public int getRefreshThreads () {
+        return refreshExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * @param refreshThreads int the maximum number of concurrent background refreshes
+     */
+    public void setRefreshThreads (final int refreshThreads) {
+        if (refreshThreads > refreshExecutor.getMaximumPoolSize()) {
+            refreshExecutor.setMaximumPoolSize(refreshThreads);
+            refreshExecutor.setCorePoolSize(refreshThreads);
+        } else {
+            refreshExecutor.setCorePoolSize(refreshThreads);
+            refreshExecutor.setMaximumPoolSize(refreshThreads);
+        }
+    }
+
+    /**
+     * Drops all cached payloads: payloads loaded until now are no longer served, not even stale, and are reloaded on
+     * their next request. The cache provider may keep them until they are replaced or expire.
+     */
+    public void flush () {
+        flushedAt = System.currentTimeMillis();
+        cacheSnapshot.clear();
+    }
+
+    /**
+     * Stops the background refresh threads. Refreshes that are queued are dropped.
+     */
+    public void shutdown () {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the payload cached under the given key. If the cached payload is expired, it is loaded using the given
+     * loader, unless a load for the same key is already in flight, in which case its result is returned. If stale
+     * payloads may be served, an expired payload is returned as is and refreshed in the background. Keys recently found
+     * missing are answered from the @see NegativeCache.
+     *
+     * @param type          String representing the cache type of the key
+     * @param publicationId int representing the Publication id of the key; 0 if the key is not Publication specific
+     * @param key           String representing the cache key
+     * @param cacheProvider the PayloadCacheProvider holding the payload
+     * @param exceptionType the Class of the checked exception the loader may throw; a failed load of another caller
+     *                      is rethrown as is if it is of this type, and wrapped in a CompletionException otherwise
+     * @param loader        the CacheLoader to use on a cache miss
+     * @param <T>           the payload type
+     * @param <E>           the checked exception the loader may throw
+     * @return T the cached or loaded payload; null if the item does not exist
+     * @throws E if the payload could not be loaded
+     */
+    public <T, E extends Exception> T load (final String type, final int publicationId, final String key,
+                                           final PayloadCacheProvider cacheProvider, final Class<E> exceptionType,
+                                           final CacheLoader<T, E> loader) throws E {
+        // checked first: a miss is cheaper to answer than a cache lookup, and a payload of a missing item is expired
+        if (negativeCache.isMiss(type, publicationId, key)) {
+            LOG.debug("Fetched miss with key: {} from negative cache", key);
+            statistics.get(type).negativeHit();
+            return null;
+        }
+
+        final CachedPayload<T> cached = getCachedPayload(cacheProvider.<CachedPayload<T>>loadPayloadFromLocalCache(key));
+        final long now = System.currentTimeMillis();
+        if (cached != null && isIdle(type, cached, now)) {
+            LOG.debug("Payload with key: {} was idle too long", key);
+        } else if (cached != null) {
+            touch(type, key, cached, now, cacheProvider);
+            if (cached.isFresh(now)) {
+                LOG.debug("Fetched payload with key: {} from cache", key);
+                final CacheTypeStatistics typeStatistics = statistics.get(type);
+                typeStatistics.hit();
+                cacheBudget.touch(type, key);
+                if (cached.isEarlyRefreshDue(now, earlyRefreshBeta)) {
+                    LOG.debug("Refreshing payload with key: {} before it expires", key);
+                    typeStatistics.earlyRefresh();
+                    refreshInBackground(type, publicationId, key, cacheProvider, loader);
+                }
+                return cached.getPayload();
+            }
+            if (staleWhileRevalidate && cached.isServableStale(now, TimeUnit.SECONDS.toMillis(maxStale))) {
+                LOG.debug("Fetched stale payload with key: {} from cache", key);
+                statistics.get(type).staleHit();
+                cacheBudget.touch(type, key);
+                refreshInBackground(type, publicationId, key, cacheProvider, loader);
+                return cached.getPayload();
+            }
+        }
+
+        statistics.get(type).miss();
+
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            LOG.debug("Waiting for load in flight with key: {}", key);
+            return await(type, publicationId, key, inFlight, cacheProvider, exceptionType, loader);
+        }
+
+        try {
+            // another flight may have completed between the first lookup and taking the lead
+            final CacheElement<CachedPayload<T>> cacheElement = cacheProvider.loadPayloadFromLocalCache(key);
+            final CachedPayload<T> current = getCachedPayload(cacheElement);
+            final long checkedAt = System.currentTimeMillis();
+            final T result = current != null && current.isFresh(checkedAt) && !isIdle(type, current, checkedAt) ?
+                    current.getPayload() : loadElement(type, publicationId, key, cacheElement, cacheProvider, loader);
+            flight.complete(result);
+            return result;
+        } catch (Throwable t) {
+            flight.completeExceptionally(t);
+            throw t;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns a variant of the payload cached under the given key, e.g. the payload compressed with another codec. The
+     * variant is made by the given compressor on the first request only, and stored with the cached payload: it is
+     * counted in the budget of the cache type, and evicted, invalidated and replaced together with the payload. If no
+     * payload is cached under the key, the variant is made from the given payload instead, and not stored.
+     *
+     * @param type          String representing the cache type of the key
+     * @param key           String representing the cache key
+     * @param cacheProvider the PayloadCacheProvider holding the payload
+     * @param name          String representing the name of the variant, e.g. the name of the codec it is compressed
+     *                      with
+     * @param payload       T the payload as it was loaded by the caller
+     * @param compressor    Function making the variant of a payload; returning null if it could not be made
+     * @param <T>           the payload type
+     * @return byte[] the variant of the cached payload; null if it could not be made
+     */
+    public <T> byte[] getVariant (final String type, final String key, final PayloadCacheProvider cacheProvider,
+                                  final String name, final T payload, final Function<T, byte[]> compressor) {
+        final CachedPayload<T> cached = getCachedPayload(
+                cacheProvider.<CachedPayload<T>>loadPayloadFromLocalCache(key));
+        if (cached == null) {
+            return compressor.apply(payload);
+        }
+
+        final byte[] stored = cached.getVariant(name);
+        if (stored != null) {
+            return stored;
+        }
+
+        final byte[] variant = compressor.apply(cached.getPayload());
+        if (variant != null) {
+            final CachedPayload<T> withVariant = cached.withVariant(name, variant);
+            if (CacheEntries.replace(cacheProvider, key, withVariant)) {
+                LOG.debug("Stored {} variant of {} bytes with key: {}", name, variant.length, key);
+                cacheBudget.add(type, key, cacheProvider, withVariant);
+            }
+        }
+        return variant;
+    }
+
+    private <T, E extends Exception> void refreshInBackground (final String type, final int publicationId,
+                                                              final String key,
+                                                              final PayloadCacheProvider cacheProvider,
+                                                              final CacheLoader<T, E> loader) {
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (flights.putIfAbsent(key, flight) != null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    flight.complete(loadElement(type, publicationId, key,
+                            cacheProvider.<CachedPayload<T>>loadPayloadFromLocalCache(key), cacheProvider, loader));
+                    LOG.debug("Refreshed payload with key: {}", key);
+                } catch (Throwable t) {
+                    LOG.warn("Failed to refresh payload with key: {}. Serving stale payload until it expires.", key, t);
+                    flight.completeExceptionally(t);
+                } finally {
+                    flights.remove(key, flight);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Refresh queue is full. Not refreshing payload with key: {}", key);
+            flights.remove(key, flight);
+            flight.cancel(false);
+        }
+    }
+
+    @SuppressWarnings ("unchecked")
+    private <T, E extends Exception> T await (final String type, final int publicationId, final String key,
+                                             final CompletableFuture<Object> inFlight,
+                                             final PayloadCacheProvider cacheProvider,
+                                             final Class<E> exceptionType,
+                                             final CacheLoader<T, E> loader) throws E {
+        try {
+            return (T) inFlight.get(awaitTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (exceptionType.isInstance(cause)) {
+                throw exceptionType.cast(cause);
+            }
+            /* the leader ran a loader declaring another exception type for the same key */
+            throw new CompletionException("Load in flight with key: " + key + " failed", cause);
+        } catch (CancellationException e) {
+            LOG.debug("Refresh with key: {} was not run. Loading it directly.", key);
+        } catch (TimeoutException e) {
+            LOG.warn("Timed out after {} ms waiting for load with key: {}. Loading it directly.", awaitTimeout, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while waiting for load with key: {}. Loading it directly.", key);
+        }
+
+        return loadElement(type, publicationId, key, cacheProvider.<CachedPayload<T>>loadPayloadFromLocalCache(key),
+                cacheProvider, loader);
+    }
+
+    private <T, E extends Exception> T loadElement (final String type, final int publicationId, final String key,
+                                                   final CacheElement<CachedPayload<T>> cacheElement,
+                                                   final PayloadCacheProvider cacheProvider,
+                                                   final CacheLoader<T, E> loader) throws E {
+        final LoadContext context = new LoadContext(type, publicationId, key);
+        final CacheTypeStatistics typeStatistics = statistics.get(type);
+        final long startedAt = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final T payload;
+        try {
+            payload = loader.load(context);
+        } catch (Throwable t) {
+            typeStatistics.loaded(System.nanoTime() - start, false);
+            throw t;
+        }
+        final long elapsed = System.nanoTime() - start;
+        typeStatistics.loaded(elapsed, true);
+        final long loadTime = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        if (!context.isCacheable()) {
+            return payload;
+        }
+        if (startedAt <= flushedAt) {
+            LOG.debug("Not storing payload with key: {}, as the cache was flushed while loading it", key);
+            return payload;
+        }
+
+        if (!context.isFound()) {
+            // a stale payload of an item that is gone must not be served any longer; the element is stored back, as
+            // the cache provider may have handed out a copy of it
+            if (cacheElement.getPayload() != null) {
+                cacheElement.setPayload(null);
+                cacheElement.setExpired(true);
+                cacheProvider.storeInItemCache(key, cacheElement);
+            }
+            negativeCache.addMiss(type, publicationId, key);
+            LOG.debug("Stored miss with key: {} in negative cache", key);
+            return payload;
+        }
+
+        final long now = System.currentTimeMillis();
+        long expiresAt = getExpiresAt(type, now);
+        if (context.getTimeToLive() > 0) {
+            expiresAt = Math.min(expiresAt, now + TimeUnit.SECONDS.toMillis(context.getTimeToLive()));
+        }
+        store(type, publicationId, key, cacheElement, new CachedPayload<>(payload, now, expiresAt, loadTime),
+                context.getDependencies(), cacheProvider);
+        LOG.debug("Stored payload with key: {} in cache", key);
+        return payload;
+    }
+
+    /**
+     * Stores a payload in the given cache element and links it to the items it depends on. The first dependency is
+     * passed to the cache provider; all are recorded in the @see DependencyIndex.
+     *
+     * @param type          String representing the cache type of the key
+     * @param publicationId int representing the Publication id of the key
+     * @param key           String representing the cache key
+     * @param cacheElement  the CacheElement to store the payload in
+     * @param cachedPayload the CachedPayload to store
+     * @param dependencies  List of keys of the items the payload depends on, as built by @see DependencyIndex#getItemKey
+     * @param cacheProvider the PayloadCacheProvider to store the element in
+     */
+    <T> void store (final String type, final int publicationId, final String key,
+                    final CacheElement<CachedPayload<T>> cacheElement, final CachedPayload<T> cachedPayload,
+                    final List<Long> dependencies, final PayloadCacheProvider cacheProvider) {
+        cacheElement.setPayload(cachedPayload);
+        cacheElement.setExpired(false);
+        if (dependencies.isEmpty()) {
+            cacheProvider.storeInItemCache(key, cacheElement);
+        } else {
+            final long dependency = dependencies.get(0);
+            cacheProvider.storeInItemCache(key, cacheElement, DependencyIndex.getPublicationId(dependency),
+                    DependencyIndex.getItemId(dependency));
+            dependencyIndex.add(dependencies, key, cacheProvider, cachedPayload.getExpiresAt());
+        }
+        cacheBudget.add(type, key, cacheProvider, cachedPayload);
+        cacheSnapshot.track(type, publicationId, key, dependencies, cacheProvider, cachedPayload.getExpiresAt());
+    }
+
+    private long getExpiresAt (final String type, final long now) {
+        final long typeTimeToLive = typeSettings.getTimeToLive(type, timeToLive);
+        if (typeTimeToLive <= 0) {
+            return Long.MAX_VALUE;
+        }
+        final long ttl = TimeUnit.SECONDS.toMillis(typeTimeToLive);
+        final double jitter = timeToLiveJitter;
+        return now + (jitter > 0 ? ttl - (long) (ttl * jitter * ThreadLocalRandom.current().nextDouble()) : ttl);
+    }
+
+    private boolean isIdle (final String type, final CachedPayload<?> cachedPayload, final long now) {
+        return cachedPayload.isIdle(now, getTimeToIdle(type));
+    }
+
+    private void touch (final String type, final String key, final CachedPayload<?> cachedPayload, final long now,
+                        final PayloadCacheProvider cacheProvider) {
+        if (cachedPayload.isTouchDue(now, getTimeToIdle(type))) {
+            CacheEntries.touch(cacheProvider, key, cachedPayload.getLoadedAt(), now);
+        }
+    }
+
+    private long getTimeToIdle (final String type) {
+        return TimeUnit.SECONDS.toMillis(typeSettings.getTimeToIdle(type, timeToIdle));
+    }
+
+    private <T> CachedPayload<T> getCachedPayload (final CacheElement<CachedPayload<T>> cacheElement) {
+        if (cacheElement.isExpired()) {
+            return null;
+        }
+        final CachedPayload<T> cachedPayload = cacheElement.getPayload();
+        return cachedPayload == null || cachedPayload.getLoadedAt() <= flushedAt ? null : cachedPayload;
+    }
+}
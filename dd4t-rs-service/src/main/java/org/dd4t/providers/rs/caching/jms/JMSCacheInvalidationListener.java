@@ -0,0 +1,261 @@
+package org.dd4t.providers.rs.caching.jms;
+
+import com.tridion.cache.CacheEvent;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.dd4t.providers.rs.caching.ProviderCacheInvalidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.ObjectMessage;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Subscribes to the Tridion cache channel topic and evicts cached entries of items that are (un-)published.
+ * <p/>
+ * Understood messages:
+ * <ul>
+ * <li>ObjectMessage with a Tridion @see CacheEvent: for an invalidate event of a storage region (a region path
+ * starting with regionPrefix, e.g. /com_tridion_storage_ComponentPresentation), whose keys start with
+ * "publicationId:itemId", invalidates that item; events of other regions are ignored. A flush event flushes the
+ * cache</li>
+ * <li>MapMessage with int fields "publicationId" and "itemId"</li>
+ * <li>TextMessage "publicationId:itemId"</li>
+ * </ul>
+ * The listener connects on a background thread, so an unreachable broker does not hold up the startup of the
+ * service; until it is connected, cache entries are only evicted by TTL. A failed connection attempt is retried
+ * every retryInterval milliseconds. Use a failover: broker URL with startupMaxReconnectAttempts, so an attempt
+ * ends, and the failover transport reconnects after broker restarts once connected. For tests, point brokerUrl to an
+ * embedded broker (e.g. vm://localhost?broker.persistent=false) or set a ConnectionFactory directly.
+ *
+ * @author R. Kempees
+ */
+public class JMSCacheInvalidationListener implements MessageListener, ExceptionListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JMSCacheInvalidationListener.class);
+    private static final String PUBLICATION_ID = "publicationId";
+    private static final String ITEM_ID = "itemId";
+    private static final String DEFAULT_REGION_PREFIX = "/com_tridion_storage_";
+    private static final long DEFAULT_RETRY_INTERVAL = 30000;
+    // ObjectMessages are only deserialized into classes of trusted packages
+    private static final List<String> TRUSTED_PACKAGES = Arrays.asList("com.tridion.cache", "java.lang", "java.util");
+
+    private ProviderCacheInvalidator invalidator = ProviderCacheInvalidator.getInstance();
+    private ConnectionFactory connectionFactory;
+    private String brokerUrl;
+    private String topicName;
+    private String regionPrefix = DEFAULT_REGION_PREFIX;
+    private long retryInterval = DEFAULT_RETRY_INTERVAL;
+    private boolean enabled;
+    private boolean running;
+    private Thread connector;
+    private volatile Connection connection;
+
+    public void setBrokerUrl (final String brokerUrl) {
+        this.brokerUrl = brokerUrl;
+    }
+
+    public void setTopicName (final String topicName) {
+        this.topicName = topicName;
+    }
+
+    /**
+     * @param regionPrefix String the start of the paths of the Tridion cache regions whose keys start with
+     *                     "publicationId:itemId"
+     */
+    public void setRegionPrefix (final String regionPrefix) {
+        this.regionPrefix = regionPrefix;
+    }
+
+    /**
+     * @param retryInterval long the number of milliseconds to wait before retrying a failed connection attempt
+     */
+    public void setRetryInterval (final long retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    public void setEnabled (final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setConnectionFactory (final ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void setInvalidator (final ProviderCacheInvalidator invalidator) {
+        this.invalidator = invalidator;
+    }
+
+    /**
+     * @return boolean true if the listener is connected to the broker
+     */
+    public boolean isConnected () {
+        return connection != null;
+    }
+
+    /**
+     * Starts connecting to the broker in the background, if enabled.
+     */
+    public synchronized void start () {
+        if (!enabled) {
+            LOG.info("JMS cache invalidation is disabled");
+            return;
+        }
+        if (running) {
+            return;
+        }
+
+        if (connectionFactory == null) {
+            final ActiveMQConnectionFactory activeMQConnectionFactory = new ActiveMQConnectionFactory(brokerUrl);
+            activeMQConnectionFactory.setTrustedPackages(TRUSTED_PACKAGES);
+            connectionFactory = activeMQConnectionFactory;
+        }
+
+        running = true;
+        connector = new Thread(this::connect, "dd4t-rs-jms-connect");
+        connector.setDaemon(true);
+        connector.start();
+    }
+
+    /**
+     * Stops listening and closes the broker connection.
+     */
+    public void stop () {
+        final Thread thread;
+        final Connection closing;
+        synchronized (this) {
+            running = false;
+            thread = connector;
+            connector = null;
+            closing = connection;
+            connection = null;
+        }
+
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (closing != null) {
+            close(closing);
+        }
+    }
+
+    private void connect () {
+        while (isRunning()) {
+            try {
+                final Connection connected = createConnection();
+                synchronized (this) {
+                    if (!running) {
+                        close(connected);
+                        return;
+                    }
+                    connection = connected;
+                }
+                LOG.info("Listening for cache invalidation messages on topic: {} at: {}", topicName, brokerUrl);
+                return;
+            } catch (JMSException | RuntimeException e) {
+                LOG.warn("Could not connect to JMS broker at: {}. Retrying in {} ms; cache entries are only evicted " +
+                        "by TTL until connected.", brokerUrl, retryInterval, e);
+            }
+
+            try {
+                Thread.sleep(retryInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private Connection createConnection () throws JMSException {
+        final Connection created = connectionFactory.createConnection();
+        try {
+            created.setExceptionListener(this);
+            final Session session = created.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createConsumer(session.createTopic(topicName)).setMessageListener(this);
+            created.start();
+            return created;
+        } catch (JMSException | RuntimeException e) {
+            close(created);
+            throw e;
+        }
+    }
+
+    private synchronized boolean isRunning () {
+        return running;
+    }
+
+    private static void close (final Connection closing) {
+        try {
+            closing.close();
+        } catch (JMSException e) {
+            LOG.warn("Error closing JMS connection", e);
+        }
+    }
+
+    @Override
+    public void onMessage (final Message message) {
+        try {
+            if (message instanceof ObjectMessage) {
+                final Serializable event = ((ObjectMessage) message).getObject();
+                if (event instanceof CacheEvent) {
+                    onCacheEvent((CacheEvent) event);
+                } else {
+                    LOG.debug("Ignoring object message: {}", event);
+                }
+            } else if (message instanceof MapMessage) {
+                final MapMessage mapMessage = (MapMessage) message;
+                invalidator.invalidate(mapMessage.getInt(PUBLICATION_ID), mapMessage.getInt(ITEM_ID));
+            } else if (message instanceof TextMessage) {
+                invalidate(((TextMessage) message).getText());
+            } else {
+                LOG.debug("Ignoring message: {}", message);
+            }
+        } catch (JMSException | NumberFormatException e) {
+            LOG.error("Could not process cache invalidation message", e);
+        }
+    }
+
+    @Override
+    public void onException (final JMSException e) {
+        LOG.error("JMS connection error. Cache entries are only evicted by TTL until the connection recovers.", e);
+    }
+
+    private void onCacheEvent (final CacheEvent event) {
+        switch (event.getType()) {
+            case CacheEvent.FLUSH:
+                invalidator.flush();
+                break;
+            case CacheEvent.INVALIDATE:
+                final String region = event.getRegionPath();
+                if (region != null && region.startsWith(regionPrefix)) {
+                    invalidate(String.valueOf(event.getKey()));
+                } else {
+                    LOG.debug("Ignoring cache event of region: {}", region);
+                }
+                break;
+            default:
+                LOG.debug("Ignoring cache event of type: {}", event.getType());
+        }
+    }
+
+    /*
+    Invalidates the item in a key of the form "publicationId:itemId[:...]".
+     */
+    private void invalidate (final String key) {
+        final String[] ids = key.trim().split(":");
+        if (ids.length < 2) {
+            LOG.debug("Ignoring cache invalidation key: {}", key);
+            return;
+        }
+        invalidator.invalidate(Integer.parseInt(ids[0]), Integer.parseInt(ids[1]));
+    }
+}
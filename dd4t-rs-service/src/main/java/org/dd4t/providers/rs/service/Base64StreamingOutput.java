@@ -0,0 +1,56 @@
+package org.dd4t.providers.rs.service;
+
+import org.apache.commons.codec.binary.Base64;
+import org.dd4t.providers.serializer.SerializerFactory;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes compressed content Base64 encoded straight into the response, in chunks, so the providers can cache the
+ * compressed bytes and no Base64 String of the whole content is built per request. The output is the same as
+ * Base64.encodeBase64String of the whole content.
+ *
+ * @author R. Kempees
+ */
+public class Base64StreamingOutput implements StreamingOutput {
+
+    // a multiple of 3, so only the last chunk is padded
+    private static final int CHUNK_SIZE = 3 * 4096;
+
+    private final byte[] content;
+
+    public Base64StreamingOutput (final byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * @param content byte[] the compressed content; null if it was not found
+     * @param pretty  boolean true to send the decompressed JSON pretty printed instead
+     * @return Response with the Base64 encoded content, or no content
+     */
+    public static Response toResponse (final byte[] content, final boolean pretty) {
+        if (content == null) {
+            return Response.noContent().build();
+        }
+        if (pretty) {
+            return Response.ok(SerializerFactory.getSerializer().prettyPrint(Base64.encodeBase64String(content)))
+                    .type(MediaType.TEXT_PLAIN).build();
+        }
+        // explicit, as resources that also produce application/json would otherwise pick that for Base64 text
+        return Response.ok(new Base64StreamingOutput(content)).type(MediaType.TEXT_PLAIN).build();
+    }
+
+    @Override
+    public void write (final OutputStream output) throws IOException {
+        for (int offset = 0; offset < content.length; offset += CHUNK_SIZE) {
+            final byte[] chunk = Arrays.copyOfRange(content, offset, Math.min(content.length, offset + CHUNK_SIZE));
+            output.write(Base64.encodeBase64(chunk));
+        }
+        output.flush();
+    }
+}
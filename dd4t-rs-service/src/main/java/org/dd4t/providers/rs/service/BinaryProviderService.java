@@ -5,6 +5,7 @@ import org.dd4t.core.exceptions.ItemNotFoundException;
 import org.dd4t.providers.rs.TridionBinaryProvider;
 import org.dd4t.providers.rs.request.BasicRequestContext;
 import org.dd4t.providers.rs.request.RequestContextRegistry;
+import org.dd4t.providers.serializer.SerializationFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,8 +15,14 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.text.ParseException;
 
 /**
@@ -42,22 +49,22 @@ public class BinaryProviderService {
      *
      * @param id          int representing the binary item id
      * @param publication int representing the binary Publication id
-     * @return byte[] the array of bytes representing the binary content or null, if not found or error occurred
+     * @return Response streaming the bytes of the binary content or no content, if not found or error occurred
      */
     @GET
     @Path ("/getcontentbyid/{publicationId:\\d+}/{itemId:\\d+}")
     @Produces (MediaType.APPLICATION_OCTET_STREAM)
-    public byte[] getContentById(@PathParam ("itemId") final int id,
-                                 @PathParam ("publicationId") final int publication,
-                                 @Context HttpServletRequest request) {
+    public Response getContentById(@PathParam ("itemId") final int id,
+                                   @PathParam ("publicationId") final int publication,
+                                   @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch binary content with id: {} and publication: {}", id, publication);
-        byte[] result = null;
+        Response result = Response.noContent().build();
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
         try {
-            result = TridionBinaryProvider.getInstance().getBinaryContentById(id, publication);
+            result = stream(TridionBinaryProvider.getInstance().getBinaryContentBufferById(id, publication));
         } catch (StorageException e) {
             LOG.error("Error fetching binary content", e);
         } catch (ItemNotFoundException e) {
@@ -79,22 +86,22 @@ public class BinaryProviderService {
      *
      * @param publication int representing the Publication id to lookup the binary in
      * @param url         string representing the path part of the binary URL
-     * @return byte[] the array of bytes representing the binary content or null, if not found or error occurred
+     * @return Response streaming the bytes of the binary content or no content, if not found or error occurred
      */
     @GET
     @Path ("/getcontentbyurl/{publicationId:\\d+}/{url}")
     @Produces (MediaType.APPLICATION_OCTET_STREAM)
-    public byte[] getContentByURL(@PathParam ("url") final String url,
-                                  @PathParam ("publicationId") final int publication,
-                                  @Context HttpServletRequest request) {
+    public Response getContentByURL(@PathParam ("url") final String url,
+                                    @PathParam ("publicationId") final int publication,
+                                    @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch binary content with url: {} and publication: {}", url, publication);
-        byte[] result = null;
+        Response result = Response.noContent().build();
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
         try {
-            result = TridionBinaryProvider.getInstance().getBinaryContentByURL(url, publication);
+            result = stream(TridionBinaryProvider.getInstance().getBinaryContentBufferByURL(url, publication));
         } catch (StorageException e) {
             LOG.error("Error fetching binary content", e);
         } catch (ItemNotFoundException e) {
@@ -117,22 +124,22 @@ public class BinaryProviderService {
      *
      * @param id          int representing the binary item id
      * @param publication int representing the binary Publication id
-     * @return String representing the JSON serialization of the indentified binary or null, if not found or error occurred
+     * @return Response streaming the Base64 encoded binary meta; or no content, otherwise
      */
     @GET
     @Path ("/getmetabyid/{publicationId:\\d+}/{itemId:\\d+}")
     @Produces (MediaType.TEXT_PLAIN)
-    public String getBinaryMetaById(@PathParam ("itemId") final int id,
-                                    @PathParam ("publicationId") final int publication,
-                                    @Context HttpServletRequest request) {
+    public Response getBinaryMetaById(@PathParam ("itemId") final int id,
+                                      @PathParam ("publicationId") final int publication,
+                                      @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch binary meta by id: {} and publication: {}", id, publication);
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
-        String result = null;
+        byte[] result = null;
         try {
-            result = TridionBinaryProvider.getInstance().getBinaryMetaById(id, publication);
+            result = TridionBinaryProvider.getInstance().getCompressedBinaryMetaById(id, publication);
         } catch (IOException | StorageException e) {
             LOG.error("Error fetching binary meta", e);
         } catch (ItemNotFoundException e) {
@@ -144,7 +151,7 @@ public class BinaryProviderService {
         time = System.currentTimeMillis() - time;
         LOG.debug("<< End fetching binary meta. Duration {}s", time / 1000.0);
 
-        return result;
+        return Base64StreamingOutput.toResponse(result, false);
     }
 
     /**
@@ -155,22 +162,22 @@ public class BinaryProviderService {
      *
      * @param url         string representing the path part of the binary URL
      * @param publication int representing the Publication id to lookup the binary in
-     * @return String representing the JSON serialization of the indentified binary or null, if not found or error occurred
+     * @return Response streaming the Base64 encoded binary meta; or no content, otherwise
      */
     @GET
     @Path ("/getmetabyurl/{publicationId:\\d+}/{url}")
     @Produces (MediaType.TEXT_PLAIN)
-    public String getMetaByURL(@PathParam ("url") final String url,
-                               @PathParam ("publicationId") final int publication,
-                               @Context HttpServletRequest request) {
+    public Response getMetaByURL(@PathParam ("url") final String url,
+                                 @PathParam ("publicationId") final int publication,
+                                 @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch binary meta by url: {} and publication: {}", url, publication);
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
-        String result = null;
+        byte[] result = null;
         try {
-            result = TridionBinaryProvider.getInstance().getBinaryMetaByURL(url, publication);
+            result = TridionBinaryProvider.getInstance().getCompressedBinaryMetaByURL(url, publication);
         } catch (IOException | StorageException e) {
             LOG.error("Error fetching binary meta", e);
         } catch (ItemNotFoundException e) {
@@ -182,12 +189,13 @@ public class BinaryProviderService {
         time = System.currentTimeMillis() - time;
         LOG.debug("<< End fetch binary meta. Duration: {}s", time / 1000.0);
 
-        return result;
+        return Base64StreamingOutput.toResponse(result, false);
     }
 
     /**
      * Returns a GZipped BinaryWrapper object. The wrapper contains (1) MultimediaImpl that is first GZipped, then Base64
-     * encoded, and (2) a byte array of the binary raw content.
+     * encoded, and (2) a byte array of the binary raw content. The format request parameter chooses how the wrapper is
+     * serialized: java (the default) or binary (@see SerializationFormat).
      *
      * @param id          int representing the binary item id
      * @param publication int representing the binary Publication id
@@ -206,7 +214,8 @@ public class BinaryProviderService {
 
         byte[] result = null;
         try {
-            result = TridionBinaryProvider.getInstance().getWrapperById(id, publication);
+            result = TridionBinaryProvider.getInstance().getWrapperById(id, publication,
+                    SerializationFormat.fromName(request.getParameter("format")));
         } catch (IOException | StorageException e) {
             LOG.error("Error fetching binary", e);
         } catch (ItemNotFoundException e) {
@@ -223,7 +232,8 @@ public class BinaryProviderService {
 
     /**
      * Returns a GZipped BinaryWrapper object. The wrapper contains (1) MultimediaImpl that is first GZipped, then Base64
-     * encoded, and (2) a byte array of the binary raw content.
+     * encoded, and (2) a byte array of the binary raw content. The format request parameter chooses how the wrapper is
+     * serialized: java (the default) or binary (@see SerializationFormat).
      *
      * @param url         string representing the path part of the binary URL
      * @param publication int representing the binary Publication id
@@ -242,7 +252,8 @@ public class BinaryProviderService {
 
         byte[] result = null;
         try {
-            result = TridionBinaryProvider.getInstance().getWrapperByURL(url, publication);
+            result = TridionBinaryProvider.getInstance().getWrapperByURL(url, publication,
+                    SerializationFormat.fromName(request.getParameter("format")));
         } catch (IOException | StorageException e) {
             LOG.error("Error fetching binary", e);
         } catch (ItemNotFoundException e) {
@@ -286,4 +297,23 @@ public class BinaryProviderService {
 
         return result;
     }
+
+    /*
+    Writes the binary content straight from its buffer. Off-heap content is copied to the response in small chunks,
+    never as a whole onto the heap.
+     */
+    private static Response stream(final ByteBuffer content) {
+        final StreamingOutput output = outputStream -> {
+            final ByteBuffer source = content.duplicate();
+            if (source.hasArray()) {
+                outputStream.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            } else {
+                final WritableByteChannel channel = Channels.newChannel(outputStream);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+            }
+        };
+        return Response.ok(output).header(HttpHeaders.CONTENT_LENGTH, content.remaining()).build();
+    }
 }
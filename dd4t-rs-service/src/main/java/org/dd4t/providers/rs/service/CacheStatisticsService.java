@@ -0,0 +1,83 @@
+package org.dd4t.providers.rs.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dd4t.providers.rs.caching.CacheStatistics;
+import org.dd4t.providers.rs.caching.CacheTypeStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * JAX-RS services class that exposes the provider cache statistics per cache type: hits, misses, negative cache hits,
+ * loads, load time histogram, evictions and cached payload bytes. The same statistics are available through JMX.
+ */
+@Path ("/cache")
+public class CacheStatisticsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheStatisticsService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String RESET_TOKEN_HEADER = "X-DD4T-Reset-Token";
+
+    /**
+     * Service method that returns the statistics of all cache types used since startup (or the last reset).
+     *
+     * @return String representing the statistics as JSON array
+     */
+    @GET
+    @Path ("/statistics")
+    @Produces (MediaType.APPLICATION_JSON)
+    public String getStatistics() {
+        return toJson(CacheStatistics.getInstance().getAll());
+    }
+
+    /**
+     * Service method that returns the statistics of one cache type.
+     *
+     * @param type String representing the cache type, e.g. PAGE_CONTENT
+     * @return String representing the statistics as JSON object; or null, if the cache type was not used yet
+     */
+    @GET
+    @Path ("/statistics/{type}")
+    @Produces (MediaType.APPLICATION_JSON)
+    public String getStatistics(@PathParam ("type") final String type) {
+        return toJson(CacheStatistics.getInstance().find(type));
+    }
+
+    /**
+     * Service method that resets the counters of all cache types. The request must present the configured reset token
+     * (providers.cache.statistics.resettoken); without a configured token, resets are refused.
+     *
+     * @param token String the reset token, from the X-DD4T-Reset-Token header
+     * @return Response 204 if the counters were reset; 403 otherwise
+     */
+    @POST
+    @Path ("/statistics/reset")
+    public Response resetStatistics(@HeaderParam (RESET_TOKEN_HEADER) final String token) {
+        final CacheStatistics statistics = CacheStatistics.getInstance();
+        if (!statistics.isResetAllowed(token)) {
+            LOG.warn("Refused to reset cache statistics without a valid reset token");
+            return Response.status(Response.Status.FORBIDDEN).build();
+        }
+        LOG.info("Resetting cache statistics");
+        statistics.reset();
+        return Response.noContent().build();
+    }
+
+    private static String toJson(final Object statistics) {
+        try {
+            return MAPPER.writeValueAsString(statistics);
+        } catch (JsonProcessingException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.dd4t.providers.rs.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dd4t.providers.rs.CacheWarmer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JAX-RS services class that starts a cache warm-up on demand and reports its progress. The ready method can be used
+ * as readiness check of the service; it fails until the configured percentage of pages is warmed.
+ * <p/>
+ * The warm-up itself is done by the @see CacheWarmer.
+ */
+@Path ("/warmup")
+public class CacheWarmUpService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheWarmUpService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Service method that starts a warm-up of the configured Publications, unless one is already running.
+     *
+     * @return Response 202 if the warm-up was started; 409 if a warm-up is already running
+     */
+    @POST
+    @Path ("/start")
+    public Response start() {
+        if (CacheWarmer.getInstance().start()) {
+            LOG.info("Started cache warm-up");
+            return Response.status(Response.Status.ACCEPTED).build();
+        }
+        return Response.status(Response.Status.CONFLICT).build();
+    }
+
+    /**
+     * Service method that returns the progress of the current or last warm-up.
+     *
+     * @return String representing the progress as JSON object
+     */
+    @GET
+    @Path ("/status")
+    @Produces (MediaType.APPLICATION_JSON)
+    public String getStatus() {
+        final CacheWarmer warmer = CacheWarmer.getInstance();
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", warmer.isRunning());
+        status.put("finished", warmer.isFinished());
+        status.put("ready", warmer.isReady());
+        status.put("percentage", warmer.getPercentage());
+        status.put("totalPages", warmer.getTotalPages());
+        status.put("warmedPages", warmer.getWarmedPages());
+        status.put("failedPages", warmer.getFailedPages());
+        status.put("warmedItems", warmer.getWarmedItems());
+        status.put("startedAt", warmer.getStartedAt());
+        status.put("finishedAt", warmer.getFinishedAt());
+
+        try {
+            return MAPPER.writeValueAsString(status);
+        } catch (JsonProcessingException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Service method for readiness checks.
+     *
+     * @return Response 200 if the cache is warm enough to take traffic; 503 otherwise
+     */
+    @GET
+    @Path ("/ready")
+    @Produces (MediaType.TEXT_PLAIN)
+    public Response isReady() {
+        final CacheWarmer warmer = CacheWarmer.getInstance();
+        if (warmer.isReady()) {
+            return Response.ok("ready").build();
+        }
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(warmer.getPercentage() + "% warm").build();
+    }
+}
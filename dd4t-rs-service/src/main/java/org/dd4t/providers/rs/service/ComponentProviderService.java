@@ -5,8 +5,7 @@ import org.dd4t.core.exceptions.SerializationException;
 import org.dd4t.providers.rs.TridionComponentPresentationProvider;
 import org.dd4t.providers.rs.request.BasicRequestContext;
 import org.dd4t.providers.rs.request.RequestContextRegistry;
-import org.dd4t.providers.serializer.SerializerFactory;
-import org.dd4t.providers.serializer.json.JSONSerializer;
+import org.dd4t.providers.serializer.SerializationFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,6 +16,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 /**
  * JAX-RS services class that defines and implements the service methods for fetching Dynamic Component Presentation
@@ -24,6 +24,15 @@ import javax.ws.rs.core.MediaType;
  * <p/>
  * The DCP content is sent over as serialized string -- GZip compressed, and then Base64 encoded.
  * <p/>
+ * DCPs compressed as JSON are sent as is, with Content-Encoding gzip, to clients that accept application/json and gzip
+ * (@see GZipContent); DCPs compressed as a serialized String are always Base64 encoded.
+ * <p/>
+ * The format request parameter chooses how the DCP content is serialized before it is compressed: java (the default)
+ * or binary (@see SerializationFormat).
+ * <p/>
+ * Clients that choose the zstd-dict codec get the JSON of the DCP compressed with the dictionary of its publication,
+ * in either format (@see GZipContent).
+ * <p/>
  * The underlying @see TridionComponentProvider uses an EHCaching layer to improve performance of further read operations.
  * <p/>
  * @author Mihai Cadariu
@@ -46,14 +55,15 @@ public class ComponentProviderService {
      *
      * @param componentId   int representing the Component item id
      * @param publicationId int representing the Publication item id
-     * @return String representing the DCP content encoded as JSON, GZip and Base64; or null, otherwise
+     * @return Response streaming the Base64 encoded DCP content; or no content, otherwise
      */
     @GET
     @Path ("/getcomponentpresentationbyid/{publicationId:\\d+}/{componentId:\\d+}")
-    @Produces (MediaType.TEXT_PLAIN)
-    public String getComponentPresentationById(@PathParam ("componentId") final int componentId,
-                                               @PathParam ("publicationId") final int publicationId,
-                                               @Context HttpServletRequest request) {
+    @Produces ({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, GZipContent.LZ4_JSON, GZipContent.ZSTD_JSON,
+            GZipContent.ZSTD_DICT_JSON})
+    public Response getComponentPresentationById(@PathParam ("componentId") final int componentId,
+                                                 @PathParam ("publicationId") final int publicationId,
+                                                 @Context HttpServletRequest request) {
         return getComponentPresentationById(componentId, 0, publicationId, request);
     }
 
@@ -66,24 +76,27 @@ public class ComponentProviderService {
      * @param componentId   int representing the Component item id
      * @param templateId    int representing the Component Template item id
      * @param publicationId int representing the Publication item id
-     * @return String representing the DCP content encoded as JSON, GZip and Base64; or null, otherwise
+     * @return Response streaming the Base64 encoded DCP content; or no content, otherwise
      */
     @GET
     @Path ("/getcomponentpresentationbyid/{publicationId:\\d+}/{templateId:\\d+}/{componentId:\\d+}")
-    @Produces (MediaType.TEXT_PLAIN)
-    public String getComponentPresentationById(@PathParam ("componentId") final int componentId,
-                                               @PathParam ("templateId") final int templateId,
-                                               @PathParam ("publicationId") final int publicationId,
-                                               @Context HttpServletRequest request) {
+    @Produces ({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, GZipContent.LZ4_JSON, GZipContent.ZSTD_JSON,
+            GZipContent.ZSTD_DICT_JSON})
+    public Response getComponentPresentationById(@PathParam ("componentId") final int componentId,
+                                                 @PathParam ("templateId") final int templateId,
+                                                 @PathParam ("publicationId") final int publicationId,
+                                                 @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch Component Presentation by componentId: {}, templateId: {} and publicationId: {}",
                 new Object[]{componentId, templateId, publicationId});
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
-        String result = null;
+        final SerializationFormat format = SerializationFormat.fromName(request.getParameter("format"));
+        byte[] result = null;
         try {
-            result = TridionComponentPresentationProvider.getInstance().getDynamicComponentPresentation(componentId, templateId, publicationId);
+            result = TridionComponentPresentationProvider.getInstance().getCompressedDynamicComponentPresentation(componentId, templateId, publicationId,
+                    format);
         } catch (SerializationException e) {
             LOG.error("Error fetching Component Presentation", e);
         } catch (ItemNotFoundException e) {
@@ -93,15 +106,12 @@ public class ComponentProviderService {
 
         RequestContextRegistry.removeCurrentRequestContext();
 
-        if (request.getParameter("pretty") != null) {
-            LOG.debug("Pretty print result");
-            JSONSerializer serializer = SerializerFactory.getSerializer();
-            result = serializer.prettyPrint(result);
-        }
-
         time = System.currentTimeMillis() - time;
         LOG.debug("<< End fetch Component Presentation content. Duration: {}s", time / 1000.0);
 
-        return result;
+        final byte[] content = result;
+        return GZipContent.toResponse(content, false, publicationId, codec -> TridionComponentPresentationProvider
+                .getInstance().getDynamicComponentPresentationVariant(componentId, templateId, publicationId, format,
+                        content, codec), request);
     }
 }
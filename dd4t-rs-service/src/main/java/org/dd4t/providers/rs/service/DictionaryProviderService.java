@@ -0,0 +1,49 @@
+package org.dd4t.providers.rs.service;
+
+import org.dd4t.providers.serializer.ZstdDictionaries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * JAX-RS services class that serves the Zstandard dictionaries DCP content is compressed with, when clients choose the
+ * zstd-dict codec (@see ComponentProviderService).
+ * <p/>
+ * A dictionary never changes for its id, so clients can keep it as long as they like.
+ *
+ * @author R. Kempees
+ */
+@Path ("/dictionary")
+public class DictionaryProviderService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DictionaryProviderService.class);
+    private static final int MAX_AGE = 365 * 24 * 60 * 60;
+
+    /**
+     * Service method that returns a dictionary by its id, as named by the X-DD4T-Dictionary response header.
+     *
+     * @param id long representing the dictionary id
+     * @return Response with the bytes of the dictionary; or no content, if there is no dictionary with that id
+     */
+    @GET
+    @Path ("/{dictionaryId:\\d+}")
+    @Produces (MediaType.APPLICATION_OCTET_STREAM)
+    public Response getDictionary(@PathParam ("dictionaryId") final long id) {
+        final byte[] dictionary = ZstdDictionaries.getInstance().getDictionary(id);
+        if (dictionary == null) {
+            LOG.info("Dictionary not found by id: {}", id);
+            return Response.noContent().build();
+        }
+
+        final CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(MAX_AGE);
+        return Response.ok(dictionary).cacheControl(cacheControl).build();
+    }
+}
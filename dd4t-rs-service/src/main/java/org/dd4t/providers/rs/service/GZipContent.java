@@ -0,0 +1,239 @@
+package org.dd4t.providers.rs.service;
+
+import org.dd4t.providers.serializer.CompressionCodec;
+import org.dd4t.providers.serializer.CompressionCodecs;
+import org.dd4t.providers.serializer.GZipCodec;
+import org.dd4t.providers.serializer.ZstdDictionaries;
+import org.dd4t.providers.serializer.ZstdDictionaryCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sends cached GZip compressed JSON to clients that opt in, as is: application/json with Content-Encoding gzip, so
+ * neither side Base64 encodes or decodes it, and the server does not decompress it. A client opts in by sending both
+ * Accept: application/json and Accept-Encoding: gzip, each with a quality above 0; all other clients get the Base64
+ * text as before (@see Base64StreamingOutput). Only these exact values count, not wildcards or aliases such as x-gzip.
+ * <p/>
+ * Clients may choose another enabled codec (@see CompressionCodecs) with the codec request parameter or the
+ * X-DD4T-Codec request header, e.g. ?codec=zstd. The content is then sent compressed with that codec, recompressed on
+ * the first request and stored as a variant of the cached payload; the X-DD4T-Codec response header names the codec
+ * used. Unknown or disabled codecs fall back to gzip. Only gzip is a registered HTTP
+ * content coding, so no other codec is ever sent as Content-Encoding, where proxies and HTTP clients would not know it.
+ * Instead, the compressed JSON is sent raw with media type application/x-dd4t-json-&lt;codec&gt;, e.g.
+ * application/x-dd4t-json-zstd, to clients that accept that media type; other clients get it Base64 encoded.
+ * <p/>
+ * With dictionary compression enabled, clients may also choose the zstd-dict codec: content of a publication that
+ * has a trained dictionary (@see ZstdDictionaries) is then sent as its JSON compressed with that dictionary, with the
+ * X-DD4T-Dictionary response header naming the id of the dictionary to decompress it with (@see
+ * DictionaryProviderService). Until then, it is sent GZip compressed.
+ * <p/>
+ * The RESTEasy GZip encoding interceptor would compress an entity with a Content-Encoding gzip header a second time,
+ * so it is disabled in web.xml (resteasy.disable.providers).
+ *
+ * @author R. Kempees
+ */
+public final class GZipContent {
+
+    /**
+     * The media types of JSON compressed with the codecs other than gzip, for the @Produces of services that send it.
+     */
+    public static final String LZ4_JSON = "application/x-dd4t-json-lz4";
+    public static final String ZSTD_JSON = "application/x-dd4t-json-zstd";
+    public static final String ZSTD_DICT_JSON = "application/x-dd4t-json-zstd-dict";
+
+    private static final Logger LOG = LoggerFactory.getLogger(GZipContent.class);
+    private static final String CODEC = "codec";
+    private static final String CODEC_HEADER = "X-DD4T-Codec";
+    private static final String DICTIONARY_HEADER = "X-DD4T-Dictionary";
+    private static final String CODEC_MEDIA_TYPE = "application/x-dd4t-json-";
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING + ", " + CODEC_HEADER;
+    private static final CompressionCodecs CODECS = CompressionCodecs.getInstance();
+
+    private GZipContent () {
+
+    }
+
+    /**
+     * Recompresses content the client asked for in another codec than gzip, without storing the result. No
+     * dictionary is applied.
+     *
+     * @param content byte[] the GZip compressed content; null if it was not found
+     * @param json    boolean true if the content is known to be compressed JSON; false to check it first, since
+     *                content compressed as a serialized Java object can't be sent as JSON
+     * @param request HttpServletRequest representing the current request
+     * @return Response with the compressed JSON, the Base64 encoded content or no content
+     */
+    public static Response toResponse (final byte[] content, final boolean json, final HttpServletRequest request) {
+        return toResponse(content, json, 0, codec -> CODECS.recompress(content, codec), request);
+    }
+
+    /**
+     * @param content       byte[] the GZip compressed content; null if it was not found
+     * @param json          boolean true if the content is known to be compressed JSON; false to check it first, since
+     *                      content compressed as a serialized Java object can't be sent as JSON
+     * @param publicationId int the publication id of the content, whose dictionary the zstd-dict codec uses; 0 if
+     *                      it has none
+     * @param variants      Variants of the cached content, for clients that ask for another codec than gzip
+     * @param request       HttpServletRequest representing the current request
+     * @return Response with the compressed JSON, the Base64 encoded content or no content
+     */
+    public static Response toResponse (final byte[] content, final boolean json, final int publicationId,
+                                       final Variants variants, final HttpServletRequest request) {
+        final boolean pretty = request.getParameter("pretty") != null;
+        final CompressionCodec requested = pretty ? GZipCodec.getInstance() : getCodec(request, publicationId);
+        final byte[] variant = content == null || GZipCodec.NAME.equals(requested.getName()) ? null :
+                variants.get(requested);
+        if (variant == null) {
+            return toResponse(content, GZipCodec.getInstance(), () -> json || isGZipJson(content), pretty, request);
+        }
+        // a dictionary is applied to the JSON of the content, whatever it is cached as
+        return toResponse(variant, requested,
+                () -> json || requested instanceof ZstdDictionaryCodec || isGZipJson(content), false, request);
+    }
+
+    /*
+    Tells whether the content is JSON only if the client accepts it as such, since that may inflate it.
+     */
+    private static Response toResponse (final byte[] encoded, final CompressionCodec codec, final BooleanSupplier json,
+                                        final boolean pretty, final HttpServletRequest request) {
+        final String dictionary = codec instanceof ZstdDictionaryCodec ?
+                String.valueOf(((ZstdDictionaryCodec) codec).getId()) : null;
+
+        final boolean gzip = GZipCodec.NAME.equals(codec.getName());
+        if (encoded == null || pretty || !acceptsJson(request, codec, gzip) || !json.getAsBoolean()) {
+            return Response.fromResponse(Base64StreamingOutput.toResponse(encoded, pretty))
+                    .header(HttpHeaders.VARY, VARY).header(CODEC_HEADER, codec.getName())
+                    .header(DICTIONARY_HEADER, dictionary).build();
+        }
+
+        LOG.debug("Sending {} bytes of {} compressed JSON", encoded.length, codec.getName());
+        if (!gzip) {
+            return Response.ok(encoded, MediaType.valueOf(getMediaType(codec)))
+                    .header(HttpHeaders.VARY, VARY).header(CODEC_HEADER, codec.getName())
+                    .header(DICTIONARY_HEADER, dictionary).build();
+        }
+        return Response.ok(encoded, MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.CONTENT_ENCODING, codec.getName())
+                .header(HttpHeaders.VARY, VARY).header(CODEC_HEADER, codec.getName()).build();
+    }
+
+    /**
+     * @param codec CompressionCodec the content is compressed with, other than gzip
+     * @return String the media type JSON compressed with the codec is sent as, e.g. application/x-dd4t-json-zstd
+     */
+    static String getMediaType (final CompressionCodec codec) {
+        return CODEC_MEDIA_TYPE + codec.getName();
+    }
+
+    /**
+     * @param request HttpServletRequest representing the current request
+     * @return String the name of the codec the client chose; null if it chose none
+     */
+    private static String getCodecName (final HttpServletRequest request) {
+        final String name = request.getParameter(CODEC);
+        return name == null ? request.getHeader(CODEC_HEADER) : name;
+    }
+
+    /*
+    The zstd-dict codec is not one of the enabled codecs, but the dictionary of the publication, if it has one yet.
+     */
+    private static CompressionCodec getCodec (final HttpServletRequest request, final int publicationId) {
+        final String name = getCodecName(request);
+        final CompressionCodec codec = name != null && ZstdDictionaryCodec.NAME.equalsIgnoreCase(name.trim()) ?
+                ZstdDictionaries.getInstance().getCodec(publicationId) : CODECS.getCodec(name);
+        return codec == null ? GZipCodec.getInstance() : codec;
+    }
+
+    /*
+    GZip compressed JSON is accepted as application/json with content coding gzip; JSON compressed with another codec
+    only as its own media type.
+     */
+    private static boolean acceptsJson (final HttpServletRequest request, final CompressionCodec codec,
+                                        final boolean gzip) {
+        if (!gzip) {
+            return getQuality(request.getHeaders(HttpHeaders.ACCEPT), getMediaType(codec)) > 0;
+        }
+        return getQuality(request.getHeaders(HttpHeaders.ACCEPT), MediaType.APPLICATION_JSON) > 0 &&
+                getQuality(request.getHeaders(HttpHeaders.ACCEPT_ENCODING), codec.getName()) > 0;
+    }
+
+    /**
+     * @param headers Enumeration of the values of an Accept or Accept-Encoding header, each a comma separated list of
+     *                values with optional parameters, such as "gzip;q=0.5, br"; may be null
+     * @param value   String the media type or content coding to look for, e.g. gzip
+     * @return float the highest quality (q parameter) the headers list the given value with, 1 if it has none; 0 if it
+     * is not listed, or with an invalid quality
+     */
+    static float getQuality (final Enumeration<String> headers, final String value) {
+        float quality = 0;
+        while (headers != null && headers.hasMoreElements()) {
+            for (String element : headers.nextElement().split(",")) {
+                final String[] parameters = element.split(";");
+                if (parameters[0].trim().equalsIgnoreCase(value)) {
+                    quality = Math.max(quality, getQuality(parameters));
+                }
+            }
+        }
+        return quality;
+    }
+
+    private static float getQuality (final String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            final String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && Character.toLowerCase(parameter.charAt(0)) == 'q' &&
+                    parameter.charAt(1) == '=') {
+                try {
+                    final float quality = Float.parseFloat(parameter.substring(2).trim());
+                    return quality >= 0 && quality <= 1 ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /*
+    Inflates only the first byte, to tell compressed JSON from a compressed serialized Java object.
+     */
+    private static boolean isGZipJson (final byte[] content) {
+        if (content.length < 2 || content[0] != (byte) GZIPInputStream.GZIP_MAGIC ||
+                content[1] != (byte) (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            return false;
+        }
+        try (InputStream input = GZipCodec.getInstance().newInputStream(new ByteArrayInputStream(content))) {
+            int first = input.read();
+            while (first == ' ' || first == '\n' || first == '\r' || first == '\t') {
+                first = input.read();
+            }
+            return first == '{' || first == '[';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The cached content of a response compressed with another codec than gzip; typically stored as a variant of the
+     * cached payload (@see org.dd4t.providers.rs.caching.SingleFlightLoader#getVariant).
+     */
+    public interface Variants {
+
+        /**
+         * @param codec CompressionCodec other than gzip; for a ZstdDictionaryCodec, the JSON of the content is to be
+         *              compressed, whatever the content is cached as
+         * @return byte[] the content compressed with the given codec; null if it could not be compressed
+         */
+        byte[] get (CompressionCodec codec);
+    }
+}
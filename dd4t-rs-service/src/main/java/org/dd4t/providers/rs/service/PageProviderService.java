@@ -18,6 +18,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import java.io.IOException;
 
 /**
@@ -27,6 +28,9 @@ import java.io.IOException;
  * The page content is sent over as serialized string -- first converted to JSON format, then GZip compressed, and
  * finally Base64 encoded.
  * <p/>
+ * Clients that send Accept: application/json and Accept-Encoding: gzip get the cached compressed JSON as is, with
+ * Content-Encoding gzip (@see GZipContent).
+ * <p/>
  * The underlying @see TridionPageProvider uses an EHCaching layer to improve performance of further read operations.
 
  * @author R. Kempees
@@ -89,22 +93,23 @@ public class PageProviderService {
      * @param url         String representing the path part of the page URL
      * @param publication int representing the page Publication id
      * @param request     HttpServletRequest representing the current request
-     * @return String representing the page content encoded as JSON, GZip and Base64; or null, otherwise
+     * @return Response streaming the Base64 encoded page content; or no content, otherwise
      */
     @GET
     @Path ("/getcontentbyurl/{publicationId:\\d+}/{url}")
-    @Produces (MediaType.TEXT_PLAIN)
-    public String getPageContentByURL(@PathParam ("url") String url,
-                                      @PathParam ("publicationId") int publication,
-                                      @Context HttpServletRequest request) {
+    @Produces ({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, GZipContent.LZ4_JSON, GZipContent.ZSTD_JSON,
+            GZipContent.ZSTD_DICT_JSON})
+    public Response getPageContentByURL(@PathParam ("url") String url,
+                                        @PathParam ("publicationId") int publication,
+                                        @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch page content by url: {} and publication: {}", url, publication);
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
-        String result = null;
+        byte[] result = null;
         try {
-            result = TridionPageProvider.getInstance().getPageContentByURL(url, publication);
+            result = TridionPageProvider.getInstance().getCompressedPageContentByURL(url, publication);
         } catch (SerializationException e) {
             LOG.error("Error fetching page", e);
         } catch (ItemNotFoundException e) {
@@ -113,16 +118,12 @@ public class PageProviderService {
 
         RequestContextRegistry.removeCurrentRequestContext();
 
-        if (request.getParameter("pretty") != null) {
-            LOG.debug("Pretty print result");
-            JSONSerializer serializer = SerializerFactory.getSerializer();
-            result = serializer.prettyPrint(result);
-        }
-
         time = System.currentTimeMillis() - time;
         LOG.debug("<< End fetch page content. Duration: {}s", time / 1000.0);
 
-        return result;
+        final byte[] content = result;
+        return GZipContent.toResponse(content, true, publication, codec -> TridionPageProvider.getInstance()
+                .getCompressedPageContentVariant(url, publication, content, codec), request);
     }
 
     /**
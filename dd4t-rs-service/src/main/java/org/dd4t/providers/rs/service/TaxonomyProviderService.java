@@ -1,11 +1,10 @@
 package org.dd4t.providers.rs.service;
 
 import org.dd4t.core.exceptions.ItemNotFoundException;
+import org.dd4t.core.util.TCMURI;
 import org.dd4t.providers.rs.TridionTaxonomyProvider;
 import org.dd4t.providers.rs.request.BasicRequestContext;
 import org.dd4t.providers.rs.request.RequestContextRegistry;
-import org.dd4t.providers.serializer.SerializerFactory;
-import org.dd4t.providers.serializer.json.JSONSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +15,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.text.ParseException;
 
@@ -25,6 +25,9 @@ import java.text.ParseException;
  * <p/>
  * The taxonomy is sent over as serialized string -- first the Keyword object is GZip compressed, then Base64 encoded.
  * <p/>
+ * With Accept: application/json and Accept-Encoding: gzip, the compressed JSON is sent without Base64 encoding (@see
+ * GZipContent).
+ * <p/>
  * The underlying @see TridionTaxonomyProvider uses an EHCaching layer to improve performance of further read operations.
  */
 @Path ("/taxonomy")
@@ -39,13 +42,14 @@ public class TaxonomyProviderService {
      * The method delegates the call to @see TaxonomyProviderService#getTaxonomyByURI with param resolveContent true
      *
      * @param taxonomyURI String representing the root taxonomy Keyword TCMURI
-     * @return String representing the taxonomy compressed with GZip and Base64 encoded; or null, otherwise
+     * @return Response streaming the Base64 encoded taxonomy; or no content, otherwise
      */
     @GET
     @Path ("/gettaxonomy/{taxonomyURI}")
-    @Produces (MediaType.TEXT_PLAIN)
-    public String getTaxonomyByURI(@PathParam ("taxonomyURI") final String taxonomyURI,
-                                   @Context HttpServletRequest request) {
+    @Produces ({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, GZipContent.LZ4_JSON, GZipContent.ZSTD_JSON,
+            GZipContent.ZSTD_DICT_JSON})
+    public Response getTaxonomyByURI(@PathParam ("taxonomyURI") final String taxonomyURI,
+                                     @Context HttpServletRequest request) {
         return getTaxonomyByURI(taxonomyURI, true, request);
     }
 
@@ -56,38 +60,35 @@ public class TaxonomyProviderService {
      *
      * @param taxonomyURI    String representing the root taxonomy Keyword TCMURI
      * @param resolveContent boolean indicating whether or not to include classified content TCMURIs for each Keyword
-     * @return String representing the taxonomy compressed with GZip and Base64 encoded; or null, otherwise
+     * @return Response streaming the Base64 encoded taxonomy; or no content, otherwise
      */
     @GET
     @Path ("/gettaxonomy/{taxonomyURI}/{resolveContent}")
-    @Produces (MediaType.TEXT_PLAIN)
-    public String getTaxonomyByURI(@PathParam ("taxonomyURI") final String taxonomyURI,
-                                   @PathParam ("resolveContent") final boolean resolveContent,
-                                   @Context HttpServletRequest request) {
+    @Produces ({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, GZipContent.LZ4_JSON, GZipContent.ZSTD_JSON,
+            GZipContent.ZSTD_DICT_JSON})
+    public Response getTaxonomyByURI(@PathParam ("taxonomyURI") final String taxonomyURI,
+                                     @PathParam ("resolveContent") final boolean resolveContent,
+                                     @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch taxonomy by URI: {} and resolveContent: {}", taxonomyURI, resolveContent);
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
-        String result = null;
+        byte[] result = null;
         try {
-            result = TridionTaxonomyProvider.getInstance().getTaxonomy(taxonomyURI, resolveContent);
+            result = TridionTaxonomyProvider.getInstance().getCompressedTaxonomy(taxonomyURI, resolveContent);
         } catch (IOException | ItemNotFoundException | ParseException e) {
             LOG.error("Error fetching taxonomy", e);
         }
 
         RequestContextRegistry.removeCurrentRequestContext();
 
-        if (request.getParameter("pretty") != null) {
-            LOG.debug("Pretty print result");
-            JSONSerializer serializer = SerializerFactory.getSerializer();
-            result = serializer.prettyPrint(result);
-        }
-
         time = System.currentTimeMillis() - time;
         LOG.debug("<< End fetch taxonomy. Duration: {}s", time / 1000.0);
 
-        return result;
+        final byte[] content = result;
+        return GZipContent.toResponse(content, true, getPublicationId(taxonomyURI), codec -> TridionTaxonomyProvider
+                .getInstance().getCompressedTaxonomyVariant(taxonomyURI, content, codec), request);
     }
 
     /**
@@ -98,37 +99,46 @@ public class TaxonomyProviderService {
      *
      * @param taxonomyURI String representing the root taxonomy Keyword TCMURI
      * @param schemaURI   String representing the filter for classified related Components to return for each Keyword
-     * @return String representing the taxonomy compressed with GZip and Base64 encoded; or null, otherwise
+     * @return Response streaming the Base64 encoded taxonomy; or no content, otherwise
      */
     @GET
     @Path ("/gettaxonomybyschema/{taxonomyURI}/{schemaURI}")
-    @Produces (MediaType.TEXT_PLAIN)
-    public String getTaxonomyFilterBySchema(@PathParam ("taxonomyURI") final String taxonomyURI,
-                                            @PathParam ("schemaURI") final String schemaURI,
-                                            @Context HttpServletRequest request) {
+    @Produces ({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, GZipContent.LZ4_JSON, GZipContent.ZSTD_JSON,
+            GZipContent.ZSTD_DICT_JSON})
+    public Response getTaxonomyFilterBySchema(@PathParam ("taxonomyURI") final String taxonomyURI,
+                                              @PathParam ("schemaURI") final String schemaURI,
+                                              @Context HttpServletRequest request) {
         long time = System.currentTimeMillis();
         LOG.debug(">> Fetch taxonomy by URI: {} and filter related Components by schemaURI: {}", taxonomyURI, schemaURI);
 
         RequestContextRegistry.setCurrentRequestContext(new BasicRequestContext(request));
 
-        String result = null;
+        byte[] result = null;
         try {
-            result = TridionTaxonomyProvider.getInstance().getTaxonomyRelatedBySchema(taxonomyURI, schemaURI);
+            result = TridionTaxonomyProvider.getInstance().getCompressedTaxonomyRelatedBySchema(taxonomyURI, schemaURI);
         } catch (IOException | ItemNotFoundException | ParseException e) {
             LOG.error("Error fetching taxonomy", e);
         }
 
         RequestContextRegistry.removeCurrentRequestContext();
 
-        if (request.getParameter("pretty") != null) {
-            LOG.debug("Pretty print result");
-            JSONSerializer serializer = SerializerFactory.getSerializer();
-            result = serializer.prettyPrint(result);
-        }
-
         time = System.currentTimeMillis() - time;
         LOG.debug("<< End fetch taxonomy. Duration: {}s", time / 1000.0);
 
-        return result;
+        final byte[] content = result;
+        return GZipContent.toResponse(content, true, getPublicationId(taxonomyURI), codec -> TridionTaxonomyProvider
+                .getInstance().getCompressedTaxonomyRelatedBySchemaVariant(taxonomyURI, schemaURI, content, codec),
+                request);
+    }
+
+    /*
+    The publication whose dictionary the zstd-dict codec uses; an invalid URI found no taxonomy anyway.
+     */
+    private static int getPublicationId(final String taxonomyURI) {
+        try {
+            return new TCMURI(taxonomyURI).getPublicationId();
+        } catch (ParseException e) {
+            return 0;
+        }
     }
 }
@@ -6,7 +6,8 @@ package org.dd4t.providers.rs.utils;
  * @author R. Kempees
  */
 public enum RsCacheType {
-    CUSTOM_META_VALUES_FOR_KEY("CMVK");
+    CUSTOM_META_VALUES_FOR_KEY("CMVK"),
+    COMPONENT_CONTENT_BINARY("CCB");
 
     private String id;
 
@@ -0,0 +1,185 @@
+package org.dd4t.providers.serializer;
+
+import org.dd4t.core.exceptions.SerializationException;
+import org.dd4t.providers.transport.BinaryWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Serializes DCP content and binary wrappers in a compact, versioned binary layout and compresses it with GZip. Unlike
+ * Java serialization, it writes no class descriptors and can only ever decode into a String or a BinaryWrapper, so
+ * clients don't need to deserialize arbitrary objects from the wire.
+ * <p/>
+ * Layout of the uncompressed content, all numbers big endian:
+ * <pre>
+ * magic     3 bytes 'D' '4' 'T'
+ * version   1 byte, currently 1
+ * kind      1 byte, 1 for a String, 2 for a BinaryWrapper
+ * String:        the value
+ * BinaryWrapper: the binary meta as String, then the content as byte array
+ * </pre>
+ * A String is its UTF-8 encoded byte array; a byte array is an int length followed by that many bytes, or length -1
+ * for null. Nothing may follow the value; content with a truncated or corrupt GZip trailer is rejected.
+ *
+ * @author R. Kempees
+ */
+public class BinarySerializer {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'D', '4', 'T'};
+    private static final int KIND_STRING = 1;
+    private static final int KIND_BINARY_WRAPPER = 2;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final GZipCodec GZIP_CODEC = GZipCodec.getInstance();
+    private static final BinarySerializer INSTANCE = new BinarySerializer();
+
+    private BinarySerializer () {
+
+    }
+
+    public static BinarySerializer getInstance () {
+        return INSTANCE;
+    }
+
+    /**
+     * @param content String the content to serialize
+     * @return byte[] representing the GZip compressed serialized content
+     * @throws SerializationException if the content could not be compressed
+     */
+    public byte[] serialize (final String content) throws SerializationException {
+        try {
+            return GZIP_CODEC.compress(output -> {
+                DataOutputStream data = writeHeader(output, KIND_STRING);
+                writeString(data, content);
+                data.flush();
+            });
+        } catch (IOException ioe) {
+            throw new SerializationException("Failed to serialize String", ioe);
+        }
+    }
+
+    /**
+     * @param wrapper BinaryWrapper the binary meta and content to serialize
+     * @return byte[] representing the GZip compressed serialized wrapper
+     * @throws SerializationException if the wrapper could not be compressed
+     */
+    public byte[] serialize (final BinaryWrapper wrapper) throws SerializationException {
+        try {
+            return GZIP_CODEC.compress(output -> {
+                DataOutputStream data = writeHeader(output, KIND_BINARY_WRAPPER);
+                writeString(data, wrapper.getBinary());
+                writeBytes(data, wrapper.getContent());
+                data.flush();
+            });
+        } catch (IOException ioe) {
+            throw new SerializationException("Failed to serialize BinaryWrapper", ioe);
+        }
+    }
+
+    /**
+     * @param bytes byte[] the GZip compressed serialized String
+     * @return String the deserialized content
+     * @throws SerializationException if the bytes are not a compressed serialized String of a known version
+     */
+    public String deserializeString (final byte[] bytes) throws SerializationException {
+        try (InputStream input = GZIP_CODEC.newInputStream(new ByteArrayInputStream(bytes))) {
+            DataInputStream data = readHeader(input, KIND_STRING);
+            final String content = readString(data);
+            readEnd(data);
+            return content;
+        } catch (IOException ioe) {
+            throw new SerializationException("Failed to deserialize String", ioe);
+        }
+    }
+
+    /**
+     * @param bytes byte[] the GZip compressed serialized BinaryWrapper
+     * @return BinaryWrapper the deserialized binary meta and content
+     * @throws SerializationException if the bytes are not a compressed serialized BinaryWrapper of a known version
+     */
+    public BinaryWrapper deserializeBinaryWrapper (final byte[] bytes) throws SerializationException {
+        try (InputStream input = GZIP_CODEC.newInputStream(new ByteArrayInputStream(bytes))) {
+            DataInputStream data = readHeader(input, KIND_BINARY_WRAPPER);
+            String binary = readString(data);
+            final BinaryWrapper wrapper = new BinaryWrapper(binary, readBytes(data));
+            readEnd(data);
+            return wrapper;
+        } catch (IOException ioe) {
+            throw new SerializationException("Failed to deserialize BinaryWrapper", ioe);
+        }
+    }
+
+    private static DataOutputStream writeHeader (final OutputStream output, final int kind) throws IOException {
+        DataOutputStream data = new DataOutputStream(output);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(kind);
+        return data;
+    }
+
+    private static DataInputStream readHeader (final InputStream input, final int kind) throws IOException {
+        DataInputStream data = new DataInputStream(input);
+        for (byte magic : MAGIC) {
+            if (data.readByte() != magic) {
+                throw new IOException("Not in binary serialization format");
+            }
+        }
+        final int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary serialization version: " + version);
+        }
+        final int actualKind = data.readUnsignedByte();
+        if (actualKind != kind) {
+            throw new IOException("Unexpected kind of serialized content: " + actualKind);
+        }
+        return data;
+    }
+
+    /*
+    Reads up to the end of the compressed stream, so its GZip trailer is checked and truncated or corrupt content that
+    still holds a complete value is rejected.
+     */
+    private static void readEnd (final DataInputStream data) throws IOException {
+        if (data.read() != -1) {
+            throw new IOException("Unexpected content after the serialized value");
+        }
+    }
+
+    private static void writeString (final DataOutputStream data, final String value) throws IOException {
+        writeBytes(data, value == null ? null : value.getBytes(UTF_8));
+    }
+
+    private static String readString (final DataInputStream data) throws IOException {
+        final byte[] bytes = readBytes(data);
+        return bytes == null ? null : new String(bytes, UTF_8);
+    }
+
+    private static void writeBytes (final DataOutputStream data, final byte[] value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+        } else {
+            data.writeInt(value.length);
+            data.write(value);
+        }
+    }
+
+    private static byte[] readBytes (final DataInputStream data) throws IOException {
+        final int length = data.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid length: " + length);
+        }
+        final byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,42 @@
+package org.dd4t.providers.serializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression format for cached and sent content (@see CompressionCodecs).
+ *
+ * @author R. Kempees
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return String the name of the codec, as clients choose it, e.g. gzip; only gzip is also an HTTP content coding
+     */
+    String getName ();
+
+    /**
+     * Compresses everything the given writer writes.
+     *
+     * @param writer the StreamWriter writing the uncompressed content
+     * @return byte[] representing the compressed content
+     * @throws IOException if the writer fails
+     */
+    byte[] compress (StreamWriter writer) throws IOException;
+
+    /**
+     * @param input InputStream to read compressed content from
+     * @return InputStream decompressing the given stream; close it when done
+     * @throws IOException if the input does not start like content of this codec
+     */
+    InputStream newInputStream (InputStream input) throws IOException;
+
+    /**
+     * Writes uncompressed content to the stream it is given.
+     */
+    interface StreamWriter {
+
+        void write (OutputStream output) throws IOException;
+    }
+}
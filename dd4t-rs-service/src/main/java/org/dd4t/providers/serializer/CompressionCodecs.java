@@ -0,0 +1,110 @@
+package org.dd4t.providers.serializer;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The compression codecs content can be sent with. Payloads are cached GZip compressed; the first request for a payload
+ * in another codec recompresses it, and the result is stored with the cached payload as a variant (@see
+ * org.dd4t.providers.rs.caching.SingleFlightLoader#getVariant). A variant is therefore counted in the budget of the
+ * cache type of its payload, and evicted, invalidated and replaced together with it.
+ *
+ * @author R. Kempees
+ */
+public class CompressionCodecs {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressionCodecs.class);
+    private static final CompressionCodecs INSTANCE = new CompressionCodecs();
+
+    private final Map<String, CompressionCodec> codecs = new HashMap<>();
+    private volatile Map<String, CompressionCodec> enabled = Collections.emptyMap();
+
+    private CompressionCodecs () {
+        for (CompressionCodec codec : new CompressionCodec[]{GZipCodec.getInstance(), Lz4Codec.getInstance(),
+                ZstdCodec.getInstance()}) {
+            codecs.put(codec.getName(), codec);
+        }
+        setCodecs(Collections.singleton(GZipCodec.NAME));
+    }
+
+    public static CompressionCodecs getInstance () {
+        return INSTANCE;
+    }
+
+    public Set<String> getCodecs () {
+        return enabled.keySet();
+    }
+
+    /**
+     * @param names Set of the names of the codecs clients may choose (gzip, lz4, zstd); gzip is always enabled
+     */
+    public void setCodecs (final Set<String> names) {
+        final Map<String, CompressionCodec> result = new HashMap<>();
+        result.put(GZipCodec.NAME, GZipCodec.getInstance());
+        for (String name : names) {
+            final CompressionCodec codec = codecs.get(name.trim().toLowerCase());
+            if (codec == null) {
+                LOG.warn("Ignoring unknown compression codec: {}", name);
+            } else {
+                result.put(codec.getName(), codec);
+            }
+        }
+        LOG.info("Enabled compression codecs: {}", result.keySet());
+        this.enabled = Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @param name String representing the codec name, in any case; may be null
+     * @return CompressionCodec with the given name, if it is enabled; null otherwise
+     */
+    public CompressionCodec getCodec (final String name) {
+        return name == null ? null : enabled.get(name.trim().toLowerCase());
+    }
+
+    /**
+     * Returns the given GZip compressed payload compressed with the given codec. The result is not kept; callers store
+     * it as a variant of the cached payload.
+     *
+     * @param gzipped byte[] the cached GZip compressed payload
+     * @param codec   CompressionCodec to compress the payload with
+     * @return byte[] the payload compressed with the codec; null if it could not be recompressed
+     */
+    public byte[] recompress (final byte[] gzipped, final CompressionCodec codec) {
+        if (GZipCodec.NAME.equals(codec.getName())) {
+            return gzipped;
+        }
+
+        return compress(codec, output -> {
+            try (InputStream input = GZipCodec.getInstance().newInputStream(new ByteArrayInputStream(gzipped))) {
+                IOUtils.copy(input, output);
+            }
+        });
+    }
+
+    /**
+     * Returns the content the given writer writes, compressed with the given codec, e.g. the JSON of a payload rather
+     * than the payload itself. The result is not kept; callers store it as a variant of the cached payload.
+     *
+     * @param codec   CompressionCodec to compress the content with
+     * @param content CompressionCodec.StreamWriter writing the uncompressed content of the variant
+     * @return byte[] the content compressed with the codec; null if it could not be compressed
+     */
+    public byte[] compress (final CompressionCodec codec, final CompressionCodec.StreamWriter content) {
+        try {
+            return codec.compress(content);
+        } catch (IOException | RuntimeException | LinkageError e) {
+            // e.g. the native library of the codec is not available on this platform
+            LOG.warn("Could not compress payload with {}", codec.getName(), e);
+            return null;
+        }
+    }
+}
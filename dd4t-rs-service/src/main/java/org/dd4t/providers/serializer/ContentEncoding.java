@@ -0,0 +1,81 @@
+package org.dd4t.providers.serializer;
+
+/**
+ * How page and DCP content read from the broker is encoded: plain JSON, or JSON that the publisher already GZip
+ * compressed and Base64 encoded.
+ *
+ * @author R. Kempees
+ */
+public enum ContentEncoding {
+    JSON,
+    BASE64_GZIP;
+
+    /*
+    The Base64 encoding of the GZip magic number and the deflate method, which every GZip member starts with.
+     */
+    private static final String BASE64_GZIP_PREFIX = "H4sI";
+
+    /*
+    Base64 characters that encode the 10 byte GZip header, and the header flags that are reserved.
+     */
+    private static final int HEADER_CHARACTERS = 16;
+    private static final int RESERVED_FLAGS = 0xe0;
+
+    /**
+     * Tells the encoding of the given content from its first characters, rather than by scanning all of it. Content is
+     * taken as Base64 encoded GZip if it starts with H4sI and its first 16 characters are Base64 that decodes into a
+     * valid GZip header, so text that only happens to start with H4sI is still taken as JSON.
+     *
+     * @param content String the content read from the broker
+     * @return ContentEncoding BASE64_GZIP if the content starts like Base64 encoded GZip; JSON otherwise
+     */
+    public static ContentEncoding detect(final String content) {
+        return content.startsWith(BASE64_GZIP_PREFIX) && isGZipHeader(content) ? BASE64_GZIP : JSON;
+    }
+
+    /*
+    Decodes the GZip header from the first 16 characters and checks the fields after the magic number and method:
+    no reserved flags, extra flags of a deflate level (0, 2 or 4) and a known operating system (0 - 13, or 255).
+     */
+    private static boolean isGZipHeader(final String content) {
+        if (content.length() < HEADER_CHARACTERS) {
+            return false;
+        }
+
+        final byte[] header = new byte[HEADER_CHARACTERS / 4 * 3];
+        for (int i = 0; i < HEADER_CHARACTERS; i += 4) {
+            int bits = 0;
+            for (int j = i; j < i + 4; j++) {
+                final int value = decode(content.charAt(j));
+                if (value < 0) {
+                    return false;
+                }
+                bits = bits << 6 | value;
+            }
+            header[i / 4 * 3] = (byte) (bits >> 16);
+            header[i / 4 * 3 + 1] = (byte) (bits >> 8);
+            header[i / 4 * 3 + 2] = (byte) bits;
+        }
+
+        final int flags = header[3] & 0xff;
+        final int extraFlags = header[8] & 0xff;
+        final int os = header[9] & 0xff;
+        return (flags & RESERVED_FLAGS) == 0 && (extraFlags == 0 || extraFlags == 2 || extraFlags == 4) &&
+                (os <= 13 || os == 255);
+    }
+
+    private static int decode(final char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        } else if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        } else if (c == '+' || c == '-') {
+            return 62;
+        } else if (c == '/' || c == '_') {
+            return 63;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,357 @@
+package org.dd4t.providers.serializer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * GZip compression with pooled Deflaters and Inflaters. The JDK GZip streams create a Deflater or Inflater per stream,
+ * each holding native zlib memory until it is ended or finalized; at a high request rate that churns native memory and
+ * loads the finalizer. The streams of this codec write and read the same GZip format, but take their Deflater or
+ * Inflater from a bounded pool and reset it back into the pool on close.
+ * <p/>
+ * Compressed output is collected in a buffer taken from a bounded pool as well, so compressing allocates little more
+ * than the resulting byte array. Buffers that grew beyond MAX_RETAINED_BUFFER are dropped rather than pooled. The pools
+ * are not bound to threads, so they hold at most poolSize of each, and nothing is left behind on container threads
+ * when the application is undeployed.
+ *
+ * @author R. Kempees
+ */
+public class GZipCodec implements CompressionCodec {
+
+    public static final String NAME = "gzip";
+
+    private static final Logger LOG = LoggerFactory.getLogger(GZipCodec.class);
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    private static final int DEFAULT_POOL_SIZE = 32;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final byte[] HEADER = {(byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final GZipCodec INSTANCE = new GZipCodec();
+
+    private volatile BlockingQueue<Buffer> buffers = new ArrayBlockingQueue<>(DEFAULT_POOL_SIZE);
+    private volatile BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(DEFAULT_POOL_SIZE);
+    private volatile BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(DEFAULT_POOL_SIZE);
+    private volatile int level = Deflater.DEFAULT_COMPRESSION;
+
+    private GZipCodec () {
+
+    }
+
+    public static GZipCodec getInstance () {
+        return INSTANCE;
+    }
+
+    @Override
+    public String getName () {
+        return NAME;
+    }
+
+    public int getLevel () {
+        return level;
+    }
+
+    /**
+     * @param level int the compression level, from 1 (fastest) to 9 (smallest); -1 for the zlib default (6)
+     */
+    public void setLevel (final int level) {
+        this.level = level;
+        clear();
+    }
+
+    public int getPoolSize () {
+        return deflaters.remainingCapacity() + deflaters.size();
+    }
+
+    /**
+     * @param poolSize int the maximum number of idle Deflaters, of idle Inflaters and of idle buffers kept for reuse
+     */
+    public void setPoolSize (final int poolSize) {
+        clear();
+        this.buffers = new ArrayBlockingQueue<>(poolSize);
+        this.deflaters = new ArrayBlockingQueue<>(poolSize);
+        this.inflaters = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Compresses everything the given writer writes.
+     *
+     * @param writer the StreamWriter writing the uncompressed content
+     * @return byte[] representing the GZip compressed content
+     * @throws IOException if the writer fails
+     */
+    @Override
+    public byte[] compress (final StreamWriter writer) throws IOException {
+        Buffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new Buffer();
+        }
+
+        try {
+            try (OutputStream output = newOutputStream(buffer)) {
+                writer.write(output);
+            }
+            return buffer.toByteArray();
+        } finally {
+            if (buffer.capacity() <= MAX_RETAINED_BUFFER) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * @param output OutputStream to write the compressed content to
+     * @return OutputStream compressing into the given stream with a pooled Deflater; close it to return the Deflater
+     * @throws IOException if the GZip header could not be written
+     */
+    public OutputStream newOutputStream (final OutputStream output) throws IOException {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        return new GZipOutputStream(output, deflater);
+    }
+
+    /**
+     * @param input InputStream to read GZip compressed content from
+     * @return InputStream decompressing the given stream with a pooled Inflater; close it to return the Inflater
+     * @throws IOException if the input does not start with a valid GZip header
+     */
+    @Override
+    public InputStream newInputStream (final InputStream input) throws IOException {
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            return new GZipInputStream(input, inflater);
+        } catch (IOException e) {
+            release(inflater);
+            throw e;
+        }
+    }
+
+    /**
+     * Ends the pooled Deflaters and Inflaters, releasing their native memory, and drops the pooled buffers.
+     */
+    public void shutdown () {
+        clear();
+    }
+
+    private void release (final Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private void release (final Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    private void clear () {
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+        buffers.clear();
+        LOG.debug("Cleared compression pools");
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        Buffer () {
+            super(BUFFER_SIZE);
+        }
+
+        int capacity () {
+            return buf.length;
+        }
+    }
+
+    /*
+    GZip member with the same header as java.util.zip.GZIPOutputStream: no file name, time or flags.
+     */
+    private class GZipOutputStream extends DeflaterOutputStream {
+
+        private final CRC32 crc = new CRC32();
+        private boolean closed;
+
+        GZipOutputStream (final OutputStream output, final Deflater deflater) throws IOException {
+            super(output, deflater, BUFFER_SIZE);
+            output.write(HEADER);
+        }
+
+        @Override
+        public void write (final byte[] bytes, final int offset, final int length) throws IOException {
+            super.write(bytes, offset, length);
+            crc.update(bytes, offset, length);
+        }
+
+        @Override
+        public void finish () throws IOException {
+            if (def.finished()) {
+                return;
+            }
+            super.finish();
+            writeInt((int) crc.getValue());
+            writeInt((int) def.getBytesRead());
+        }
+
+        @Override
+        public void close () throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                finish();
+                out.close();
+            } finally {
+                release(def);
+            }
+        }
+
+        private void writeInt (final int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
+    }
+
+    /*
+    Reads a single GZip member, the way java.util.zip.GZIPInputStream does, and checks its CRC and size.
+     */
+    private class GZipInputStream extends InflaterInputStream {
+
+        private final CRC32 crc = new CRC32();
+        private boolean eos;
+        private boolean closed;
+
+        GZipInputStream (final InputStream input, final Inflater inflater) throws IOException {
+            super(input, inflater, BUFFER_SIZE);
+            readHeader(input);
+        }
+
+        @Override
+        public int read (final byte[] bytes, final int offset, final int length) throws IOException {
+            if (eos) {
+                return -1;
+            }
+            final int read = super.read(bytes, offset, length);
+            if (read == -1) {
+                eos = true;
+                readTrailer();
+            } else {
+                crc.update(bytes, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public int available () throws IOException {
+            return eos ? 0 : super.available();
+        }
+
+        @Override
+        public void close () throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                in.close();
+            } finally {
+                release(inf);
+            }
+        }
+
+        private void readHeader (final InputStream input) throws IOException {
+            if (readShort(input) != GZIP_MAGIC) {
+                throw new ZipException("Not in GZIP format");
+            }
+            if (readByte(input) != Deflater.DEFLATED) {
+                throw new ZipException("Unsupported compression method");
+            }
+            final int flags = readByte(input);
+            skipBytes(input, 6);
+            if ((flags & FEXTRA) == FEXTRA) {
+                skipBytes(input, readShort(input));
+            }
+            if ((flags & FNAME) == FNAME) {
+                while (readByte(input) != 0) {
+                    // skip the file name
+                }
+            }
+            if ((flags & FCOMMENT) == FCOMMENT) {
+                while (readByte(input) != 0) {
+                    // skip the comment
+                }
+            }
+            if ((flags & FHCRC) == FHCRC) {
+                skipBytes(input, 2);
+            }
+        }
+
+        private void readTrailer () throws IOException {
+            final int remaining = inf.getRemaining();
+            final InputStream trailer = remaining > 0 ?
+                    new SequenceInputStream(new ByteArrayInputStream(buf, len - remaining, remaining), in) : in;
+            final long expectedCrc = readInt(trailer) & 0xffffffffL;
+            final long expectedSize = readInt(trailer) & 0xffffffffL;
+            if (expectedCrc != crc.getValue() || expectedSize != (inf.getBytesWritten() & 0xffffffffL)) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+    }
+
+    private static int readByte (final InputStream input) throws IOException {
+        final int value = input.read();
+        if (value == -1) {
+            throw new EOFException("Unexpected end of GZIP stream");
+        }
+        return value;
+    }
+
+    private static int readShort (final InputStream input) throws IOException {
+        return readByte(input) | (readByte(input) << 8);
+    }
+
+    private static int readInt (final InputStream input) throws IOException {
+        return readShort(input) | (readShort(input) << 16);
+    }
+
+    private static void skipBytes (final InputStream input, final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readByte(input);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.dd4t.providers.serializer;
+
+/**
+ * The formats DCP content and binary wrappers can be serialized in, before they are GZip compressed. A client chooses
+ * one with the format request parameter, e.g. ?format=binary; without one, JAVA is used.
+ *
+ * @author R. Kempees
+ */
+public enum SerializationFormat {
+    /**
+     * Java serialization (ObjectOutputStream), as understood by existing clients.
+     */
+    JAVA,
+    /**
+     * The versioned, length prefixed layout of @see BinarySerializer.
+     */
+    BINARY;
+
+    /**
+     * @param name String representing the format name, in any case; may be null
+     * @return SerializationFormat with the given name; or JAVA, if the name is empty or unknown
+     */
+    public static SerializationFormat fromName(final String name) {
+        if (name != null) {
+            for (SerializationFormat format : values()) {
+                if (format.name().equalsIgnoreCase(name.trim())) {
+                    return format;
+                }
+            }
+        }
+        return JAVA;
+    }
+}
@@ -0,0 +1,52 @@
+package org.dd4t.providers.serializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * Reads a String serialized with an ObjectOutputStream, as the JAVA format caches DCP content (@see
+ * SerializationFormat), without deserializing anything else. A String is written without a class descriptor, so
+ * reading one never resolves a class; any other object is rejected when its class is resolved, before it is created.
+ *
+ * @author R. Kempees
+ */
+public final class StringObjectInputStream extends ObjectInputStream {
+
+    /**
+     * @param input InputStream the serialized String is read from
+     * @throws IOException if the stream header can't be read
+     */
+    public StringObjectInputStream (final InputStream input) throws IOException {
+        super(input);
+    }
+
+    /**
+     * @return String the String read from the stream
+     * @throws IOException if the stream holds anything other than a String, including null
+     */
+    public String readString () throws IOException {
+        final Object object;
+        try {
+            object = readObject();
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+        if (!(object instanceof String)) {
+            throw new InvalidClassException("Expected a serialized String, but read " + object);
+        }
+        return (String) object;
+    }
+
+    @Override
+    protected Class<?> resolveClass (final ObjectStreamClass description) throws IOException {
+        throw new InvalidClassException(description.getName(), "only a serialized String can be read");
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass (final String[] interfaces) throws IOException {
+        throw new InvalidClassException("Proxy", "only a serialized String can be read");
+    }
+}
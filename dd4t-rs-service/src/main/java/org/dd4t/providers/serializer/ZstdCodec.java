@@ -0,0 +1,64 @@
+package org.dd4t.providers.serializer;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Zstandard compression (zstd-jni). At its default level it compresses about as well as GZip, faster, and
+ * decompresses several times faster.
+ *
+ * @author R. Kempees
+ */
+public class ZstdCodec implements CompressionCodec {
+
+    public static final String NAME = "zstd";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int DEFAULT_LEVEL = 3;
+    private static final ZstdCodec INSTANCE = new ZstdCodec();
+
+    private volatile int level = DEFAULT_LEVEL;
+
+    private ZstdCodec () {
+
+    }
+
+    public static ZstdCodec getInstance () {
+        return INSTANCE;
+    }
+
+    @Override
+    public String getName () {
+        return NAME;
+    }
+
+    public int getLevel () {
+        return level;
+    }
+
+    /**
+     * @param level int the compression level, from 1 (fastest) to 22 (smallest)
+     */
+    public void setLevel (final int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte[] compress (final StreamWriter writer) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+        try (OutputStream output = new ZstdOutputStream(buffer, level)) {
+            writer.write(output);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public InputStream newInputStream (final InputStream input) throws IOException {
+        return new ZstdInputStream(input);
+    }
+}
@@ -0,0 +1,234 @@
+package org.dd4t.providers.serializer;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Zstandard dictionaries trained per publication for DCP content (@see ZstdDictionaryCodec). Small DCPs repeat the
+ * same field names and type markers, which a dictionary holds once instead of every payload.
+ * <p/>
+ * When enabled, the JSON of the DCPs loaded for a publication is sampled until there are enough samples; a
+ * dictionary is then trained from them in the background. Loaders only hand the content over: it is checked, copied
+ * and collected on the trainer thread, and dropped when that falls behind, so sampling adds no work to a cache miss. A
+ * publication whose training fails is sampled again, at most maxAttempts times in all.
+ * <p/>
+ * A dictionary is applied to the same JSON, not to the serialized form DCPs are cached in (@see
+ * TridionComponentPresentationProvider#getDynamicComponentPresentationVariant), and also to the JSON of the pages and
+ * taxonomies of its publication (@see GZipContent). A publication keeps its dictionary until restart, so a dictionary
+ * id a client was given stays valid, and so do the variants compressed with it.
+ * <p/>
+ * Memory: each publication holds up to samples * sampleSize bytes of samples until its dictionary is trained, and then
+ * its dictionary of up to dictionarySize bytes plus the native compression and decompression tables digested from it,
+ * which take several times that. The content compressed with a dictionary is stored with its GZip compressed payload,
+ * as a variant (@see org.dd4t.providers.rs.caching.SingleFlightLoader#getVariant), and counted in the budget of its
+ * cache type.
+ *
+ * @author R. Kempees
+ */
+public class ZstdDictionaries {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ZstdDictionaries.class);
+    private static final int DEFAULT_SAMPLES = 1000;
+    private static final int DEFAULT_SAMPLE_SIZE = 16 * 1024;
+    private static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final int SAMPLE_QUEUE_SIZE = 256;
+    private static final ZstdDictionaries INSTANCE = new ZstdDictionaries();
+
+    private final ConcurrentMap<Integer, Samples> samplesByPublication = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, ZstdDictionaryCodec> codecsByPublication = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ZstdDictionaryCodec> codecsById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Integer> attemptsByPublication = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor trainer = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(SAMPLE_QUEUE_SIZE), runnable -> {
+        final Thread thread = new Thread(runnable, "dd4t-rs-dictionary-trainer");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private volatile boolean enabled;
+    private volatile int samples = DEFAULT_SAMPLES;
+    private volatile int sampleSize = DEFAULT_SAMPLE_SIZE;
+    private volatile int dictionarySize = DEFAULT_DICTIONARY_SIZE;
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private ZstdDictionaries () {
+        trainer.allowCoreThreadTimeOut(true);
+    }
+
+    public static ZstdDictionaries getInstance () {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled () {
+        return enabled;
+    }
+
+    public void setEnabled (final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getSamples () {
+        return samples;
+    }
+
+    /**
+     * @param samples int the number of DCPs per publication to train a dictionary from
+     */
+    public void setSamples (final int samples) {
+        this.samples = samples;
+    }
+
+    public int getSampleSize () {
+        return sampleSize;
+    }
+
+    /**
+     * @param sampleSize int the maximum bytes of a DCP to sample; larger DCPs compress well enough without dictionary
+     */
+    public void setSampleSize (final int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public int getDictionarySize () {
+        return dictionarySize;
+    }
+
+    /**
+     * @param dictionarySize int the maximum bytes of a trained dictionary
+     */
+    public void setDictionarySize (final int dictionarySize) {
+        this.dictionarySize = dictionarySize;
+    }
+
+    public int getMaxAttempts () {
+        return maxAttempts;
+    }
+
+    /**
+     * @param maxAttempts int the number of times a dictionary is trained for a publication before it is given up on,
+     *                    e.g. since its DCPs are too few or too varied to train from
+     */
+    public void setMaxAttempts (final int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Samples the given DCP content for the dictionary of its publication, until enough content is sampled. Only
+     * queues the content; it is sampled on the trainer thread, or dropped if too much is queued already.
+     *
+     * @param publicationId int the publication id of the DCP
+     * @param content       String the DCP content as read from the broker
+     */
+    public void addSample (final int publicationId, final String content) {
+        // UTF-8 takes at least a byte per character, so longer content won't fit in a sample
+        if (!enabled || content == null || content.length() > sampleSize ||
+                codecsByPublication.containsKey(publicationId) || isGivenUp(publicationId)) {
+            return;
+        }
+        trainer.execute(() -> sample(publicationId, content));
+    }
+
+    /**
+     * @param publicationId int the publication id
+     * @return ZstdDictionaryCodec with the dictionary of the publication; null if it has none (yet)
+     */
+    public ZstdDictionaryCodec getCodec (final int publicationId) {
+        return enabled ? codecsByPublication.get(publicationId) : null;
+    }
+
+    /**
+     * @param id long the dictionary id, as in the header of the compressed content
+     * @return byte[] the dictionary with the given id; null if there is none
+     */
+    public byte[] getDictionary (final long id) {
+        final ZstdDictionaryCodec codec = codecsById.get(id);
+        return codec == null ? null : codec.getDictionary();
+    }
+
+    private boolean isGivenUp (final int publicationId) {
+        final Integer attempts = attemptsByPublication.get(publicationId);
+        return attempts != null && attempts >= maxAttempts;
+    }
+
+    /*
+    Runs on the trainer thread, so training only starts after the samples queued before it are taken.
+     */
+    private void sample (final int publicationId, final String content) {
+        if (codecsByPublication.containsKey(publicationId) || isGivenUp(publicationId) ||
+                ContentEncoding.detect(content) != ContentEncoding.JSON) {
+            return;
+        }
+
+        final byte[] sample = content.getBytes(StandardCharsets.UTF_8);
+        if (sample.length > sampleSize) {
+            return;
+        }
+
+        final Samples publicationSamples = samplesByPublication.computeIfAbsent(publicationId, id -> new Samples());
+        final List<byte[]> trainingSamples = publicationSamples.add(sample, samples);
+        if (trainingSamples != null) {
+            train(publicationId, trainingSamples);
+        }
+    }
+
+    private void train (final int publicationId, final List<byte[]> trainingSamples) {
+        final long start = System.currentTimeMillis();
+        int totalSize = 0;
+        for (byte[] sample : trainingSamples) {
+            totalSize += sample.length;
+        }
+
+        try {
+            final ZstdDictTrainer dictTrainer = new ZstdDictTrainer(totalSize, dictionarySize);
+            for (byte[] sample : trainingSamples) {
+                dictTrainer.addSample(sample);
+            }
+            final ZstdDictionaryCodec codec = new ZstdDictionaryCodec(dictTrainer.trainSamples(),
+                    ZstdCodec.getInstance().getLevel());
+            codecsById.put(codec.getId(), codec);
+            codecsByPublication.put(publicationId, codec);
+            samplesByPublication.remove(publicationId);
+            LOG.info("Trained dictionary {} of {} bytes for publication {} from {} DCPs in {} ms", codec.getId(),
+                    codec.getDictionary().length, publicationId, trainingSamples.size(),
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException | LinkageError e) {
+            // e.g. too little content to train from, or the native library is not available on this platform
+            final int attempts = attemptsByPublication.merge(publicationId, 1, Integer::sum);
+            LOG.warn("Could not train dictionary for publication {} (attempt {} of {})", publicationId, attempts,
+                    maxAttempts, e);
+            samplesByPublication.remove(publicationId);
+        }
+    }
+
+    /*
+    The samples collected for one publication. Hands them out once, when there are enough of them.
+     */
+    private static final class Samples {
+
+        private List<byte[]> collected = new ArrayList<>();
+
+        synchronized List<byte[]> add (final byte[] sample, final int count) {
+            if (collected == null) {
+                return null;
+            }
+            collected.add(sample);
+            if (collected.size() < count) {
+                return null;
+            }
+            final List<byte[]> result = collected;
+            collected = null;
+            return result;
+        }
+    }
+}
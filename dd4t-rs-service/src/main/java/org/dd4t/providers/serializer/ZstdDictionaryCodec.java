@@ -0,0 +1,79 @@
+package org.dd4t.providers.serializer;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Zstandard compression with a dictionary trained for one publication (@see ZstdDictionaries). Each payload is one
+ * Zstandard frame that names the dictionary id in its header; a client decompresses it with the dictionary it
+ * downloaded by that id.
+ *
+ * @author R. Kempees
+ */
+public class ZstdDictionaryCodec implements CompressionCodec {
+
+    public static final String NAME = "zstd-dict";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long id;
+    private final byte[] dictionary;
+    private final ZstdDictCompress compressDictionary;
+    private final ZstdDictDecompress decompressDictionary;
+
+    /**
+     * @param dictionary byte[] the trained dictionary
+     * @param level      int the compression level, from 1 (fastest) to 22 (smallest)
+     */
+    public ZstdDictionaryCodec (final byte[] dictionary, final int level) {
+        this.id = Zstd.getDictIdFromDict(dictionary);
+        this.dictionary = dictionary;
+        // digested once, rather than for every payload
+        this.compressDictionary = new ZstdDictCompress(dictionary, level);
+        this.decompressDictionary = new ZstdDictDecompress(dictionary);
+    }
+
+    @Override
+    public String getName () {
+        return NAME;
+    }
+
+    public long getId () {
+        return id;
+    }
+
+    /**
+     * @return byte[] the dictionary, as clients download it; do not modify
+     */
+    public byte[] getDictionary () {
+        return dictionary;
+    }
+
+    /*
+    Small payloads are compressed in one go: the frame then records the content size, and the one shot API is cheaper
+    than a stream for them.
+     */
+    @Override
+    public byte[] compress (final StreamWriter writer) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+        writer.write(buffer);
+        return Zstd.compress(buffer.toByteArray(), compressDictionary);
+    }
+
+    @Override
+    public InputStream newInputStream (final InputStream input) throws IOException {
+        final byte[] compressed = IOUtils.toByteArray(input);
+        final long size = Zstd.decompressedSize(compressed);
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            throw new IOException("Not a Zstandard frame with a known content size");
+        }
+        return new ByteArrayInputStream(Zstd.decompress(compressed, decompressDictionary, (int) size));
+    }
+}
@@ -2,23 +2,33 @@ package org.dd4t.providers.serializer.json;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
+import org.dd4t.contentmodel.impl.BinaryImpl;
+import org.dd4t.contentmodel.impl.KeywordImpl;
 import org.dd4t.core.exceptions.SerializationException;
+import org.dd4t.providers.serializer.ContentEncoding;
+import org.dd4t.providers.serializer.GZipCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.nio.charset.Charset;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Utility class for serializing and deserializing objects using GZip, Base64 and JSON.
@@ -35,10 +45,80 @@ public class JSONSerializer {
      */
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    private static final GZipCodec GZIP_CODEC = GZipCodec.getInstance();
+
+    /*
+    ObjectWriters and ObjectReaders per root type. They are immutable and resolve the (de)serializer of their type once,
+    instead of on every call with a Class.
+     */
+    private static final ConcurrentMap<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean AFTERBURNER = new AtomicBoolean();
+
+    private static volatile ObjectWriter prettyWriter;
+
+    private volatile ContentEncoding contentEncoding;
+
     // Add JodaTime Serialization
-    {
+    static {
         MAPPER.registerModule(new JodaModule());
         MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        prettyWriter = MAPPER.writerWithDefaultPrettyPrinter();
+        // the models serialized on every taxonomy and binary meta cache miss
+        getWriter(KeywordImpl.class);
+        getReader(KeywordImpl.class);
+        getWriter(BinaryImpl.class);
+    }
+
+    /**
+     * Registers the Jackson Afterburner module, which replaces reflective getter, setter and constructor calls of
+     * (de)serializers with generated bytecode. It can't be unregistered; set it once, at startup.
+     *
+     * @param afterburner boolean true to register the Afterburner module
+     */
+    public void setAfterburner(boolean afterburner) {
+        if (afterburner && AFTERBURNER.compareAndSet(false, true)) {
+            MAPPER.registerModule(new AfterburnerModule());
+            // drop readers and writers that resolved their (de)serializers without the module
+            WRITERS.clear();
+            READERS.clear();
+            prettyWriter = MAPPER.writerWithDefaultPrettyPrinter();
+            LOG.info("Registered Jackson Afterburner module");
+        }
+    }
+
+    /**
+     * @param type Class the root type to serialize
+     * @return ObjectWriter for the given type, created once
+     */
+    private static ObjectWriter getWriter(Class<?> type) {
+        ObjectWriter writer = WRITERS.get(type);
+        if (writer == null) {
+            writer = MAPPER.writerWithType(type);
+            WRITERS.putIfAbsent(type, writer);
+        }
+        return writer;
+    }
+
+    /**
+     * @param object the object to serialize; may be null, which is written as JSON null
+     * @return ObjectWriter for the type of the given object; the plain writer of the mapper for null
+     */
+    private static ObjectWriter getWriterFor(Object object) {
+        return object == null ? MAPPER.writer() : getWriter(object.getClass());
+    }
+
+    /**
+     * @param type Class the type to deserialize into
+     * @return ObjectReader for the given type, created once
+     */
+    private static ObjectReader getReader(Class<?> type) {
+        ObjectReader reader = READERS.get(type);
+        if (reader == null) {
+            reader = MAPPER.reader(type);
+            READERS.putIfAbsent(type, reader);
+        }
+        return reader;
     }
 
     /**
@@ -49,7 +129,7 @@ public class JSONSerializer {
      */
     public <T> String serializeJSON(T object) {
         try {
-            return MAPPER.writeValueAsString(object);
+            return getWriterFor(object).writeValueAsString(object);
         } catch (JsonProcessingException e) {
             LOG.error("Error while serializing object", e);
         }
@@ -57,6 +137,22 @@ public class JSONSerializer {
         return null;
     }
 
+    /**
+     * Serializes an object to JSON and compresses it with GZip in one pass. The JSON is streamed into the compressor,
+     * so no JSON String or uncompressed byte array of the whole object is built.
+     *
+     * @param object the object to serialize to JSON
+     * @return byte[] representing the GZip compressed JSON in UTF-8
+     * @throws SerializationException if the object could not be serialized or compressed
+     */
+    public <T> byte[] serializeJSONGZip(T object) throws SerializationException {
+        try {
+            return GZIP_CODEC.compress(output -> getWriterFor(object).writeValue(output, object));
+        } catch (IOException ioe) {
+            throw new SerializationException("Failed to serialize object", ioe);
+        }
+    }
+
     /**
      * Deserializes a JSON string into an object of a given type.
      *
@@ -66,7 +162,7 @@ public class JSONSerializer {
      */
     public <T> T deserializeJSON(String json, Class<T> aClass) {
         try {
-            return MAPPER.readValue(json, aClass);
+            return getReader(aClass).readValue(json);
         } catch (IOException e) {
             LOG.error("Error while deserializing message", e);
         }
@@ -74,6 +170,27 @@ public class JSONSerializer {
         return null;
     }
 
+    /**
+     * @param contentEncoding String the ContentEncoding name of all page and DCP content read from the broker; or
+     *                        detect, to tell it per item from the first characters (@see ContentEncoding#detect)
+     */
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = "detect".equalsIgnoreCase(contentEncoding.trim()) ? null :
+                ContentEncoding.valueOf(contentEncoding.trim().toUpperCase());
+    }
+
+    /**
+     * Returns the encoding of page or DCP content read from the broker, as configured or detected. Unlike isBase64,
+     * this never scans the whole content.
+     *
+     * @param content String representing the content
+     * @return ContentEncoding of the content
+     */
+    public ContentEncoding getContentEncoding(String content) {
+        final ContentEncoding configured = contentEncoding;
+        return configured != null ? configured : ContentEncoding.detect(content);
+    }
+
     /**
      * Utility method that checks whether the message pased as argument is in Base64 encoding or not.
      *
@@ -127,25 +244,14 @@ public class JSONSerializer {
      * @throws SerializationException if something goes wrong with the streams
      */
     public <T> byte[] compressGZipGeneric(T object) throws SerializationException {
-        ByteArrayOutputStream baos = null;
-        GZIPOutputStream gos = null;
-        ObjectOutputStream oos = null;
-
         try {
-            baos = new ByteArrayOutputStream();
-            gos = new GZIPOutputStream(baos);
-            oos = new ObjectOutputStream(gos);
-
-            oos.writeObject(object);
-            gos.close();
-
-            return baos.toByteArray();
+            return GZIP_CODEC.compress(output -> {
+                ObjectOutputStream oos = new ObjectOutputStream(output);
+                oos.writeObject(object);
+                oos.flush();
+            });
         } catch (IOException ioe) {
             throw new SerializationException("Failed to compres object", ioe);
-        } finally {
-            IOUtils.closeQuietly(oos);
-            IOUtils.closeQuietly(gos);
-            IOUtils.closeQuietly(baos);
         }
     }
 
@@ -157,22 +263,15 @@ public class JSONSerializer {
      * @throws SerializationException if something goes wrong with the streams
      */
     public byte[] compressGZip(String content) throws SerializationException {
-        ByteArrayOutputStream baos = null;
-        GZIPOutputStream gos = null;
-
         try {
-            baos = new ByteArrayOutputStream();
-            gos = new GZIPOutputStream(baos);
-
-            gos.write(content.getBytes());
-            gos.close();
-
-            return baos.toByteArray();
+            // encode the content in chunks while compressing it, rather than into one byte array first
+            return GZIP_CODEC.compress(output -> {
+                Writer writer = new OutputStreamWriter(output, Charset.defaultCharset());
+                writer.write(content);
+                writer.flush();
+            });
         } catch (IOException ioe) {
             throw new SerializationException("Failed to compress String", ioe);
-        } finally {
-            IOUtils.closeQuietly(gos);
-            IOUtils.closeQuietly(baos);
         }
     }
 
@@ -187,12 +286,12 @@ public class JSONSerializer {
     public <T> T decompressGZipGeneric(byte[] bytes) throws SerializationException {
         T result = null;
         ByteArrayInputStream bais = null;
-        GZIPInputStream gis = null;
+        InputStream gis = null;
         ObjectInputStream ois = null;
 
         try {
             bais = new ByteArrayInputStream(bytes);
-            gis = new GZIPInputStream(bais);
+            gis = GZIP_CODEC.newInputStream(bais);
             ois = new ObjectInputStream(gis);
 
             result = (T) ois.readObject();
@@ -217,11 +316,11 @@ public class JSONSerializer {
     public String decompressGZip(byte[] bytes) throws SerializationException {
         String result = null;
         ByteArrayInputStream bais = null;
-        GZIPInputStream gis = null;
+        InputStream gis = null;
 
         try {
             bais = new ByteArrayInputStream(bytes);
-            gis = new GZIPInputStream(bais);
+            gis = GZIP_CODEC.newInputStream(bais);
 
             result = (String) IOUtils.toString(gis);
         } catch (IOException ioe) {
@@ -240,8 +339,8 @@ public class JSONSerializer {
         }
 
         try {
-            Object jsonObject = MAPPER.readValue(json, Object.class);
-            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(jsonObject);
+            Object jsonObject = getReader(Object.class).readValue(json);
+            return prettyWriter.writeValueAsString(jsonObject);
         } catch (IOException e) {
             LOG.error("Cannot pretty print JSON", e);
         }
@@ -9,8 +9,11 @@ import org.dd4t.contentmodel.FieldType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Resolves Tridion Field Types to their proper concrete
@@ -44,7 +47,32 @@ public class TridionJsonFieldTypeIdResolver implements TypeIdResolver {
         fieldTypes.put(FieldType.UNKNOWN, NAMESPACE_PREFIX + "BaseField");
     }
 
+    /*
+    Type id per lower case field class name. A class mapped from several field types gets the id of the first one.
+     */
+    private static final Map<String, String> idsByClassName = new HashMap<>();
+
+    static {
+        for (FieldType fieldType : FieldType.values()) {
+            final String className = fieldTypes.get(fieldType);
+            if (className != null && !idsByClassName.containsKey(className.toLowerCase())) {
+                idsByClassName.put(className.toLowerCase(), fieldType.toString());
+            }
+        }
+    }
+
+    /*
+    Type id per serialized class, resolved on first use.
+     */
+    private static final ClassValue<String> idsByClass = new ClassValue<String>() {
+        @Override
+        protected String computeValue(final Class<?> type) {
+            return getIdFromClass(type.getName());
+        }
+    };
+
     private JavaType mBaseType;
+    private Map<String, JavaType> typesById = Collections.emptyMap();
 
     public TridionJsonFieldTypeIdResolver() {
     }
@@ -53,6 +81,30 @@ public class TridionJsonFieldTypeIdResolver implements TypeIdResolver {
     public void init(final JavaType javaType) {
         LOG.info("Instantiating TridionJsonFieldTypeResolver");
         mBaseType = javaType;
+
+        // resolve the type of every field type name and value once, rather than for every deserialized field
+        final Map<String, JavaType> types = new HashMap<>();
+        final Set<String> values = new HashSet<>();
+        for (FieldType fieldType : FieldType.values()) {
+            // a numeric id resolves to the first field type with that value, as in getFieldTypeByName
+            final String value = String.valueOf(fieldType.getValue());
+            final boolean firstWithValue = values.add(value);
+            final String clazzName = fieldTypes.get(fieldType);
+            if (clazzName == null) {
+                continue;
+            }
+            try {
+                final JavaType type = TypeFactory.defaultInstance()
+                        .constructSpecializedType(javaType, ClassUtil.findClass(clazzName));
+                types.put(fieldType.name(), type);
+                if (firstWithValue) {
+                    types.put(value, type);
+                }
+            } catch (ClassNotFoundException | IllegalArgumentException e) {
+                LOG.debug("Not resolving field type {} up front", fieldType, e);
+            }
+        }
+        typesById = Collections.unmodifiableMap(types);
     }
 
     @Override
@@ -62,13 +114,11 @@ public class TridionJsonFieldTypeIdResolver implements TypeIdResolver {
 
     @Override
     public String idFromValueAndType(final Object o, final Class<?> aClass) {
-        String name = aClass.getName();
-
         if (null == o) {
             return "-1";
         }
 
-        return getIdFromClass(name);
+        return idsByClass.get(aClass);
     }
 
     @Override
@@ -78,6 +128,11 @@ public class TridionJsonFieldTypeIdResolver implements TypeIdResolver {
 
     @Override
     public JavaType typeFromId(final String s) {
+        final JavaType type = typesById.get(s);
+        if (type != null) {
+            return type;
+        }
+
         String clazzName = getClassForKey(s);
         Class<?> clazz;
 
@@ -128,17 +183,13 @@ public class TridionJsonFieldTypeIdResolver implements TypeIdResolver {
         return FieldType.UNKNOWN;
     }
 
-    private String getIdFromClass(String aClassName) {
+    private static String getIdFromClass(String aClassName) {
         if (!aClassName.startsWith(NAMESPACE_PREFIX)) {
             aClassName = NAMESPACE_PREFIX + aClassName;
         }
 
-        for (Map.Entry<FieldType, String> entry : fieldTypes.entrySet()) {
-            if (entry.getValue().equalsIgnoreCase(aClassName)) {
-                LOG.trace("Found {}::{}", entry.getKey(), entry.getValue());
-                return entry.getKey().toString();
-            }
-        }
-        return "-1";
+        final String id = idsByClassName.get(aClassName.toLowerCase());
+        LOG.trace("Found {}::{}", id, aClassName);
+        return id == null ? "-1" : id;
     }
 }
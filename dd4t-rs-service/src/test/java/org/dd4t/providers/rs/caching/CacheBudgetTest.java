@@ -0,0 +1,130 @@
+package org.dd4t.providers.rs.caching;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheBudgetTest {
+
+    private static final AtomicInteger TYPES = new AtomicInteger();
+    private static final int PAYLOAD_SIZE = 1000;
+    // room for four payloads of PAYLOAD_SIZE, with their key and element overhead
+    private static final long BUDGET = 4 * 1200;
+
+    private final CacheBudget cacheBudget = CacheBudget.getInstance();
+    private final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+    private String type;
+
+    @Before
+    public void setUp () {
+        type = "BUDGET_TEST_" + TYPES.incrementAndGet();
+        cacheBudget.setBudgets(Collections.singletonMap(type, BUDGET));
+    }
+
+    @After
+    public void tearDown () {
+        cacheBudget.setBudgets(Collections.<String, Long>emptyMap());
+    }
+
+    @Test
+    public void typeIsKeptWithinBudget () {
+        for (int i = 0; i < 20; i++) {
+            store("key-" + i, 1);
+        }
+
+        assertTrue(cacheBudget.getWeight(type) <= BUDGET);
+        int cached = 0;
+        for (int i = 0; i < 20; i++) {
+            if (isCached("key-" + i)) {
+                cached++;
+            }
+        }
+        assertTrue(cached > 0 && cached <= 4);
+    }
+
+    @Test
+    public void variantsCountAgainstBudgetOfTheirPayload () {
+        final CachedPayload<byte[]> cachedPayload = store("key", 1);
+        final long weight = cacheBudget.getWeight(type);
+
+        cacheBudget.add(type, "key", cache.getProvider(), cachedPayload.withVariant("lz4", new byte[PAYLOAD_SIZE]));
+        assertEquals(weight + PAYLOAD_SIZE, cacheBudget.getWeight(type));
+    }
+
+    @Test
+    public void evictionExpiresCopyOnReadElementsInProvider () {
+        for (int i = 0; i < 5; i++) {
+            store("key-" + i, 1);
+        }
+
+        // a stale entry is either rejected on admission or evicts an older one; either way through the provider
+        int expired = 0;
+        for (int i = 0; i < 5; i++) {
+            if (cache.getStored("key-" + i).isExpired()) {
+                expired++;
+            }
+        }
+        assertEquals(1, expired);
+    }
+
+    @Test
+    public void popularPayloadsSurviveScan () {
+        for (int i = 0; i < 4; i++) {
+            store("popular-" + i, 1);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) {
+                cacheBudget.touch(type, "popular-" + i);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            store("scan-" + i, 1);
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue("popular-" + i, isCached("popular-" + i));
+        }
+    }
+
+    @Test
+    public void evictionLeavesReloadedPayloadAlone () {
+        store("key", 1);
+        cache.getProvider().storeInItemCache("key", new SimpleCacheElement<>(new CachedPayload<>(new byte[0], 2,
+                Long.MAX_VALUE), false));
+
+        assertFalse(CacheEntries.expire(cache.getProvider(), "key", 1));
+        assertTrue(isCached("key"));
+        assertTrue(CacheEntries.expire(cache.getProvider(), "key", 2));
+        assertFalse(isCached("key"));
+    }
+
+    @Test
+    public void admissionBeatsLruOnScannedTrace () {
+        final List<String> trace = CacheBudgetTraceBenchmark.generateTrace(5000, 100000, 0.9, 5000, 2000, 42);
+
+        final double lru = CacheBudgetTraceBenchmark.replayLru(trace, 250);
+        final double budget = CacheBudgetTraceBenchmark.replayBudget(trace, 250);
+        assertTrue(budget + " <= " + lru, budget > lru);
+    }
+
+    private CachedPayload<byte[]> store (final String key, final long loadedAt) {
+        final CachedPayload<byte[]> cachedPayload = new CachedPayload<>(new byte[PAYLOAD_SIZE], loadedAt,
+                Long.MAX_VALUE, 1);
+        cache.getProvider().storeInItemCache(key, new SimpleCacheElement<>(cachedPayload, false));
+        cacheBudget.add(type, key, cache.getProvider(), cachedPayload);
+        return cachedPayload;
+    }
+
+    private boolean isCached (final String key) {
+        return !cache.getStored(key).isExpired() && cache.getStored(key).getPayload() != null;
+    }
+}
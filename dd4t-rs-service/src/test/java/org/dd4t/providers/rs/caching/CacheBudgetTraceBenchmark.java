@@ -0,0 +1,164 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.core.caching.CacheElement;
+import org.dd4t.providers.PayloadCacheProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Replays an access trace against the @see CacheBudget and against a plain LRU cache that holds the same number of
+ * payloads, and prints the hit ratio of both. Every key stands for a payload of PAYLOAD_SIZE bytes.
+ * <p/>
+ * The trace is read from the file given as first argument, one cache key per line, e.g. taken from the access log of
+ * a service. Without it a trace is generated: Zipf distributed requests for popular pages, interrupted by crawler
+ * scans over keys that are requested only once. The second argument is the number of payloads the cache holds.
+ * <p/>
+ * It measures hit ratios, not time: the replay of the CacheBudget also runs the cache provider and the frequency
+ * sketch, so its run time says nothing about the budget in production. CacheBudgetTest checks the same comparison on
+ * a smaller trace. On the generated trace of 625000 accesses, the hit ratios were:
+ * <pre>
+ * payloads     LRU   CacheBudget
+ *      250  0.2495        0.3219
+ *     1000  0.3750        0.4380
+ *     5000  0.5178        0.6003
+ * </pre>
+ * <p/>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.dd4t.providers.rs.caching.CacheBudgetTraceBenchmark [-Dexec.args="trace.txt 5000"]
+ *
+ * @author R. Kempees
+ */
+public final class CacheBudgetTraceBenchmark {
+
+    static final int PAYLOAD_SIZE = 1000;
+
+    private static final String TYPE = "TRACE_BENCHMARK";
+    private static final int DEFAULT_CAPACITY = 1000;
+    private static final int DEFAULT_SKETCH_WIDTH = 262144;
+    private static final byte[] PAYLOAD = new byte[PAYLOAD_SIZE];
+
+    private CacheBudgetTraceBenchmark () {
+
+    }
+
+    public static void main (final String[] args) throws IOException {
+        final List<String> trace = args.length > 0 ?
+                Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8) :
+                generateTrace(20000, 500000, 0.9, 20000, 5000, 42);
+        final int capacity = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CAPACITY;
+
+        System.out.printf("Trace of %d accesses, cache of %d payloads%n", trace.size(), capacity);
+        System.out.printf("LRU:         hit ratio %.4f%n", replayLru(trace, capacity));
+        System.out.printf("CacheBudget: hit ratio %.4f%n", replayBudget(trace, capacity));
+    }
+
+    /**
+     * @param keys       int the number of distinct popular keys
+     * @param accesses   int the number of popular accesses
+     * @param skew       double the Zipf exponent; about 0.9 for web content
+     * @param scanEvery  int the number of popular accesses between two crawler scans
+     * @param scanLength int the number of keys a scan requests once
+     * @param seed       long the seed of the random generator, so a trace can be generated again
+     * @return List of the keys in access order
+     */
+    static List<String> generateTrace (final int keys, final int accesses, final double skew, final int scanEvery,
+                                       final int scanLength, final long seed) {
+        final double[] cumulative = new double[keys];
+        double total = 0;
+        for (int i = 0; i < keys; i++) {
+            total += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = total;
+        }
+
+        final Random random = new Random(seed);
+        final List<String> trace = new ArrayList<>(accesses + accesses / scanEvery * scanLength);
+        int scanned = 0;
+        for (int i = 1; i <= accesses; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            if (rank < 0) {
+                rank = -rank - 1;
+            }
+            trace.add(key("page", Math.min(rank, keys - 1)));
+            if (i % scanEvery == 0) {
+                for (int j = 0; j < scanLength; j++) {
+                    trace.add(key("scan", scanned++));
+                }
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * @return double the share of accesses served by an LRU cache of the given number of payloads
+     */
+    static double replayLru (final List<String> trace, final int capacity) {
+        final Map<String, byte[]> cache = new LinkedHashMap<String, byte[]>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (final Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        int hits = 0;
+        for (String key : trace) {
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, PAYLOAD);
+            }
+        }
+        return (double) hits / trace.size();
+    }
+
+    /**
+     * @return double the share of accesses served by the CacheBudget with a budget of the given number of payloads
+     */
+    static double replayBudget (final List<String> trace, final int capacity) {
+        final CacheBudget cacheBudget = CacheBudget.getInstance();
+        final PayloadCacheProvider cacheProvider = new InMemoryCacheProvider(false).getProvider();
+        final String type = TYPE + "_" + System.nanoTime();
+        // keys in a trace file vary in length; weigh them as the longest key of a generated trace
+        final long weight = new DefaultPayloadWeigher().weigh(key("page", 0), PAYLOAD);
+        cacheBudget.setBudgets(Collections.singletonMap(type, capacity * weight));
+        cacheBudget.setWeighers(Collections.<String, PayloadWeigher>singletonMap(type, (key, payload) -> weight));
+        cacheBudget.setSketchWidth(capacity);
+
+        try {
+            int hits = 0;
+            long loadedAt = 0;
+            for (String key : trace) {
+                final CacheElement<CachedPayload<byte[]>> element = cacheProvider.loadPayloadFromLocalCache(key);
+                if (!element.isExpired() && element.getPayload() != null) {
+                    hits++;
+                    cacheBudget.touch(type, key);
+                } else {
+                    final CachedPayload<byte[]> cachedPayload = new CachedPayload<>(PAYLOAD, ++loadedAt,
+                            Long.MAX_VALUE, 1);
+                    element.setPayload(cachedPayload);
+                    element.setExpired(false);
+                    cacheProvider.storeInItemCache(key, element);
+                    cacheBudget.add(type, key, cacheProvider, cachedPayload);
+                }
+            }
+            return (double) hits / trace.size();
+        } finally {
+            cacheBudget.setBudgets(Collections.<String, Long>emptyMap());
+            cacheBudget.setWeighers(Collections.<String, PayloadWeigher>emptyMap());
+            cacheBudget.setSketchWidth(DEFAULT_SKETCH_WIDTH);
+        }
+    }
+
+    private static String key (final String prefix, final int id) {
+        return String.format("%s-%08d", prefix, id);
+    }
+}
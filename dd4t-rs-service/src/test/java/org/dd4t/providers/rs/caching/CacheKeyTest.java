@@ -0,0 +1,85 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.core.caching.CacheType;
+import org.dd4t.providers.rs.utils.RsCacheType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CacheKeyTest {
+
+    @Test
+    public void keysMatchFormattedKeys () {
+        for (RsCacheType type : RsCacheType.values()) {
+            assertEquals(String.format("%s-%d-%d", type, 5, 1234), CacheKey.getKey(type, 5, 1234));
+            assertEquals(String.format("%s-%d-%d-%d", type, 5, -1, Integer.MAX_VALUE),
+                    CacheKey.getKey(type, 5, -1, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void cacheTypeKeysMatchFormattedKeys () {
+        for (CacheType type : CacheType.values()) {
+            assertEquals(String.format("%s-%d-%d", type, 5, 1234), CacheKey.getKey(type, 5, 1234));
+            assertEquals(String.format("%s-%d-%d-%d", type, 12, 345, 6789), CacheKey.getKey(type, 12, 345, 6789));
+        }
+    }
+
+    @Test
+    public void stringIdKeysMatchConcatenatedKeys () {
+        final String url = "/products/overview.html";
+        assertEquals(CacheType.PAGE_CONTENT + "-" + url + "-" + 5, CacheKey.getKey(CacheType.PAGE_CONTENT, url, 5));
+        assertEquals(CacheType.TAXONOMY + "-tcm:5-12-512", CacheKey.getKey(CacheType.TAXONOMY, "tcm:5-12-512"));
+        assertEquals(CacheType.DISCOVER_IMAGES_URL + "-" + url, CacheKey.getKey(CacheType.DISCOVER_IMAGES_URL, url));
+    }
+
+    @Test
+    public void repeatedKeysShareOneString () {
+        final String key = CacheKey.getKey(CacheType.COMPONENT_CONTENT, 5, 1234, 56);
+        assertSame(key, CacheKey.getKey(CacheType.COMPONENT_CONTENT, 5, 1234, 56));
+
+        final String urlKey = CacheKey.getKey(CacheType.BINARY_CONTENT, "/media/logo.png", 5);
+        assertSame(urlKey, CacheKey.getKey(CacheType.BINARY_CONTENT, new String("/media/logo.png"), 5));
+    }
+
+    @Test
+    public void keysOfDifferentKindsAreFormattedLikeConcatenatedKeys () {
+        // the same ids with and without a String id give the same key text, as concatenated keys did, and so share a
+        // cache entry; each is still looked up in the table as its own key
+        assertEquals(CacheType.PAGE_CONTENT + "-5-1234", CacheKey.getKey(CacheType.PAGE_CONTENT, 5, 1234));
+        assertEquals(CacheType.PAGE_CONTENT + "-5-1234", CacheKey.getKey(CacheType.PAGE_CONTENT, "5", 1234));
+        assertEquals(CacheType.PAGE_CONTENT + "-5-1234", CacheKey.getKey(CacheType.PAGE_CONTENT, 5, "1234"));
+        assertEquals(CacheType.PAGE_CONTENT + "-5-1234", CacheKey.getKey(CacheType.PAGE_CONTENT, "5", "1234"));
+        assertEquals(CacheType.PAGE_CONTENT + "-5-1234-0", CacheKey.getKey(CacheType.PAGE_CONTENT, 5, 1234, 0));
+        assertEquals(CacheType.BINARY_CONTENT + "-5-1234", CacheKey.getKey(CacheType.BINARY_CONTENT, 5, 1234));
+    }
+
+    @Test
+    public void queryKeysMatchConcatenatedKeys () {
+        assertEquals(CacheType.PAGE_CONTENT + "-1234", CacheKey.getKey(CacheType.PAGE_CONTENT, 1234));
+        assertEquals(CacheType.COMPONENT_LINK_PAGE + "-tcm:5-12-16-tcm:5-34-64",
+                CacheKey.getKey(CacheType.COMPONENT_LINK_PAGE, "tcm:5-12-16", "tcm:5-34-64"));
+        assertEquals(CacheType.TAXONOMY + "-tcm:5-12-512-tcm:5-56-8",
+                CacheKey.getKey(CacheType.TAXONOMY, "tcm:5-12-512", "tcm:5-56-8"));
+        assertEquals(CacheType.SEARCH_CUSTOM_META + "-5-d41d8cd98f00b204e9800998ecf8427e",
+                CacheKey.getKey(CacheType.SEARCH_CUSTOM_META, 5, "d41d8cd98f00b204e9800998ecf8427e"));
+        assertEquals(CacheType.COMPONENTS_BY_SCHEMA + "-5-Article-0",
+                CacheKey.getKey(CacheType.COMPONENTS_BY_SCHEMA, 5, "Article", 0));
+        assertEquals(RsCacheType.CUSTOM_META_VALUES_FOR_KEY + "-5-color-0",
+                CacheKey.getKey(RsCacheType.CUSTOM_META_VALUES_FOR_KEY, 5, "color", 0));
+        assertEquals(CacheType.COMPONENTS_BY_SCHEMA_IN_KEYWORD + "-5-Article-78-90",
+                CacheKey.getKey(CacheType.COMPONENTS_BY_SCHEMA_IN_KEYWORD, 5, "Article", 78, 90));
+    }
+
+    @Test
+    public void keysOverwrittenInTheTableAreBuiltAgain () {
+        // more keys than the table holds, so slots are taken over
+        for (int i = 0; i < 20000; i++) {
+            assertEquals(CacheType.COMPONENT_LINK + "-7-" + i, CacheKey.getKey(CacheType.COMPONENT_LINK, 7, i));
+        }
+        for (int i = 0; i < 20000; i++) {
+            assertEquals(CacheType.COMPONENT_LINK + "-7-" + i, CacheKey.getKey(CacheType.COMPONENT_LINK, 7, i));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.dd4t.providers.rs.caching;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheSnapshotTest {
+
+    private static final String TYPE = "SNAPSHOT_TEST";
+    private static final int PUBLICATION_ID = 9;
+
+    private final CacheSnapshot cacheSnapshot = CacheSnapshot.getInstance();
+    private final SingleFlightLoader loader = SingleFlightLoader.getInstance();
+    private File file;
+
+    @Before
+    public void setUp () throws IOException {
+        file = File.createTempFile("dd4t-rs-cache", ".snapshot");
+        cacheSnapshot.setFile(file.getPath());
+        cacheSnapshot.setTypes(Collections.singleton(TYPE));
+        cacheSnapshot.setEnabled(true);
+    }
+
+    @After
+    public void tearDown () {
+        cacheSnapshot.setEnabled(false);
+        file.delete();
+    }
+
+    @Test
+    public void savedPayloadsAreLoadedWithExpiryAndDependencies () {
+        final InMemoryCacheProvider before = new InMemoryCacheProvider(true);
+        cacheSnapshot.setCacheProvider(before.getProvider());
+        final byte[] content = {1, 2, 3, 4};
+        loader.load(TYPE, PUBLICATION_ID, "snapshot-bytes", before.getProvider(), RuntimeException.class, context -> {
+            context.dependsOn(PUBLICATION_ID, 501);
+            return content;
+        });
+        loader.load(TYPE, PUBLICATION_ID, "snapshot-string", before.getProvider(),
+                RuntimeException.class, context -> "text");
+        loader.load(TYPE, PUBLICATION_ID, "snapshot-gone", before.getProvider(),
+                RuntimeException.class, context -> "gone");
+        // an entry expired after it was tracked is not saved
+        CacheEntries.expire(before.getProvider(), "snapshot-gone", CacheEntries.ANY_PAYLOAD);
+        final CachedPayload<?> saved = (CachedPayload<?>) before.getStored("snapshot-bytes").getPayload();
+
+        cacheSnapshot.save();
+        assertTrue(file.length() > 8);
+
+        final InMemoryCacheProvider after = new InMemoryCacheProvider(true);
+        cacheSnapshot.setCacheProvider(after.getProvider());
+        cacheSnapshot.load();
+
+        assertFalse(file.exists());
+        final CachedPayload<?> loaded = (CachedPayload<?>) after.getStored("snapshot-bytes").getPayload();
+        assertArrayEquals(content, (byte[]) loaded.getPayload());
+        assertEquals(saved.getLoadedAt(), loaded.getLoadedAt());
+        assertEquals(saved.getExpiresAt(), loaded.getExpiresAt());
+        assertEquals("text", ((CachedPayload<?>) after.getStored("snapshot-string").getPayload()).getPayload());
+        assertTrue(after.getStored("snapshot-gone") == null || after.getStored("snapshot-gone").isExpired());
+
+        // the dependency came along: publishing the item expires the loaded entry
+        final AtomicInteger reloads = new AtomicInteger();
+        ProviderCacheInvalidator.getInstance().invalidate(PUBLICATION_ID, 501);
+        loader.load(TYPE, PUBLICATION_ID, "snapshot-bytes", after.getProvider(), RuntimeException.class, context -> {
+            reloads.incrementAndGet();
+            return content;
+        });
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    public void snapshotOfUnknownFormatIsIgnored () throws IOException {
+        Files.write(file.toPath(), new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8});
+        final InMemoryCacheProvider after = new InMemoryCacheProvider(true);
+        cacheSnapshot.setCacheProvider(after.getProvider());
+
+        cacheSnapshot.load();
+
+        assertEquals(0, after.getStores());
+        assertFalse(file.exists());
+    }
+}
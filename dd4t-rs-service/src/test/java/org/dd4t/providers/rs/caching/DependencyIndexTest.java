@@ -0,0 +1,102 @@
+package org.dd4t.providers.rs.caching;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyIndexTest {
+
+    private static final AtomicInteger ITEMS = new AtomicInteger(1000);
+
+    private final DependencyIndex dependencyIndex = DependencyIndex.getInstance();
+    private final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+
+    @After
+    public void tearDown () {
+        dependencyIndex.setMaxEntries(200000);
+    }
+
+    @Test
+    public void invalidateExpiresDependentsInCopyOnReadProvider () {
+        final int itemId = ITEMS.incrementAndGet();
+        final int otherItemId = ITEMS.incrementAndGet();
+        store("both", Long.MAX_VALUE, itemId, otherItemId);
+        store("other", Long.MAX_VALUE, otherItemId);
+
+        assertEquals(1, dependencyIndex.invalidate(1, itemId));
+
+        assertFalse(isCached("both"));
+        assertTrue(isCached("other"));
+        assertEquals(0, dependencyIndex.invalidate(1, itemId));
+    }
+
+    @Test
+    public void invalidateThroughLoaderCausesReload () {
+        final int itemId = ITEMS.incrementAndGet();
+        final AtomicInteger loads = new AtomicInteger();
+        final CacheLoader<String, RuntimeException> loader = context -> {
+            context.dependsOn(1, itemId);
+            return "payload-" + loads.incrementAndGet();
+        };
+        final SingleFlightLoader singleFlightLoader = SingleFlightLoader.getInstance();
+
+        assertEquals("payload-1", singleFlightLoader.load("TEST", 1, "loaded", cache.getProvider(),
+                RuntimeException.class, loader));
+        ProviderCacheInvalidator.getInstance().invalidate(1, itemId);
+        assertEquals("payload-2", singleFlightLoader.load("TEST", 1, "loaded", cache.getProvider(),
+                RuntimeException.class, loader));
+    }
+
+    @Test
+    public void purgeDropsEntriesThatCanNoLongerBeServed () {
+        final int itemId = ITEMS.incrementAndGet();
+        final int expiredItemId = ITEMS.incrementAndGet();
+        final long maxStale = SingleFlightLoader.getInstance().getMaxStale() * 1000;
+        dependencyIndex.clear();
+        dependencyIndex.setMaxEntries(1);
+
+        store("fresh", Long.MAX_VALUE, itemId);
+        store("expired", System.currentTimeMillis() - maxStale - 1000, expiredItemId);
+
+        assertEquals(0, dependencyIndex.invalidate(1, expiredItemId));
+        assertEquals(1, dependencyIndex.invalidate(1, itemId));
+    }
+
+    @Test
+    public void purgeExpiresLiveEntriesBeyondMaxEntries () {
+        dependencyIndex.clear();
+        dependencyIndex.setMaxEntries(4);
+        for (int i = 0; i < 5; i++) {
+            store("live-" + i, Long.MAX_VALUE, ITEMS.incrementAndGet());
+        }
+
+        assertEquals(3, dependencyIndex.getSize());
+        int cached = 0;
+        for (int i = 0; i < 5; i++) {
+            if (isCached("live-" + i)) {
+                cached++;
+            }
+        }
+        assertEquals(3, cached);
+    }
+
+    private void store (final String key, final long expiresAt, final int... itemIds) {
+        cache.getProvider().storeInItemCache(key, new SimpleCacheElement<>(new CachedPayload<>("payload", 0,
+                expiresAt), false));
+        final Long[] itemKeys = new Long[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemKeys[i] = DependencyIndex.getItemKey(1, itemIds[i]);
+        }
+        dependencyIndex.add(Arrays.asList(itemKeys), key, cache.getProvider(), expiresAt);
+    }
+
+    private boolean isCached (final String key) {
+        return !cache.getStored(key).isExpired() && cache.getStored(key).getPayload() != null;
+    }
+}
@@ -0,0 +1,78 @@
+package org.dd4t.providers.rs.caching;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrequencySketchTest {
+
+    // rounded up to 32 counters per row, so counters are halved after 320 additions
+    private static final int WIDTH = 16;
+    private static final int RESET_AT = 320;
+
+    @Test
+    public void frequencySaturatesAtFifteen () {
+        final FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 3; i++) {
+            sketch.increment("key");
+        }
+        assertEquals(3, sketch.frequency("key"));
+
+        for (int i = 0; i < 30; i++) {
+            sketch.increment("key");
+        }
+        assertEquals(15, sketch.frequency("key"));
+    }
+
+    @Test
+    public void countersAreHalvedAfterTenTimesTheWidth () {
+        final FrequencySketch sketch = new FrequencySketch(WIDTH);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("popular");
+        }
+
+        int before = sketch.frequency("popular");
+        int additions = sketch.getAdditions();
+        for (int i = 0; i < 2 * RESET_AT && sketch.getAdditions() >= additions; i++) {
+            before = sketch.frequency("popular");
+            additions = sketch.getAdditions();
+            sketch.increment("other-" + i);
+        }
+
+        assertTrue(sketch.getAdditions() < additions);
+        assertTrue(sketch.frequency("popular") <= (before + 1) / 2);
+    }
+
+    @Test
+    public void concurrentIncrementsDoNotPostponeHalving () throws Exception {
+        final FrequencySketch sketch = new FrequencySketch(WIDTH);
+        final ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                results.add(threads.submit(() -> {
+                    for (int i = 0; i < 100000; i++) {
+                        sketch.increment("key-" + thread + "-" + i);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        // an increment racing the halving may add one more per thread
+        assertTrue(String.valueOf(sketch.getAdditions()), sketch.getAdditions() < RESET_AT + 8);
+    }
+}
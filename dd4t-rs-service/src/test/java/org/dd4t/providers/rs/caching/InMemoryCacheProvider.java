@@ -0,0 +1,107 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.core.caching.CacheElement;
+import org.dd4t.providers.PayloadCacheProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PayloadCacheProvider for tests, backed by a map. Like the EHCache provider it hands out an expired placeholder
+ * element for a key that is not cached. With copyOnRead, every read returns a serialized copy of the stored element,
+ * as EHCache does for a region with copyOnRead and copyOnWrite, so changes to an element only count once they are
+ * stored.
+ * <p/>
+ * The provider is a dynamic proxy, so methods the tests don't use need not be implemented.
+ *
+ * @author R. Kempees
+ */
+class InMemoryCacheProvider implements InvocationHandler {
+
+    private final ConcurrentMap<String, CacheElement<?>> elements = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger stores = new AtomicInteger();
+    private final boolean copyOnRead;
+    private final PayloadCacheProvider provider;
+
+    InMemoryCacheProvider (final boolean copyOnRead) {
+        this.copyOnRead = copyOnRead;
+        this.provider = (PayloadCacheProvider) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PayloadCacheProvider.class}, this);
+    }
+
+    PayloadCacheProvider getProvider () {
+        return provider;
+    }
+
+    /**
+     * @param key String the cache key
+     * @return CacheElement as stored under the key, not a copy; null if nothing is stored
+     */
+    CacheElement<?> getStored (final String key) {
+        return elements.get(key);
+    }
+
+    int getLoads () {
+        return loads.get();
+    }
+
+    int getStores () {
+        return stores.get();
+    }
+
+    @Override
+    public Object invoke (final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "loadPayloadFromLocalCache":
+                loads.incrementAndGet();
+                return load((String) args[0]);
+            case "storeInItemCache":
+                stores.incrementAndGet();
+                elements.put((String) args[0], copy((CacheElement<?>) args[1]));
+                return null;
+            case "toString":
+                return "InMemoryCacheProvider" + elements.keySet();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private CacheElement<?> load (final String key) throws IOException, ClassNotFoundException {
+        CacheElement<?> element = elements.get(key);
+        if (element == null) {
+            final CacheElement<?> placeholder = new SimpleCacheElement<>(null, true);
+            element = elements.putIfAbsent(key, placeholder);
+            if (element == null) {
+                element = placeholder;
+            }
+        }
+        return copy(element);
+    }
+
+    private CacheElement<?> copy (final CacheElement<?> element) throws IOException, ClassNotFoundException {
+        if (!copyOnRead) {
+            return element;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(element);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (CacheElement<?>) input.readObject();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.providers.impl.BrokerLinkProvider;
+import org.dd4t.providers.rs.TridionLinkProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NegativeCacheTest {
+
+    private static final String TYPE = "TEST";
+
+    private final NegativeCache negativeCache = NegativeCache.getInstance();
+
+    @Before
+    public void setUp () {
+        negativeCache.setTimeToLive(30);
+        negativeCache.setMaxEntries(1000);
+    }
+
+    @After
+    public void tearDown () {
+        negativeCache.setMaxEntries(10000);
+    }
+
+    @Test
+    public void linkMissIsLookedUpAgainAfterPublishInItsPublication () {
+        final TridionLinkProvider provider = TridionLinkProvider.getInstance();
+        final BrokerLinkProvider brokerLinkProvider = provider.getLinkProvider();
+        final AtomicInteger lookups = new AtomicInteger();
+        provider.setCacheProvider(new InMemoryCacheProvider(true).getProvider());
+        provider.setLinkProvider(new BrokerLinkProvider() {
+            @Override
+            public String resolveComponent (final String targetComponentURI) {
+                lookups.incrementAndGet();
+                return null;
+            }
+        });
+        try {
+            assertNull(provider.resolveComponent("tcm:21-1234"));
+            assertNull(provider.resolveComponent("tcm:21-1234"));
+            assertEquals(1, lookups.get());
+
+            // e.g. the Page that links to the Component
+            ProviderCacheInvalidator.getInstance().invalidate(21, 5678);
+            assertNull(provider.resolveComponent("tcm:21-1234"));
+            assertEquals(2, lookups.get());
+        } finally {
+            provider.setLinkProvider(brokerLinkProvider);
+            provider.setCacheProvider(null);
+        }
+    }
+
+    @Test
+    public void rememberedMissIsAnsweredPerPublicationAndType () {
+        negativeCache.addMiss(TYPE, 1, "key");
+
+        assertTrue(negativeCache.isMiss(TYPE, 1, "key"));
+        assertFalse(negativeCache.isMiss(TYPE, 2, "key"));
+        assertFalse(negativeCache.isMiss("OTHER", 1, "key"));
+        assertFalse(negativeCache.isMiss(TYPE, 1, "other-key"));
+    }
+
+    @Test
+    public void clearForgetsMissesOfPublication () {
+        negativeCache.addMiss(TYPE, 1, "key");
+        negativeCache.addMiss(TYPE, 2, "key");
+
+        negativeCache.clear(1);
+
+        assertFalse(negativeCache.isMiss(TYPE, 1, "key"));
+        assertTrue(negativeCache.isMiss(TYPE, 2, "key"));
+    }
+
+    @Test
+    public void zeroTimeToLiveDisablesNegativeCache () {
+        negativeCache.setTimeToLive(0);
+        negativeCache.addMiss(TYPE, 1, "key");
+
+        assertFalse(negativeCache.isMiss(TYPE, 1, "key"));
+    }
+
+    @Test
+    public void fullRegionKeepsRecentMisses () {
+        for (int i = 0; i < 2500; i++) {
+            negativeCache.addMiss(TYPE, 1, "key-" + i);
+        }
+
+        // the generation before the current one is still answered; the one before that is dropped
+        for (int i = 1000; i < 2500; i++) {
+            assertTrue("key-" + i, negativeCache.isMiss(TYPE, 1, "key-" + i));
+        }
+        assertFalse(negativeCache.isMiss(TYPE, 1, "key-0"));
+    }
+
+    @Test
+    public void concurrentAddsAreNotLost () throws Exception {
+        final ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> adds = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                adds.add(threads.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        negativeCache.addMiss(TYPE, 3, "key-" + thread + "-" + i);
+                    }
+                }));
+            }
+            for (Future<?> add : adds) {
+                add.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(negativeCache.isMiss(TYPE, 3, "key-" + t + "-" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.dd4t.providers.rs.caching;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapBinaryStoreTest {
+
+    private static final int SIZE = 1024;
+
+    private final OffHeapBinaryStore binaryStore = OffHeapBinaryStore.getInstance();
+
+    @Before
+    public void setUp () {
+        binaryStore.clear();
+        binaryStore.setThreshold(SIZE);
+        binaryStore.setCapacity(4 * SIZE);
+    }
+
+    @After
+    public void tearDown () {
+        binaryStore.clear();
+        binaryStore.setThreshold(1024 * 1024);
+        binaryStore.setCapacity(256L * 1024 * 1024);
+    }
+
+    @Test
+    public void storedBinaryIsReadBack () {
+        final byte[] content = content(7);
+        binaryStore.put("binary", content, 1, 10);
+
+        final ByteBuffer stored = binaryStore.get("binary");
+        assertTrue(stored.isReadOnly());
+        final byte[] read = new byte[stored.remaining()];
+        stored.get(read);
+        assertEquals(content.length, read.length);
+        assertEquals(7, read[SIZE - 1]);
+        assertEquals(SIZE, binaryStore.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedBinaryIsEvicted () {
+        for (int i = 0; i < 4; i++) {
+            binaryStore.put("binary-" + i, content(i), 1, 10 + i);
+        }
+        binaryStore.get("binary-0");
+
+        binaryStore.put("binary-4", content(4), 1, 14);
+
+        assertNotNull(binaryStore.get("binary-0"));
+        assertNull(binaryStore.get("binary-1"));
+        assertEquals(4, binaryStore.getCount());
+        assertEquals(4 * SIZE, binaryStore.getSize());
+    }
+
+    @Test
+    public void invalidateRemovesBinariesOfItem () {
+        binaryStore.put("binary", content(1), 1, 10);
+        binaryStore.put("binary-variant", content(1), 1, 10);
+        binaryStore.put("other", content(2), 1, 11);
+
+        assertEquals(2, binaryStore.invalidate(1, 10));
+
+        assertNull(binaryStore.get("binary"));
+        assertNull(binaryStore.get("binary-variant"));
+        assertNotNull(binaryStore.get("other"));
+        assertEquals(SIZE, binaryStore.getSize());
+    }
+
+    @Test
+    public void replacedBinaryStaysInvalidatable () {
+        binaryStore.put("binary", content(1), 1, 10);
+        binaryStore.put("binary", content(2), 1, 10);
+
+        assertEquals(SIZE, binaryStore.getSize());
+        assertEquals(1, binaryStore.invalidate(1, 10));
+        assertEquals(0, binaryStore.getSize());
+    }
+
+    @Test
+    public void concurrentAccessKeepsSizeConsistent () throws Exception {
+        binaryStore.setCapacity(16 * SIZE);
+        final ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                tasks.add(threads.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        final int id = (thread * 7 + i) % 40;
+                        if (binaryStore.get("binary-" + id) == null) {
+                            binaryStore.put("binary-" + id, content(id), 1, id);
+                        }
+                        if (i % 50 == 0) {
+                            binaryStore.invalidate(1, id);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertEquals((long) binaryStore.getCount() * SIZE, binaryStore.getSize());
+        assertTrue(binaryStore.getSize() <= 16 * SIZE);
+    }
+
+    private static byte[] content (final int value) {
+        final byte[] content = new byte[SIZE];
+        content[SIZE - 1] = (byte) value;
+        return content;
+    }
+}
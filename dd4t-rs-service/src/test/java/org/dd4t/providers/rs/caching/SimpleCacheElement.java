@@ -0,0 +1,53 @@
+package org.dd4t.providers.rs.caching;
+
+import org.dd4t.core.caching.CacheElement;
+
+/**
+ * Plain CacheElement for tests, so they don't depend on the element implementation of a cache provider.
+ *
+ * @param <T> the payload type
+ * @author R. Kempees
+ */
+class SimpleCacheElement<T> implements CacheElement<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private T payload;
+    private boolean expired;
+    private String dependentKey;
+
+    SimpleCacheElement (final T payload, final boolean expired) {
+        this.payload = payload;
+        this.expired = expired;
+    }
+
+    @Override
+    public T getPayload () {
+        return payload;
+    }
+
+    @Override
+    public void setPayload (final T payload) {
+        this.payload = payload;
+    }
+
+    @Override
+    public boolean isExpired () {
+        return expired;
+    }
+
+    @Override
+    public void setExpired (final boolean expired) {
+        this.expired = expired;
+    }
+
+    @Override
+    public String getDependentKey () {
+        return dependentKey;
+    }
+
+    @Override
+    public void setDependentKey (final String dependentKey) {
+        this.dependentKey = dependentKey;
+    }
+}
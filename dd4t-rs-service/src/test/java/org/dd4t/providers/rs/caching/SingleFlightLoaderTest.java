@@ -0,0 +1,315 @@
+package org.dd4t.providers.rs.caching;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightLoaderTest {
+
+    private static final String TYPE = "TEST";
+    private static final int PUBLICATION_ID = 7;
+    private static final AtomicInteger KEYS = new AtomicInteger();
+
+    private final SingleFlightLoader loader = SingleFlightLoader.getInstance();
+    private final NegativeCache negativeCache = NegativeCache.getInstance();
+    private String key;
+
+    @Before
+    public void setUp () {
+        key = "single-flight-" + KEYS.incrementAndGet();
+        loader.setTimeToLive(0);
+        loader.setStaleWhileRevalidate(false);
+        negativeCache.setTimeToLive(30);
+    }
+
+    @After
+    public void tearDown () {
+        loader.setStaleWhileRevalidate(false);
+        loader.setTimeToIdle(0);
+        negativeCache.clear();
+    }
+
+    @Test
+    public void concurrentMissesLoadOnce () throws Exception {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CacheLoader<String, RuntimeException> slowLoader = context -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "payload";
+        };
+
+        final ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            results.add(callers.submit(() -> loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                    RuntimeException.class, slowLoader)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(callers.submit(() -> loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                        RuntimeException.class, slowLoader)));
+            }
+            // give the followers time to join the flight before it lands
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("payload", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void failedLoadIsRethrownToWaitersOfTheDeclaredType () throws Exception {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CacheLoader<String, IOException> failingLoader = context -> {
+            loading.countDown();
+            await(release);
+            throw new IOException("broker down");
+        };
+        final CacheLoader<String, TimeoutException> otherLoader = context -> "other";
+
+        final ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            final Future<String> leader = callers.submit(() -> loader.load(TYPE, PUBLICATION_ID, key,
+                    cache.getProvider(), IOException.class, failingLoader));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            final Future<String> sameType = callers.submit(() -> loader.load(TYPE, PUBLICATION_ID, key,
+                    cache.getProvider(), IOException.class, failingLoader));
+            final Future<String> otherType = callers.submit(() -> loader.load(TYPE, PUBLICATION_ID, key,
+                    cache.getProvider(), TimeoutException.class, otherLoader));
+            // give the followers time to join the flight before it lands
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(IOException.class, getCause(leader).getClass());
+            assertEquals(IOException.class, getCause(sameType).getClass());
+            final Throwable wrapped = getCause(otherType);
+            assertEquals(CompletionException.class, wrapped.getClass());
+            assertEquals(IOException.class, wrapped.getCause().getClass());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void loadedPayloadIsServedFromCache () {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final AtomicInteger loads = new AtomicInteger();
+        final CacheLoader<String, RuntimeException> countingLoader = context -> "payload-" + loads.incrementAndGet();
+
+        assertEquals("payload-1", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+        assertEquals("payload-1", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void notCacheablePayloadIsNotStored () {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final CacheLoader<String, RuntimeException> uncacheable = context -> {
+            context.skipCache();
+            return "payload";
+        };
+
+        assertEquals("payload", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, uncacheable));
+        assertEquals(0, cache.getStores());
+    }
+
+    @Test
+    public void missingItemExpiresStalePayloadInCopyOnReadCache () {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final long now = System.currentTimeMillis();
+        cache.getProvider().storeInItemCache(key, new SimpleCacheElement<>(new CachedPayload<>("stale", now - 2000,
+                now - 1000), false));
+        loader.setStaleWhileRevalidate(true);
+        negativeCache.setTimeToLive(0);
+
+        final CacheLoader<String, RuntimeException> gone = context -> {
+            context.notFound();
+            return null;
+        };
+        // served stale while the refresh finds the item gone
+        assertEquals("stale", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, gone));
+        waitForRefresh(cache);
+
+        assertNull(cache.getStored(key).getPayload());
+        assertTrue(cache.getStored(key).isExpired());
+        assertNull(loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(), RuntimeException.class, gone));
+    }
+
+    @Test
+    public void negativeCacheIsCheckedBeforeProviderCache () {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final AtomicInteger loads = new AtomicInteger();
+        final CacheLoader<String, RuntimeException> gone = context -> {
+            loads.incrementAndGet();
+            context.notFound();
+            return null;
+        };
+
+        assertNull(loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(), RuntimeException.class, gone));
+        final int cacheReads = cache.getLoads();
+        assertNull(loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(), RuntimeException.class, gone));
+        assertEquals(1, loads.get());
+        assertEquals(cacheReads, cache.getLoads());
+
+        negativeCache.clear(PUBLICATION_ID);
+        assertNull(loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(), RuntimeException.class, gone));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void expireAfterLimitsFreshness () {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final long before = System.currentTimeMillis();
+        final CacheLoader<String, RuntimeException> limited = context -> {
+            context.expireAfter(60);
+            context.expireAfter(600);
+            return "payload";
+        };
+
+        assertEquals("payload", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, limited));
+        final long expiresAt = ((CachedPayload<?>) cache.getStored(key).getPayload()).getExpiresAt();
+        assertTrue(expiresAt >= before + 60000 && expiresAt <= System.currentTimeMillis() + 60000);
+    }
+
+    @Test
+    public void flushDropsPayloadsWithoutDependencies () throws Exception {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final AtomicInteger loads = new AtomicInteger();
+        final CacheLoader<String, RuntimeException> countingLoader = context -> "payload-" + loads.incrementAndGet();
+
+        assertEquals("payload-1", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+        ProviderCacheInvalidator.getInstance().flush();
+        // loads in the millisecond of the flush are not stored
+        Thread.sleep(2);
+
+        assertEquals("payload-2", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+        assertEquals("payload-2", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+    }
+
+    @Test
+    public void requestsKeepPayloadFromIdlingInCopyOnReadCache () throws Exception {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final AtomicInteger loads = new AtomicInteger();
+        final CacheLoader<String, RuntimeException> countingLoader = context -> "payload-" + loads.incrementAndGet();
+        loader.setTimeToIdle(1);
+
+        assertEquals("payload-1", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+        Thread.sleep(600);
+        assertEquals("payload-1", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+        // idle for a second since the load, but not since the last request
+        Thread.sleep(600);
+        assertEquals("payload-1", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, countingLoader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void variantIsStoredAndDroppedWithItsPayloadInCopyOnReadCache () {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final AtomicInteger compressions = new AtomicInteger();
+        final Function<String, byte[]> compressor = payload -> {
+            compressions.incrementAndGet();
+            return payload.toUpperCase().getBytes(StandardCharsets.UTF_8);
+        };
+
+        // nothing cached: the variant is made from the given payload, and not stored
+        assertArrayEquals(bytes("GIVEN"), loader.getVariant(TYPE, key, cache.getProvider(), "upper", "given",
+                compressor));
+        assertEquals(1, compressions.get());
+
+        loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(), RuntimeException.class, context -> "payload");
+        assertArrayEquals(bytes("PAYLOAD"), loader.getVariant(TYPE, key, cache.getProvider(), "upper", "payload",
+                compressor));
+        assertArrayEquals(bytes("PAYLOAD"), loader.getVariant(TYPE, key, cache.getProvider(), "upper", "payload",
+                compressor));
+        assertEquals(2, compressions.get());
+
+        CacheEntries.expire(cache.getProvider(), key, CacheEntries.ANY_PAYLOAD);
+        loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(), RuntimeException.class, context -> "reloaded");
+        assertArrayEquals(bytes("RELOADED"), loader.getVariant(TYPE, key, cache.getProvider(), "upper", "reloaded",
+                compressor));
+        assertEquals(3, compressions.get());
+    }
+
+    @Test
+    public void loadStartedBeforeFlushIsNotStored () throws Exception {
+        final InMemoryCacheProvider cache = new InMemoryCacheProvider(true);
+        final CacheLoader<String, RuntimeException> flushingLoader = context -> {
+            loader.flush();
+            return "payload";
+        };
+
+        assertEquals("payload", loader.load(TYPE, PUBLICATION_ID, key, cache.getProvider(),
+                RuntimeException.class, flushingLoader));
+        assertNull(cache.getStored(key).getPayload());
+        // loads in the millisecond of the flush are not stored either; keep them out of the next test
+        Thread.sleep(2);
+    }
+
+    private static byte[] bytes (final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Throwable getCause (final Future<String> result) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("load did not fail");
+    }
+
+    private void waitForRefresh (final InMemoryCacheProvider cache) {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getStored(key).getPayload() != null && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+    }
+
+    private static void await (final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.dd4t.providers.rs.caching.jms;
+
+import com.tridion.cache.CacheEvent;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.dd4t.providers.rs.caching.NegativeCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jms.Connection;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the listener against an embedded ActiveMQ broker. Invalidations are observed through the negative cache,
+ * which the invalidator clears for the Publication of every invalidated item.
+ */
+public class JMSCacheInvalidationListenerTest {
+
+    private static final String BROKER_URL = "vm://jms-test?create=false";
+    private static final String TOPIC = "TridionCCS";
+    private static final String TYPE = "JMS_TEST";
+
+    private final NegativeCache negativeCache = NegativeCache.getInstance();
+    private BrokerService broker;
+    private JMSCacheInvalidationListener listener;
+    private Connection producerConnection;
+
+    @Before
+    public void setUp () throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("jms-test");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+        broker.waitUntilStarted();
+
+        negativeCache.setTimeToLive(30);
+        listener = new JMSCacheInvalidationListener();
+        listener.setEnabled(true);
+        listener.setBrokerUrl(BROKER_URL);
+        listener.setTopicName(TOPIC);
+        listener.start();
+        awaitConnected();
+
+        producerConnection = new ActiveMQConnectionFactory(BROKER_URL).createConnection();
+        producerConnection.start();
+    }
+
+    @After
+    public void tearDown () throws Exception {
+        listener.stop();
+        producerConnection.close();
+        broker.stop();
+        broker.waitUntilStopped();
+        negativeCache.clear();
+    }
+
+    @Test
+    public void cacheEventOfStorageRegionInvalidatesItem () throws Exception {
+        negativeCache.addMiss(TYPE, 11, "key");
+
+        send(session -> session.createObjectMessage(new CacheEvent("/com_tridion_storage_ComponentPresentation",
+                "11:1234:56", CacheEvent.INVALIDATE)));
+
+        assertTrue(awaitCleared(11));
+    }
+
+    @Test
+    public void cacheEventClearsMissesNotTiedToAPublication () throws Exception {
+        negativeCache.addMiss(TYPE, 0, "key");
+        negativeCache.addMiss(TYPE, 16, "key");
+
+        send(session -> session.createObjectMessage(new CacheEvent("/com_tridion_storage_Page", "15:1234",
+                CacheEvent.INVALIDATE)));
+
+        assertTrue(awaitCleared(0));
+        assertTrue(negativeCache.isMiss(TYPE, 16, "key"));
+    }
+
+    @Test
+    public void cacheEventOfOtherRegionIsIgnored () throws Exception {
+        negativeCache.addMiss(TYPE, 12, "key");
+        negativeCache.addMiss(TYPE, 13, "key");
+
+        send(session -> session.createObjectMessage(new CacheEvent("/com_tridion_linking_Links", "12:1234",
+                CacheEvent.INVALIDATE)));
+        // messages are delivered in order, so once this one is processed the first one was too
+        send(session -> session.createTextMessage("13:1234"));
+
+        assertTrue(awaitCleared(13));
+        assertTrue(negativeCache.isMiss(TYPE, 12, "key"));
+    }
+
+    @Test
+    public void mapMessageInvalidatesItem () throws Exception {
+        negativeCache.addMiss(TYPE, 14, "key");
+
+        send(session -> {
+            final MapMessage message = session.createMapMessage();
+            message.setInt("publicationId", 14);
+            message.setInt("itemId", 1234);
+            return message;
+        });
+
+        assertTrue(awaitCleared(14));
+    }
+
+    @Test
+    public void startDoesNotWaitForUnreachableBroker () {
+        final JMSCacheInvalidationListener unreachable = new JMSCacheInvalidationListener();
+        unreachable.setEnabled(true);
+        unreachable.setBrokerUrl("failover:(tcp://localhost:1)?initialReconnectDelay=10");
+        unreachable.setTopicName(TOPIC);
+
+        final long start = System.currentTimeMillis();
+        unreachable.start();
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertFalse(unreachable.isConnected());
+        unreachable.stop();
+    }
+
+    @Test
+    public void disabledListenerDoesNotConnect () throws Exception {
+        final JMSCacheInvalidationListener disabled = new JMSCacheInvalidationListener();
+        disabled.setBrokerUrl(BROKER_URL);
+        disabled.setTopicName(TOPIC);
+
+        disabled.start();
+        Thread.sleep(100);
+        assertFalse(disabled.isConnected());
+    }
+
+    private void send (final MessageFactory messageFactory) throws Exception {
+        final Session session = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        try {
+            final MessageProducer producer = session.createProducer(session.createTopic(TOPIC));
+            producer.send(messageFactory.create(session));
+        } finally {
+            session.close();
+        }
+    }
+
+    private void awaitConnected () throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!listener.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(listener.isConnected());
+    }
+
+    private boolean awaitCleared (final int publicationId) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (negativeCache.isMiss(TYPE, publicationId, "key") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return !negativeCache.isMiss(TYPE, publicationId, "key");
+    }
+
+    private interface MessageFactory {
+
+        Message create (Session session) throws Exception;
+    }
+}
@@ -0,0 +1,50 @@
+package org.dd4t.providers.rs.service;
+
+import org.dd4t.providers.rs.caching.CacheStatistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+
+public class CacheStatisticsServiceTest {
+
+    private static final String TYPE = "STATISTICS_TEST";
+
+    private final CacheStatistics statistics = CacheStatistics.getInstance();
+    private final CacheStatisticsService service = new CacheStatisticsService();
+
+    @Before
+    public void setUp () {
+        statistics.setJmxEnabled(false);
+        statistics.hit(TYPE);
+    }
+
+    @After
+    public void tearDown () {
+        statistics.setResetToken(null);
+    }
+
+    @Test
+    public void resetIsRefusedWithoutConfiguredToken () {
+        statistics.setResetToken("");
+
+        assertEquals(403, service.resetStatistics(null).getStatus());
+        assertEquals(403, service.resetStatistics("").getStatus());
+        assertEquals(1, statistics.find(TYPE).getHits());
+    }
+
+    @Test
+    public void resetRequiresMatchingToken () {
+        statistics.setResetToken("secret");
+
+        assertEquals(403, service.resetStatistics("guess").getStatus());
+        assertEquals(1, statistics.find(TYPE).getHits());
+
+        final Response response = service.resetStatistics("secret");
+        assertEquals(204, response.getStatus());
+        assertEquals(0, statistics.find(TYPE).getHits());
+    }
+}
@@ -0,0 +1,162 @@
+package org.dd4t.providers.rs.service;
+
+import org.apache.commons.io.IOUtils;
+import org.dd4t.providers.serializer.CompressionCodecs;
+import org.dd4t.providers.serializer.Lz4Codec;
+import org.dd4t.providers.serializer.ZstdCodec;
+import org.dd4t.providers.serializer.ZstdDictionaryCodec;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GZipContentTest {
+
+    @After
+    public void tearDown () {
+        CompressionCodecs.getInstance().setCodecs(Collections.singleton("gzip"));
+    }
+
+    @Test
+    public void qualityOfListedValues () {
+        assertEquals(1, GZipContent.getQuality(headers("gzip, deflate"), "gzip"), 0);
+        assertEquals(0.5f, GZipContent.getQuality(headers("br;q=1.0, GZIP ; q=0.5"), "gzip"), 0);
+        assertEquals(0.8f, GZipContent.getQuality(headers("text/plain", "application/json;q=0.8"),
+                MediaType.APPLICATION_JSON), 0);
+    }
+
+    @Test
+    public void refusedOrUnlistedValuesHaveNoQuality () {
+        assertEquals(0, GZipContent.getQuality(headers("gzip;q=0"), "gzip"), 0);
+        assertEquals(0, GZipContent.getQuality(headers("identity, x-gzip"), "gzip"), 0);
+        assertEquals(0, GZipContent.getQuality(headers("application/json;q=0"), MediaType.APPLICATION_JSON), 0);
+        assertEquals(0, GZipContent.getQuality(headers("application/jsonp"), MediaType.APPLICATION_JSON), 0);
+        assertEquals(0, GZipContent.getQuality(headers("gzip;q=high"), "gzip"), 0);
+        assertEquals(0, GZipContent.getQuality(null, "gzip"), 0);
+    }
+
+    @Test
+    public void gzipJsonIsSentAsEntityToClientsThatOptIn () throws IOException {
+        final byte[] content = gzip("{\"id\":1}");
+        final Map<String, String> headers = new HashMap<>();
+        headers.put(HttpHeaders.ACCEPT, "application/json");
+        headers.put(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        final Response response = GZipContent.toResponse(content, false, request(headers));
+        assertEquals(200, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+        assertEquals("gzip", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(content, (byte[]) response.getEntity());
+    }
+
+    @Test
+    public void clientsThatRefuseGZipGetBase64Text () throws IOException {
+        final Map<String, String> headers = new HashMap<>();
+        headers.put(HttpHeaders.ACCEPT, "application/json");
+        headers.put(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+
+        final Response response = GZipContent.toResponse(gzip("{\"id\":1}"), true, request(headers));
+        assertEquals(MediaType.TEXT_PLAIN_TYPE, response.getMediaType());
+        assertNull(response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void otherCodecsAreNeverSentAsContentEncoding () throws IOException {
+        CompressionCodecs.getInstance().setCodecs(new HashSet<>(Arrays.asList("gzip", "lz4")));
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-DD4T-Codec", "lz4");
+        headers.put(HttpHeaders.ACCEPT, "application/json");
+        headers.put(HttpHeaders.ACCEPT_ENCODING, "lz4, gzip");
+
+        final Response response = GZipContent.toResponse(gzip("{\"id\":1}"), true, request(headers));
+        assertEquals(MediaType.TEXT_PLAIN_TYPE, response.getMediaType());
+        assertNull(response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("lz4", response.getHeaderString("X-DD4T-Codec"));
+    }
+
+    @Test
+    public void otherCodecsAreSentRawAsTheirOwnMediaType () throws IOException {
+        CompressionCodecs.getInstance().setCodecs(new HashSet<>(Arrays.asList("gzip", "lz4")));
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-DD4T-Codec", "lz4");
+        headers.put(HttpHeaders.ACCEPT, "application/x-dd4t-json-lz4, application/json;q=0.5");
+
+        final Response response = GZipContent.toResponse(gzip("{\"id\":1}"), true, request(headers));
+        assertEquals(MediaType.valueOf("application/x-dd4t-json-lz4"), response.getMediaType());
+        assertNull(response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        try (InputStream input = Lz4Codec.getInstance().newInputStream(
+                new ByteArrayInputStream((byte[]) response.getEntity()))) {
+            assertEquals("{\"id\":1}", IOUtils.toString(input, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void dictionaryCodecFallsBackToGZipForPublicationWithoutDictionary () throws IOException {
+        final byte[] content = gzip("{\"id\":1}");
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-DD4T-Codec", ZstdDictionaryCodec.NAME);
+        headers.put(HttpHeaders.ACCEPT, "application/json, " + GZipContent.ZSTD_DICT_JSON);
+        headers.put(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        final Response response = GZipContent.toResponse(content, true, 1, codec -> {
+            throw new AssertionError("No variant expected, got a request for " + codec.getName());
+        }, request(headers));
+        assertEquals("gzip", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeaderString("X-DD4T-Dictionary"));
+        assertArrayEquals(content, (byte[]) response.getEntity());
+    }
+
+    @Test
+    public void producedMediaTypesMatchTheCodecs () {
+        assertEquals(GZipContent.LZ4_JSON, GZipContent.getMediaType(Lz4Codec.getInstance()));
+        assertEquals(GZipContent.ZSTD_JSON, GZipContent.getMediaType(ZstdCodec.getInstance()));
+        assertEquals(GZipContent.ZSTD_DICT_JSON, "application/x-dd4t-json-" + ZstdDictionaryCodec.NAME);
+    }
+
+    private static Enumeration<String> headers (final String... values) {
+        return Collections.enumeration(Arrays.asList(values));
+    }
+
+    private static HttpServletRequest request (final Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(GZipContentTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getHeader":
+                            return headers.get(args[0]);
+                        case "getHeaders":
+                            final String value = headers.get(args[0]);
+                            return value == null ? Collections.emptyEnumeration() : headers(value);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static byte[] gzip (final String text) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(bytes)) {
+            output.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,40 @@
+package org.dd4t.providers.serializer;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sample content of the serializer tests and benchmarks. The benchmarks are written with JMH annotations, compiled
+ * with the tests, and run with:
+ * <p/>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main &lt;benchmark class&gt;"
+ * <p/>
+ * exec:exec rather than exec:java, since JMH forks a JVM per benchmark, on the class path of the one it runs in.
+ *
+ * @author R. Kempees
+ */
+final class Benchmarks {
+
+    private Benchmarks () {
+
+    }
+
+    /**
+     * @param name String the name of a JSON sample next to this class: page.json, a page with eight component
+     *             presentations, or dcp.json, a single dynamic component presentation
+     * @return String the sample content
+     * @throws IOException if the sample can't be read
+     */
+    static String readSample (final String name) throws IOException {
+        try (InputStream input = Benchmarks.class.getResourceAsStream(name)) {
+            if (input == null) {
+                throw new IOException("No sample " + name);
+            }
+            return IOUtils.toString(input, StandardCharsets.UTF_8);
+        }
+    }
+}
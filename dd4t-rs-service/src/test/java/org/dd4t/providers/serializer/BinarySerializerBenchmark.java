@@ -0,0 +1,76 @@
+package org.dd4t.providers.serializer;
+
+import org.dd4t.core.exceptions.SerializationException;
+import org.dd4t.providers.serializer.json.JSONSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the BINARY format of the @see BinarySerializer with the JAVA format, Java serialization compressed with
+ * GZip as done by JSONSerializer#compressGZipGeneric: the time to serialize and to deserialize the page and DCP JSON
+ * samples.
+ * <p/>
+ * Run as a JMH benchmark (@see Benchmarks).
+ *
+ * @author R. Kempees
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 10, time = 1)
+@Fork (1)
+public class BinarySerializerBenchmark {
+
+    @Param ({"dcp.json", "page.json"})
+    public String sample;
+
+    private final BinarySerializer binary = BinarySerializer.getInstance();
+    private final JSONSerializer java = new JSONSerializer();
+    private String json;
+    private byte[] binaryBytes;
+    private byte[] javaBytes;
+
+    @Setup
+    public void setUp () throws IOException, SerializationException {
+        json = Benchmarks.readSample(sample);
+        binaryBytes = binary.serialize(json);
+        javaBytes = java.compressGZipGeneric(json);
+        if (!json.equals(binary.deserializeString(binaryBytes)) ||
+                !json.equals(java.decompressGZipGeneric(javaBytes))) {
+            throw new IllegalStateException("Round trip of " + sample + " failed");
+        }
+    }
+
+    @Benchmark
+    public byte[] binarySerialize () throws SerializationException {
+        return binary.serialize(json);
+    }
+
+    @Benchmark
+    public byte[] javaSerialize () throws SerializationException {
+        return java.compressGZipGeneric(json);
+    }
+
+    @Benchmark
+    public String binaryDeserialize () throws SerializationException {
+        return binary.deserializeString(binaryBytes);
+    }
+
+    @Benchmark
+    public String javaDeserialize () throws SerializationException {
+        return java.decompressGZipGeneric(javaBytes);
+    }
+}
@@ -0,0 +1,121 @@
+package org.dd4t.providers.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.dd4t.core.exceptions.SerializationException;
+import org.dd4t.providers.transport.BinaryWrapper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BinarySerializerTest {
+
+    private final BinarySerializer serializer = BinarySerializer.getInstance();
+    private final GZipCodec codec = GZipCodec.getInstance();
+
+    @Test
+    public void jsonIsTheSameAfterBinaryRoundTrip () throws Exception {
+        for (String sample : new String[]{"dcp.json", "page.json"}) {
+            final String json = Benchmarks.readSample(sample);
+            final String result = serializer.deserializeString(serializer.serialize(json));
+
+            assertEquals(json, result);
+            final ObjectMapper mapper = new ObjectMapper();
+            assertEquals(mapper.readTree(json), mapper.readTree(result));
+        }
+    }
+
+    @Test
+    public void nonAsciiAndNullStringsSurviveRoundTrip () throws SerializationException {
+        final String text = "{\"title\":\"Caf\u00e9 \u20ac 5 \ud83d\ude00\"}";
+        assertEquals(text, serializer.deserializeString(serializer.serialize(text)));
+        assertNull(serializer.deserializeString(serializer.serialize((String) null)));
+    }
+
+    @Test
+    public void binaryWrapperSurvivesRoundTrip () throws SerializationException {
+        final byte[] content = {0, 1, 2, (byte) 0xff, 'D', '4', 'T'};
+        final BinaryWrapper result = serializer.deserializeBinaryWrapper(
+                serializer.serialize(new BinaryWrapper("{\"Id\":\"tcm:5-12\"}", content)));
+
+        assertEquals("{\"Id\":\"tcm:5-12\"}", result.getBinary());
+        assertArrayEquals(content, result.getContent());
+        assertNull(serializer.deserializeBinaryWrapper(serializer.serialize(new BinaryWrapper(null, null)))
+                .getContent());
+    }
+
+    @Test
+    public void headerHoldsMagicVersionAndKind () throws Exception {
+        final byte[] layout = decompress(serializer.serialize("{}"));
+
+        assertArrayEquals(new byte[]{'D', '4', 'T', BinarySerializer.VERSION, 1, 0, 0, 0, 2, '{', '}'}, layout);
+    }
+
+    @Test(expected = SerializationException.class)
+    public void otherMagicIsRejected () throws Exception {
+        final byte[] layout = decompress(serializer.serialize("{}"));
+        layout[0] = 'X';
+        serializer.deserializeString(compress(layout));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void unknownVersionIsRejected () throws Exception {
+        final byte[] layout = decompress(serializer.serialize("{}"));
+        layout[3] = BinarySerializer.VERSION + 1;
+        serializer.deserializeString(compress(layout));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void otherKindIsRejected () throws Exception {
+        serializer.deserializeBinaryWrapper(serializer.serialize("{}"));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void javaSerializedContentIsRejected () throws Exception {
+        serializer.deserializeString(codec.compress(output -> new ObjectOutputStream(output).writeObject("{}")));
+    }
+
+    @Test
+    public void truncatedLayoutIsRejected () throws Exception {
+        final byte[] layout = decompress(serializer.serialize(Benchmarks.readSample("dcp.json")));
+        // cut in the header, in the length and in the content
+        for (int length : new int[]{0, 2, 4, 7, 9, layout.length - 1}) {
+            assertRejected(compress(Arrays.copyOf(layout, length)));
+        }
+    }
+
+    @Test
+    public void truncatedCompressedContentIsRejected () throws Exception {
+        final byte[] serialized = serializer.serialize(Benchmarks.readSample("dcp.json"));
+        for (int length : new int[]{0, 5, serialized.length / 2, serialized.length - 9}) {
+            assertRejected(Arrays.copyOf(serialized, length));
+        }
+    }
+
+    private void assertRejected (final byte[] serialized) {
+        try {
+            serializer.deserializeString(serialized);
+        } catch (SerializationException e) {
+            return;
+        }
+        throw new AssertionError("Accepted " + serialized.length + " bytes of truncated content");
+    }
+
+    private byte[] compress (final byte[] content) throws IOException {
+        return codec.compress(output -> output.write(content));
+    }
+
+    private byte[] decompress (final byte[] compressed) throws IOException {
+        try (InputStream input = codec.newInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+}
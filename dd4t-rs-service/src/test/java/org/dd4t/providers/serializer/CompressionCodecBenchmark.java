@@ -0,0 +1,81 @@
+package org.dd4t.providers.serializer;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the codecs clients may choose (@see CompressionCodecs), gzip, lz4 and zstd at their configured default
+ * levels: the time to compress and to decompress the page and DCP JSON samples.
+ * <p/>
+ * Run as a JMH benchmark (@see Benchmarks).
+ *
+ * @author R. Kempees
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 10, time = 1)
+@Fork (1)
+public class CompressionCodecBenchmark {
+
+    @Param ({"dcp.json", "page.json"})
+    public String sample;
+
+    @Param ({GZipCodec.NAME, Lz4Codec.NAME, ZstdCodec.NAME})
+    public String codecName;
+
+    private CompressionCodec codec;
+    private byte[] json;
+    private byte[] compressed;
+
+    @Setup
+    public void setUp () throws IOException {
+        codec = getCodec(codecName);
+        json = Benchmarks.readSample(sample).getBytes(StandardCharsets.UTF_8);
+        compressed = compress();
+        if (!Arrays.equals(json, decompress())) {
+            throw new IllegalStateException("Round trip of " + sample + " with " + codecName + " failed");
+        }
+    }
+
+    @Benchmark
+    public byte[] compress () throws IOException {
+        return codec.compress(output -> output.write(json));
+    }
+
+    @Benchmark
+    public byte[] decompress () throws IOException {
+        try (InputStream input = codec.newInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+
+    private static CompressionCodec getCodec (final String name) {
+        switch (name) {
+            case Lz4Codec.NAME:
+                return Lz4Codec.getInstance();
+            case ZstdCodec.NAME:
+                return ZstdCodec.getInstance();
+            default:
+                return GZipCodec.getInstance();
+        }
+    }
+}
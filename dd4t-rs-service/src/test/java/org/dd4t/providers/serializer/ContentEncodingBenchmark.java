@@ -0,0 +1,70 @@
+package org.dd4t.providers.serializer;
+
+import org.apache.commons.codec.binary.Base64;
+import org.dd4t.providers.serializer.json.JSONSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares @see ContentEncoding#detect with the Base64 scan it replaced, JSONSerializer#isBase64, on the page and DCP
+ * JSON samples and on their Base64 encoded GZip form, as content read from the broker comes in either.
+ * <p/>
+ * Run as a JMH benchmark (@see Benchmarks).
+ *
+ * @author R. Kempees
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 10, time = 1)
+@Fork (1)
+public class ContentEncodingBenchmark {
+
+    @Param ({"dcp.json", "page.json"})
+    public String sample;
+
+    private final JSONSerializer serializer = new JSONSerializer();
+    private String json;
+    private String encoded;
+
+    @Setup
+    public void setUp () throws IOException {
+        json = Benchmarks.readSample(sample);
+        encoded = Base64.encodeBase64String(GZipCodec.getInstance().compress(
+                output -> output.write(json.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Benchmark
+    public boolean isBase64Json () {
+        return serializer.isBase64(json);
+    }
+
+    @Benchmark
+    public ContentEncoding detectJson () {
+        return ContentEncoding.detect(json);
+    }
+
+    @Benchmark
+    public boolean isBase64Base64 () {
+        return serializer.isBase64(encoded);
+    }
+
+    @Benchmark
+    public ContentEncoding detectBase64 () {
+        return ContentEncoding.detect(encoded);
+    }
+}
@@ -0,0 +1,68 @@
+package org.dd4t.providers.serializer;
+
+import org.apache.commons.codec.binary.Base64;
+import org.dd4t.providers.serializer.json.JSONSerializer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ContentEncodingTest {
+
+    private final JSONSerializer serializer = new JSONSerializer();
+
+    @Test
+    public void jsonIsDetectedLikeTheBase64Scan () throws IOException {
+        for (String json : new String[]{Benchmarks.readSample("dcp.json"), Benchmarks.readSample("page.json"),
+                "  {\"Id\":\"tcm:5-12\"}", "[{\"Title\":\"H4sI\"}]"}) {
+            assertEquals(ContentEncoding.JSON, ContentEncoding.detect(json));
+            assertEquals(false, serializer.isBase64(json));
+        }
+    }
+
+    @Test
+    public void base64GZipIsDetectedLikeTheBase64Scan () throws IOException {
+        final byte[] compressed = gzip(Benchmarks.readSample("dcp.json"));
+        for (String encoded : new String[]{Base64.encodeBase64String(compressed),
+                new String(Base64.encodeBase64Chunked(compressed), StandardCharsets.US_ASCII),
+                Base64.encodeBase64URLSafeString(compressed)}) {
+            assertEquals(ContentEncoding.BASE64_GZIP, ContentEncoding.detect(encoded));
+            assertTrue(serializer.isBase64(encoded));
+        }
+    }
+
+    @Test
+    public void gzipOfOtherCompressorsIsDetected () {
+        // header as written by .NET: extra flags 4 (fastest), and by zlib on NTFS: operating system 11
+        assertEquals(ContentEncoding.BASE64_GZIP, ContentEncoding.detect(Base64.encodeBase64String(
+                new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 4, 0, 0x63, 0})));
+        assertEquals(ContentEncoding.BASE64_GZIP, ContentEncoding.detect(Base64.encodeBase64String(
+                new byte[]{0x1f, (byte) 0x8b, 8, 8, 1, 2, 3, 4, 0, 11, 'a', 0})));
+    }
+
+    @Test
+    public void textStartingWithTheGZipPrefixIsJson () {
+        // the Base64 scan took "H4sIdeas" for Base64 too, and so does any other single word
+        assertEquals(ContentEncoding.JSON, ContentEncoding.detect("H4sIdeas"));
+        assertEquals(ContentEncoding.JSON, ContentEncoding.detect("H4sI is the start of Base64 encoded GZip"));
+        assertEquals(ContentEncoding.JSON, ContentEncoding.detect("H4sIAAAAAAAA{\"Id\":\"tcm:5-12\"}"));
+        // Base64, but of a header with reserved flags and of an unknown operating system
+        assertEquals(ContentEncoding.JSON, ContentEncoding.detect("H4sI4AAAAAAAAAAAAAAA"));
+        assertEquals(ContentEncoding.JSON, ContentEncoding.detect(Base64.encodeBase64String(
+                new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 100, 0, 0})));
+    }
+
+    @Test
+    public void plainTextIsJson () {
+        for (String text : new String[]{"", "Welcome", "<div class=\"teaser\">Welcome</div>", "H4s"}) {
+            assertEquals(ContentEncoding.JSON, ContentEncoding.detect(text));
+        }
+    }
+
+    private static byte[] gzip (final String content) throws IOException {
+        return GZipCodec.getInstance().compress(output -> output.write(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,85 @@
+package org.dd4t.providers.serializer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class GZipCodecTest {
+
+    private final GZipCodec codec = GZipCodec.getInstance();
+
+    @Test
+    public void compressedContentIsReadByJdkStreams () throws IOException {
+        final byte[] content = "{\"title\":\"compressed\"}".getBytes(StandardCharsets.UTF_8);
+        final byte[] compressed = codec.compress(output -> output.write(content));
+
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(content, IOUtils.toByteArray(input));
+        }
+    }
+
+    @Test
+    public void jdkCompressedContentIsRead () throws IOException {
+        final byte[] content = randomText(100000);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+            output.write(content);
+        }
+
+        try (InputStream input = codec.newInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(content, IOUtils.toByteArray(input));
+        }
+    }
+
+    @Test
+    public void nestedCompressionKeepsOuterBuffer () throws IOException {
+        final byte[] inner = randomText(5000);
+        final byte[] outer = randomText(5000);
+        final byte[][] nested = new byte[1][];
+
+        final byte[] compressed = codec.compress(output -> {
+            output.write(outer, 0, 2500);
+            nested[0] = codec.compress(innerOutput -> innerOutput.write(inner));
+            output.write(outer, 2500, 2500);
+        });
+
+        assertArrayEquals(outer, decompress(compressed));
+        assertArrayEquals(inner, decompress(nested[0]));
+    }
+
+    @Test
+    public void contentLargerThanRetainedBufferIsCompressed () throws IOException {
+        // random bytes hardly compress, so the buffer grows beyond what is kept in the pool
+        final byte[] content = new byte[3 * 1024 * 1024];
+        new Random(7).nextBytes(content);
+
+        assertArrayEquals(content, decompress(codec.compress(output -> output.write(content))));
+        final byte[] small = randomText(100);
+        assertArrayEquals(small, decompress(codec.compress(output -> output.write(small))));
+    }
+
+    private byte[] decompress (final byte[] compressed) throws IOException {
+        try (InputStream input = codec.newInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+
+    private static byte[] randomText (final int length) {
+        final Random random = new Random(length);
+        final byte[] text = new byte[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return text;
+    }
+}
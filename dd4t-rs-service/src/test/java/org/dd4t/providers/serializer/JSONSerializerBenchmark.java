@@ -0,0 +1,154 @@
+package org.dd4t.providers.serializer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.dd4t.contentmodel.Binary;
+import org.dd4t.contentmodel.Keyword;
+import org.dd4t.contentmodel.Publication;
+import org.dd4t.contentmodel.impl.BinaryImpl;
+import org.dd4t.contentmodel.impl.KeywordImpl;
+import org.dd4t.contentmodel.impl.PublicationImpl;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways JSONSerializer could (de)serialize the models it handles on every taxonomy and binary meta cache
+ * miss: with the ObjectMapper per call, or with an ObjectWriter and ObjectReader created once per type, as
+ * JSONSerializer does; both without and with the Jackson Afterburner module registered. The models are a keyword
+ * tree, as served by the taxonomy provider, and the meta of a binary.
+ * <p/>
+ * The mappers are configured like the one of JSONSerializer. Afterburner is off by default
+ * (providers.serializer.afterburner); turn it on only where this benchmark shows a gain for the models in use.
+ * <p/>
+ * Run as a JMH benchmark (@see Benchmarks).
+ *
+ * @author R. Kempees
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 10, time = 1)
+@Fork (1)
+public class JSONSerializerBenchmark {
+
+    @Param ({"false", "true"})
+    public boolean afterburner;
+
+    private final Keyword taxonomy = buildKeyword("tcm:5-60-512", "Topics", "", 4, 6);
+    private final Binary binary = buildBinary();
+    private ObjectMapper mapper;
+    private ObjectWriter keywordWriter;
+    private ObjectReader keywordReader;
+    private ObjectWriter binaryWriter;
+    private String taxonomyJson;
+
+    @Setup
+    public void setUp () throws JsonProcessingException {
+        mapper = newMapper(afterburner);
+        keywordWriter = mapper.writerWithType(KeywordImpl.class);
+        keywordReader = mapper.reader(KeywordImpl.class);
+        binaryWriter = mapper.writerWithType(BinaryImpl.class);
+        taxonomyJson = keywordWriter.writeValueAsString(taxonomy);
+    }
+
+    @Benchmark
+    public String mapperWriteKeywords () throws JsonProcessingException {
+        return mapper.writeValueAsString(taxonomy);
+    }
+
+    @Benchmark
+    public String writerWriteKeywords () throws JsonProcessingException {
+        return keywordWriter.writeValueAsString(taxonomy);
+    }
+
+    @Benchmark
+    public KeywordImpl mapperReadKeywords () throws IOException {
+        return mapper.readValue(taxonomyJson, KeywordImpl.class);
+    }
+
+    @Benchmark
+    public KeywordImpl readerReadKeywords () throws IOException {
+        return keywordReader.readValue(taxonomyJson);
+    }
+
+    @Benchmark
+    public String mapperWriteBinaryMeta () throws JsonProcessingException {
+        return mapper.writeValueAsString(binary);
+    }
+
+    @Benchmark
+    public String writerWriteBinaryMeta () throws JsonProcessingException {
+        return binaryWriter.writeValueAsString(binary);
+    }
+
+    private static ObjectMapper newMapper (final boolean afterburner) {
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JodaModule());
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        if (afterburner) {
+            mapper.registerModule(new AfterburnerModule());
+        }
+        return mapper;
+    }
+
+    /*
+    Builds a keyword with the given number of child levels below it, each keyword having width children.
+     */
+    private static Keyword buildKeyword (final String id, final String title, final String parentPath,
+                                         final int levels, final int width) {
+        final KeywordImpl keyword = new KeywordImpl();
+        keyword.setId(id);
+        keyword.setTitle(title);
+        keyword.setDescription("Description of " + title);
+        keyword.setKey(title.toLowerCase());
+        keyword.setTaxonomyId("tcm:5-60-512");
+        keyword.setPath(parentPath + "/" + title);
+
+        final List<Keyword> children = new ArrayList<>();
+        for (int i = 0; levels > 0 && i < width; i++) {
+            children.add(buildKeyword(id + i, title + " " + i, keyword.getPath(), levels - 1, width));
+        }
+        keyword.setChildKeywords(children);
+        return keyword;
+    }
+
+    private static Binary buildBinary () {
+        final Binary binary = new BinaryImpl();
+        binary.setId("tcm:5-1234-16");
+        binary.setTitle("product-overview.jpg");
+        binary.setMimeType("image/jpeg");
+        binary.setLastPublishedDate(new DateTime(2016, 4, 12, 14, 30));
+
+        final Publication publication = new PublicationImpl();
+        publication.setId("tcm:0-5-1");
+        binary.setPublication(publication);
+
+        final HashMap<String, Object> properties = new HashMap<>();
+        properties.put("alt", "Product overview");
+        properties.put("copyright", "Example Inc.");
+        binary.setCustomProperties(properties);
+        return binary;
+    }
+}
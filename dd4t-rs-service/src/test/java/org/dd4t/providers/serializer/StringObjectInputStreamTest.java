@@ -0,0 +1,59 @@
+package org.dd4t.providers.serializer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class StringObjectInputStreamTest {
+
+    @Test
+    public void stringIsRead () throws IOException {
+        assertEquals("{\"Id\":\"tcm:5-1234\"}", read(serialize("{\"Id\":\"tcm:5-1234\"}")));
+    }
+
+    @Test
+    public void longStringIsRead () throws IOException {
+        // a String of more than 65535 UTF-8 bytes is written as TC_LONGSTRING
+        final char[] characters = new char[70000];
+        Arrays.fill(characters, '\u00e9');
+        final String json = new String(characters);
+        assertEquals(json, read(serialize(json)));
+    }
+
+    @Test (expected = InvalidClassException.class)
+    public void otherObjectIsRejected () throws IOException {
+        read(serialize(new ArrayList<>(Arrays.asList("tcm:5-1234"))));
+    }
+
+    @Test (expected = InvalidClassException.class)
+    public void arrayIsRejected () throws IOException {
+        read(serialize(new String[]{"tcm:5-1234"}));
+    }
+
+    @Test (expected = InvalidClassException.class)
+    public void nullIsRejected () throws IOException {
+        read(serialize(null));
+    }
+
+    private static byte[] serialize (final Object object) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String read (final byte[] serialized) throws IOException {
+        try (StringObjectInputStream input = new StringObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return input.readString();
+        }
+    }
+}
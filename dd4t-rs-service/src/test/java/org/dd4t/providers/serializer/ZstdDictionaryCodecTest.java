@@ -0,0 +1,99 @@
+package org.dd4t.providers.serializer;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.apache.commons.io.IOUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZstdDictionaryCodecTest {
+
+    private static final int SAMPLES = 500;
+    private static final int DICTIONARY_SIZE = 16 * 1024;
+
+    private static String dcp;
+    private static ZstdDictionaryCodec codec;
+
+    @BeforeClass
+    public static void trainDictionary () throws IOException {
+        dcp = Benchmarks.readSample("dcp.json");
+        codec = train(dcp);
+    }
+
+    @Test
+    public void dcpSurvivesRoundTrip () throws IOException {
+        final byte[] json = createDcp(dcp, new Random(-1)).getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(json, decompress(codec, codec.compress(output -> output.write(json))));
+    }
+
+    @Test
+    public void dictionaryCompressesDcpsBetter () throws IOException {
+        final Random random = new Random(-2);
+        long json = 0;
+        long dictionary = 0;
+        long zstd = 0;
+        long gzip = 0;
+        for (int i = 0; i < 20; i++) {
+            final byte[] content = createDcp(dcp, random).getBytes(StandardCharsets.UTF_8);
+            json += content.length;
+            dictionary += codec.compress(output -> output.write(content)).length;
+            zstd += ZstdCodec.getInstance().compress(output -> output.write(content)).length;
+            gzip += GZipCodec.getInstance().compress(output -> output.write(content)).length;
+        }
+
+        final String sizes = json + " bytes of DCP JSON: zstd-dict " + dictionary + ", zstd " + zstd + ", gzip " + gzip;
+        assertTrue(sizes, dictionary * 2 < zstd);
+        assertTrue(sizes, dictionary * 2 < gzip);
+    }
+
+    @Test(expected = IOException.class)
+    public void contentWithoutFrameIsRejected () throws IOException {
+        final byte[] json = dcp.getBytes(StandardCharsets.UTF_8);
+        decompress(codec, GZipCodec.getInstance().compress(output -> output.write(json)));
+    }
+
+    private static ZstdDictionaryCodec train (final String dcp) {
+        final Random random = new Random(42);
+        final byte[][] samples = new byte[SAMPLES][];
+        int totalSize = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = createDcp(dcp, random).getBytes(StandardCharsets.UTF_8);
+            totalSize += samples[i].length;
+        }
+
+        final ZstdDictTrainer trainer = new ZstdDictTrainer(totalSize, DICTIONARY_SIZE);
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        return new ZstdDictionaryCodec(trainer.trainSamples(), ZstdCodec.getInstance().getLevel());
+    }
+
+    /*
+    A DCP of the same schema and template as the sample, with other ids, dates and texts.
+     */
+    static String createDcp (final String dcp, final Random random) {
+        final int id = 1000 + random.nextInt(100000);
+        return dcp.replace("tcm:5-1234", "tcm:5-" + id)
+                .replace("Article 1", "Article " + id)
+                .replace("2016-04-12T14:01:03.177", String.format("2016-%02d-%02dT%02d:%02d:%02d.%03d",
+                        1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24), random.nextInt(60),
+                        random.nextInt(60), random.nextInt(1000)))
+                .replace("Lorem ipsum dolor sit amet", Long.toString(random.nextLong(), 36) + " " +
+                        Long.toString(random.nextLong(), 36))
+                .replace("Sed nisi. Nulla quis sem", Long.toString(random.nextLong(), 36));
+    }
+
+    private static byte[] decompress (final CompressionCodec codec, final byte[] compressed) throws IOException {
+        try (InputStream input = codec.newInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+}
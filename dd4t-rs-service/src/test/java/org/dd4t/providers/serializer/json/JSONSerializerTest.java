@@ -0,0 +1,17 @@
+package org.dd4t.providers.serializer.json;
+
+import org.dd4t.core.exceptions.SerializationException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JSONSerializerTest {
+
+    private final JSONSerializer serializer = new JSONSerializer();
+
+    @Test
+    public void nullIsSerializedAsJsonNull () throws SerializationException {
+        assertEquals("null", serializer.serializeJSON(null));
+        assertEquals("null", serializer.decompressGZip(serializer.serializeJSONGZip(null)));
+    }
+}